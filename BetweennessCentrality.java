@@ -0,0 +1,266 @@
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * This class computes the betweenness centrality of the nodes of a CsrGraph: for every node, the number of
+ * shortest paths between pairs of other nodes that go through it, each pair sharing one unit among its shortest
+ * paths. The nodes with the highest scores are the relays most traffic depends on.
+ *
+ * The scores are computed with the algorithm of U. Brandes (2001): one shortest path search per source counts
+ * the shortest paths to every node, then the nodes are taken back in the order they were settled and every
+ * node passes its dependency on to its predecessors, which are found again among its neighbors from the
+ * distances, so that no predecessor lists are kept. Searches follow the link weights with Dijkstra's algorithm,
+ * or count hops with a breadth-first search if weighted is turned off. The sources are split among the
+ * threads of the common fork-join pool, and every task keeps its own primitive arrays and scores, which are
+ * added up at the end.
+ *
+ * All sources take O(V * E log V) by weight and O(V * E) by hops, which is practical up to some ten thousand
+ * nodes; estimate searches from a random sample of sources only, and getErrorBound tells how close its scores are.
+ * Links must have positive weights and the same weight both ways, as NetGraph keeps them.
+ */
+public class BetweennessCentrality {
+
+    private final CsrGraph graph;
+    private boolean weighted = true;
+    private boolean parallel = true;
+
+    /**
+     * Constructs a new BetweennessCentrality over the given snapshot.
+     *
+     * @param graph the snapshot.
+     */
+    public BetweennessCentrality(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets whether shortest paths follow the link weights or count hops. Paths follow the weights by default.
+     *
+     * @param weighted true for the shortest paths by weight, false for the paths with the fewest hops.
+     */
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    /**
+     * Sets whether the sources are searched on several threads. They are by default.
+     *
+     * @param parallel true to use the common fork-join pool.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Computes the exact betweenness of every node, searching from every node.
+     *
+     * @return the score of every node, by index in the snapshot.
+     */
+    public double[] compute() {
+        return accumulate(IntStream.range(0, graph.getNumNodes()).toArray(), 0.5);
+    }
+
+    /**
+     * Estimates the betweenness of every node from the searches of numSamples sources picked at random without
+     * replacement, scaled up to all sources. The estimate of every node is unbiased, and with probability
+     * 1 - delta all of them are within getErrorBound(numNodes, numSamples, delta) of the exact scores.
+     * With as many samples as nodes, the scores are exact.
+     *
+     * @param numSamples the number of sources.
+     * @param seed       the seed of the choice of the sources.
+     * @return the estimated score of every node, by index in the snapshot.
+     * @throws IllegalArgumentException if numSamples is not positive.
+     */
+    public double[] estimate(int numSamples, long seed) {
+        if (numSamples < 1) {
+            throw new IllegalArgumentException();
+        }
+        int numNodes = graph.getNumNodes();
+        if (numSamples >= numNodes) {
+            return compute();
+        }
+        //the first numSamples steps of a Fisher-Yates shuffle
+        int[] nodes = IntStream.range(0, numNodes).toArray();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < numSamples; i++) {
+            int j = i + random.nextInt(numNodes - i);
+            int node = nodes[j];
+            nodes[j] = nodes[i];
+            nodes[i] = node;
+        }
+        return accumulate(Arrays.copyOf(nodes, numSamples), 0.5 * numNodes / numSamples);
+    }
+
+    /**
+     * Returns how far the scores of estimate may be from the exact ones. A source adds between 0 and
+     * numNodes - 2 to the score of a node, so by the inequality of Hoeffding, which also holds for sampling
+     * without replacement, and a union bound over the nodes, all estimates are within
+     * numNodes * (numNodes - 2) / 2 * sqrt(ln(2 * numNodes / delta) / (2 * numSamples)) with probability 1 - delta.
+     * Compared to the largest possible score, (numNodes - 1) * (numNodes - 2) / 2, the error is about
+     * sqrt(ln(2 * numNodes / delta) / (2 * numSamples)): around 0.06 for 100000 nodes and 2000 samples at 95%.
+     *
+     * @param numNodes   the number of nodes of the graph.
+     * @param numSamples the number of sources.
+     * @param delta      the probability that some estimate is farther off.
+     * @return the largest error of the scores.
+     * @throws IllegalArgumentException if numSamples is not positive or delta is not between 0 and 1.
+     */
+    public static double getErrorBound(int numNodes, int numSamples, double delta) {
+        if (numSamples < 1 || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException();
+        }
+        if (numSamples >= numNodes || numNodes < 3) {
+            return 0;
+        }
+        return numNodes * (numNodes - 2.0) / 2 * Math.sqrt(Math.log(2 * numNodes / delta) / (2 * numSamples));
+    }
+
+    /**
+     * Searches from every source and returns the sum of the dependencies of every node, times scale.
+     * Every pair of nodes is found from both ends, which scale halves.
+     */
+    private double[] accumulate(int[] sources, double scale) {
+        int numNodes = graph.getNumNodes();
+        IntStream stream = IntStream.range(0, sources.length);
+        if (parallel) {
+            stream = stream.parallel();
+        }
+        double[] scores = stream.collect(() -> new Workspace(numNodes), (workspace, s) -> search(workspace, sources[s]),
+                Workspace::add).scores;
+        for (int i = 0; i < numNodes; i++) {
+            scores[i] *= scale;
+        }
+        return scores;
+    }
+
+    /**
+     * Adds the dependencies of every node on one source to the scores of the workspace.
+     */
+    private void search(Workspace workspace, int source) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        double[] distance = workspace.distance;
+        double[] paths = workspace.paths;
+        double[] dependency = workspace.dependency;
+        int[] order = workspace.order;
+
+        int count = weighted ? dijkstra(workspace, source) : breadthFirst(workspace, source);
+
+        //the predecessors of a node are the neighbors a shortest path reaches it from
+        for (int p = count - 1; p > 0; p--) {
+            int node = order[p];
+            double share = (1 + dependency[node]) / paths[node];
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                if (distance[neighbor] + (weighted ? weights[k] : 1) == distance[node]) {
+                    dependency[neighbor] += paths[neighbor] * share;
+                }
+            }
+            workspace.scores[node] += dependency[node];
+        }
+        for (int p = 0; p < count; p++) {
+            int node = order[p];
+            distance[node] = Double.POSITIVE_INFINITY;
+            paths[node] = 0;
+            dependency[node] = 0;
+        }
+    }
+
+    /**
+     * Settles the nodes reachable from the source in order of distance, counting the shortest paths to every
+     * one, and returns how many there are.
+     */
+    private int dijkstra(Workspace workspace, int source) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        double[] distance = workspace.distance;
+        double[] paths = workspace.paths;
+        int[] order = workspace.order;
+        IndexedMinHeap heap = workspace.heap;
+
+        distance[source] = 0;
+        paths[source] = 1;
+        heap.insertOrDecrease(source, 0);
+        int count = 0;
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            order[count++] = node;
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                double alternative = distance[node] + weights[k];
+                if (alternative < distance[neighbor]) {
+                    distance[neighbor] = alternative;
+                    paths[neighbor] = paths[node];
+                    heap.insertOrDecrease(neighbor, alternative);
+                } else if (alternative == distance[neighbor]) {
+                    paths[neighbor] += paths[node];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits the nodes reachable from the source in order of hops, counting the paths with the fewest hops to
+     * every one, and returns how many there are.
+     */
+    private int breadthFirst(Workspace workspace, int source) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] distance = workspace.distance;
+        double[] paths = workspace.paths;
+        int[] order = workspace.order;
+
+        distance[source] = 0;
+        paths[source] = 1;
+        order[0] = source;
+        int count = 1;
+        for (int head = 0; head < count; head++) {
+            int node = order[head];
+            double hops = distance[node] + 1;
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                if (distance[neighbor] == Double.POSITIVE_INFINITY) {
+                    distance[neighbor] = hops;
+                    paths[neighbor] = paths[node];
+                    order[count++] = neighbor;
+                } else if (distance[neighbor] == hops) {
+                    paths[neighbor] += paths[node];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The arrays of the searches of one task and the scores it has found. Path counts are doubles, since the
+     * number of shortest paths in a grid-like network overflows a long after some tens of hops.
+     */
+    private static class Workspace {
+
+        final double[] scores;
+        final double[] distance;
+        final double[] paths;
+        final double[] dependency;
+        final int[] order;
+        final IndexedMinHeap heap;
+
+        Workspace(int numNodes) {
+            this.scores = new double[numNodes];
+            this.distance = new double[numNodes];
+            this.paths = new double[numNodes];
+            this.dependency = new double[numNodes];
+            this.order = new int[numNodes];
+            this.heap = new IndexedMinHeap(numNodes);
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        }
+
+        void add(Workspace other) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] += other.scores[i];
+            }
+        }
+    }
+}
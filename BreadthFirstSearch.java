@@ -0,0 +1,374 @@
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * This class implements breadth-first search over a CsrGraph for hop counts: flooding reach, coverage within a
+ * time to live and hop eccentricities. The visited nodes are a bitset, one bit per node, and the frontier is kept
+ * either as a list of nodes or as a bitset, whichever suits the direction of the level, so a search touches
+ * no objects and an instance can be reused for any number of searches.
+ *
+ * The search is direction-optimizing (S. Beamer, K. Asanovic, D. Patterson, 2012). While the frontier is small
+ * it expands top-down, from every frontier node to its unvisited neighbors. Once the links out of the frontier
+ * outnumber the links out of the unvisited nodes by ALPHA, it expands bottom-up instead: every unvisited node
+ * looks for any neighbor in the frontier bitset and stops at the first one, which skips most of the links of the
+ * big middle levels of a search. It goes back to top-down when the frontier shrinks below 1 / BETA of the nodes.
+ * As in the paper, it only turns bottom-up while the frontier is growing and top-down while it is shrinking.
+ * With setParallel, large levels are split in blocks expanded on the common fork-join pool: blocks of frontier
+ * nodes top-down, which claim the nodes they discover with an atomic or on the visited bitset, and blocks of
+ * bitset words bottom-up, which need no atomic operation since each word is written by one block.
+ */
+public class BreadthFirstSearch {
+
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    /**
+     * The number of frontier nodes expanded by a task of a parallel top-down level.
+     */
+    private static final int NODES_PER_TASK = 4096;
+
+    /**
+     * The number of bitset words, of 64 nodes each, expanded by a task of a parallel bottom-up level.
+     */
+    private static final int WORDS_PER_TASK = 1024;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final CsrGraph graph;
+    private final int numNodes;
+    private final long[] visited;
+    private long[] frontierBits;
+    private long[] nextBits;
+    private int[] frontier;
+    private int[] next;
+    private final int[] hops;
+    private int[] levelSizes = new int[16];
+    private int numLevels;
+    private int numReached;
+    private int farthest;
+    private boolean parallel;
+
+    /**
+     * The nodes found by each task of a parallel top-down level, before they are appended to the next frontier.
+     */
+    private int[][] taskNodes = new int[0][];
+    private int[] taskSizes = new int[0];
+
+    /**
+     * Constructs a new BreadthFirstSearch over the given snapshot.
+     *
+     * @param graph the snapshot.
+     */
+    public BreadthFirstSearch(CsrGraph graph) {
+        this.graph = graph;
+        this.numNodes = graph.getNumNodes();
+        int numWords = (numNodes + 63) >>> 6;
+        this.visited = new long[numWords];
+        this.frontierBits = new long[numWords];
+        this.nextBits = new long[numWords];
+        this.frontier = new int[numNodes];
+        this.next = new int[numNodes];
+        this.hops = new int[numNodes];
+        Arrays.fill(hops, -1);
+    }
+
+    /**
+     * Sets whether large levels are expanded in parallel.
+     *
+     * @param parallel true to expand on the common fork-join pool.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Searches the whole component of a node.
+     *
+     * @param source the index of the source node.
+     * @return the number of nodes reached, including the source.
+     */
+    public int run(int source) {
+        return run(new int[]{source}, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Searches from several sources at once, so that the hops of a node are its distance to the nearest source.
+     *
+     * @param sources the indexes of the source nodes.
+     * @param maxHops the number of hops after which the search stops, such as the time to live of a flood.
+     * @return the number of nodes reached, including the sources.
+     * @throws IllegalArgumentException if maxHops is negative.
+     */
+    public int run(int[] sources, int maxHops) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException();
+        }
+        Arrays.fill(visited, 0);
+        Arrays.fill(hops, -1);
+        numLevels = 0;
+        numReached = 0;
+
+        int frontierSize = 0;
+        long frontierLinks = 0;
+        for (int source : sources) {
+            if (hops[source] == -1) {
+                hops[source] = 0;
+                visited[source >>> 6] |= 1L << source;
+                frontier[frontierSize++] = source;
+                frontierLinks += graph.degree(source);
+                farthest = source;
+            }
+        }
+        long unvisitedLinks = graph.getOffsets()[numNodes] - frontierLinks;
+        addLevel(frontierSize);
+
+        boolean bottomUp = false;
+        int previousSize = 0;
+        for (int level = 1; level <= maxHops && frontierSize > 0; level++) {
+            // only switch while the frontier grows, or shrinks, so that the long thin tail of a search
+            // over a wide area, where few nodes are left but the frontier stays small, stays top-down
+            if (!bottomUp && frontierLinks > unvisitedLinks / ALPHA && frontierSize > previousSize) {
+                bottomUp = true;
+                Arrays.fill(frontierBits, 0);
+                for (int i = 0; i < frontierSize; i++) {
+                    frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+                }
+            } else if (bottomUp && frontierSize < numNodes / BETA && frontierSize < previousSize) {
+                bottomUp = false;
+            }
+            previousSize = frontierSize;
+
+            int nextSize = bottomUp ? bottomUpLevel(level) : topDownLevel(frontierSize, level);
+            frontierLinks = 0;
+            for (int i = 0; i < nextSize; i++) {
+                frontierLinks += graph.degree(next[i]);
+            }
+            unvisitedLinks -= frontierLinks;
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+            if (frontierSize > 0) {
+                farthest = frontier[frontierSize - 1];
+                addLevel(frontierSize);
+            }
+        }
+        return numReached;
+    }
+
+    /**
+     * Expands the frontier list top-down into the next list.
+     *
+     * @return the size of the next frontier.
+     */
+    private int topDownLevel(int frontierSize, int hop) {
+        if (!parallel || frontierSize <= NODES_PER_TASK) {
+            return expand(0, frontierSize, hop, next, false);
+        }
+        int numTasks = (frontierSize + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        if (taskNodes.length < numTasks) {
+            taskNodes = Arrays.copyOf(taskNodes, numTasks);
+            taskSizes = new int[numTasks];
+        }
+        IntStream.range(0, numTasks).parallel().forEach(task -> {
+            int from = task * NODES_PER_TASK;
+            int to = Math.min(frontierSize, from + NODES_PER_TASK);
+            int[] found = taskNodes[task];
+            int maxFound = 0;
+            for (int i = from; i < to; i++) {
+                maxFound += graph.degree(frontier[i]);
+            }
+            if (found == null || found.length < maxFound) {
+                found = taskNodes[task] = new int[maxFound];
+            }
+            taskSizes[task] = expand(from, to, hop, found, true);
+        });
+        int nextSize = 0;
+        for (int task = 0; task < numTasks; task++) {
+            System.arraycopy(taskNodes[task], 0, next, nextSize, taskSizes[task]);
+            nextSize += taskSizes[task];
+        }
+        return nextSize;
+    }
+
+    /**
+     * Visits the unvisited neighbors of frontier[from] ... frontier[to - 1] and lists them in out.
+     * In a parallel level a node is claimed with an atomic or, so that only one task lists it.
+     *
+     * @return the number of nodes listed.
+     */
+    private int expand(int from, int to, int hop, int[] out, boolean atomic) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int node = frontier[i];
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                long bit = 1L << neighbor;
+                if ((visited[neighbor >>> 6] & bit) != 0) {
+                    continue;
+                }
+                if (atomic) {
+                    if (((long) WORDS.getAndBitwiseOr(visited, neighbor >>> 6, bit) & bit) != 0) {
+                        continue;
+                    }
+                } else {
+                    visited[neighbor >>> 6] |= bit;
+                }
+                hops[neighbor] = hop;
+                out[count++] = neighbor;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Expands the frontier bitset bottom-up into the next bitset, then lists the next frontier,
+     * which becomes the frontier bitset of the following level.
+     *
+     * @return the size of the next frontier.
+     */
+    private int bottomUpLevel(int hop) {
+        int numWords = visited.length;
+        if (parallel && numWords > WORDS_PER_TASK) {
+            IntStream.range(0, (numWords + WORDS_PER_TASK - 1) / WORDS_PER_TASK).parallel()
+                    .forEach(task -> bottomUpStep(task * WORDS_PER_TASK, Math.min(numWords, (task + 1) * WORDS_PER_TASK), hop));
+        } else {
+            bottomUpStep(0, numWords, hop);
+        }
+        int nextSize = 0;
+        for (int w = 0; w < numWords; w++) {
+            for (long word = nextBits[w]; word != 0; word &= word - 1) {
+                next[nextSize++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        long[] swap = frontierBits;
+        frontierBits = nextBits;
+        nextBits = swap;
+        return nextSize;
+    }
+
+    /**
+     * Looks for a frontier neighbor of every unvisited node of the given words.
+     */
+    private void bottomUpStep(int fromWord, int toWord, int hop) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int w = fromWord; w < toWord; w++) {
+            long unvisited = ~visited[w];
+            if (w == visited.length - 1 && (numNodes & 63) != 0) {
+                unvisited &= (1L << numNodes) - 1;
+            }
+            long found = 0;
+            for (; unvisited != 0; unvisited &= unvisited - 1) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                    int neighbor = targets[k];
+                    if ((frontierBits[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                        found |= 1L << node;
+                        hops[node] = hop;
+                        break;
+                    }
+                }
+            }
+            nextBits[w] = found;
+            visited[w] |= found;
+        }
+    }
+
+    private void addLevel(int size) {
+        if (numLevels == levelSizes.length) {
+            levelSizes = Arrays.copyOf(levelSizes, 2 * numLevels);
+        }
+        levelSizes[numLevels++] = size;
+        numReached += size;
+    }
+
+    /**
+     * Returns the hop count of a node in the last search.
+     *
+     * @param node the index of the node.
+     * @return the number of hops from the nearest source, or -1 if the node was not reached.
+     */
+    public int getHops(int node) {
+        return hops[node];
+    }
+
+    /**
+     * Returns the hop count of every node in the last search. The array is reused by the next search
+     * and must not be modified.
+     *
+     * @return the hops of every node, -1 for nodes not reached.
+     */
+    public int[] getHops() {
+        return hops;
+    }
+
+    /**
+     * Returns the number of nodes reached by the last search, including the sources.
+     *
+     * @return the number of nodes reached.
+     */
+    public int getNumReached() {
+        return numReached;
+    }
+
+    /**
+     * Returns the number of nodes reached within the given number of hops in the last search,
+     * which is the coverage of a flood with that time to live.
+     *
+     * @param maxHops the number of hops.
+     * @return the number of nodes at most maxHops away from a source.
+     */
+    public int getCoverage(int maxHops) {
+        int coverage = 0;
+        for (int level = 0; level < numLevels && level <= maxHops; level++) {
+            coverage += levelSizes[level];
+        }
+        return coverage;
+    }
+
+    /**
+     * Returns the number of nodes at the given hop count in the last search.
+     *
+     * @param hop the hop count.
+     * @return the number of nodes exactly hop hops away from the nearest source.
+     */
+    public int getLevelSize(int hop) {
+        return hop < numLevels ? levelSizes[hop] : 0;
+    }
+
+    /**
+     * Returns the largest hop count of the last search, the eccentricity of its source within its component.
+     *
+     * @return the hops of the farthest node reached.
+     */
+    public int getEccentricity() {
+        return numLevels - 1;
+    }
+
+    /**
+     * Returns a node at the largest hop count of the last search.
+     *
+     * @return the index of a farthest node.
+     */
+    public int getFarthest() {
+        return farthest;
+    }
+
+    /**
+     * Estimates the hop diameter of the component of a node with a double sweep: the eccentricity of the node
+     * farthest from the start node. The result is a lower bound, usually exact or close on geometric graphs.
+     * The last search is the sweep from that farthest node.
+     *
+     * @param start the index of a node of the component.
+     * @return a lower bound of the hop diameter of the component.
+     */
+    public int estimateHopDiameter(int start) {
+        run(start);
+        run(getFarthest());
+        return getEccentricity();
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.*;
+
+/**
+ * This class implements a calendar queue (R. Brown, 1988), a priority queue of SimulationEvents ordered by time
+ * whose enqueue and dequeue take O(1) expected time. Events are hashed by time into a ring of buckets, each one
+ * day wide, like a desk calendar; dequeue walks the days in order and only looks at events of the current year.
+ * The number of buckets doubles or halves with the number of events and the day width is re-estimated from the
+ * spacing of the earliest events, so the queue adapts to the event density of the simulation.
+ * Events with equal times are dequeued in the order of their sequence numbers.
+ * Every bucket also remembers its last event, because simulations mostly schedule events later than the ones
+ * already waiting, and those are appended without walking the bucket.
+ */
+public class CalendarQueue {
+
+    private SimulationEvent[] buckets;
+    private SimulationEvent[] tails;
+    private int mask;
+    private double width;
+    private int size;
+
+    /**
+     * The bucket being scanned by dequeue and its absolute day number, floor(time / width).
+     */
+    private long currentDay;
+
+    /**
+     * Constructs a new empty CalendarQueue.
+     */
+    public CalendarQueue() {
+        this.buckets = new SimulationEvent[2];
+        this.tails = new SimulationEvent[2];
+        this.mask = 1;
+        this.width = 1;
+    }
+
+    /**
+     * Returns the number of events in the queue.
+     *
+     * @return the number of events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the queue is empty.
+     *
+     * @return true if the queue has no events.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an event to the queue.
+     *
+     * @param event the event.
+     */
+    public void enqueue(SimulationEvent event) {
+        long day = day(event.time);
+        if (day < currentDay) {
+            currentDay = day;
+        }
+        insert(event, day);
+        if (++size > 2 * buckets.length) {
+            resize(2 * buckets.length);
+        }
+    }
+
+    /**
+     * Removes the earliest event from the queue.
+     *
+     * @return the earliest event, or null if the queue is empty.
+     */
+    public SimulationEvent dequeue() {
+        return size == 0 ? null : removeHead(findEarliest());
+    }
+
+    /**
+     * Returns the earliest event of the queue without removing it.
+     *
+     * @return the earliest event, or null if the queue is empty.
+     */
+    public SimulationEvent peek() {
+        return size == 0 ? null : buckets[findEarliest()];
+    }
+
+    /**
+     * Advances the current day to the day of the earliest event and returns its bucket. The queue must not be empty.
+     */
+    private int findEarliest() {
+        for (int scanned = 0; scanned <= mask; scanned++, currentDay++) {
+            int bucket = (int) (currentDay & mask);
+            SimulationEvent head = buckets[bucket];
+            if (head != null && day(head.time) <= currentDay) {
+                return bucket;
+            }
+        }
+
+        // a whole year without events: jump straight to the day of the earliest event
+        SimulationEvent earliest = null;
+        for (SimulationEvent head : buckets) {
+            if (head != null && (earliest == null || head.before(earliest))) {
+                earliest = head;
+            }
+        }
+        currentDay = day(earliest.time);
+        return (int) (currentDay & mask);
+    }
+
+    private SimulationEvent removeHead(int bucket) {
+        SimulationEvent head = buckets[bucket];
+        buckets[bucket] = head.next;
+        if (head.next == null) {
+            tails[bucket] = null;
+        }
+        head.next = null;
+        if (--size < buckets.length / 2 && buckets.length > 2) {
+            resize(buckets.length / 2);
+        }
+        return head;
+    }
+
+    /**
+     * Inserts an event into its bucket, keeping the bucket sorted.
+     */
+    private void insert(SimulationEvent event, long day) {
+        int bucket = (int) (day & mask);
+        SimulationEvent head = buckets[bucket];
+        if (head == null || !event.before(tails[bucket])) {
+            event.next = null;
+        }
+        if (head == null) {
+            buckets[bucket] = tails[bucket] = event;
+            return;
+        }
+        if (!event.before(tails[bucket])) {
+            tails[bucket].next = event;
+            tails[bucket] = event;
+            return;
+        }
+        if (event.before(head)) {
+            event.next = head;
+            buckets[bucket] = event;
+            return;
+        }
+        SimulationEvent previous = head;
+        while (previous.next != null && !event.before(previous.next)) {
+            previous = previous.next;
+        }
+        event.next = previous.next;
+        previous.next = event;
+    }
+
+    /**
+     * Rebuilds the calendar with the given number of buckets and a new day width.
+     */
+    private void resize(int numBuckets) {
+        SimulationEvent[] oldBuckets = buckets;
+        width = estimateWidth();
+        buckets = new SimulationEvent[numBuckets];
+        tails = new SimulationEvent[numBuckets];
+        mask = numBuckets - 1;
+
+        long earliestDay = Long.MAX_VALUE;
+        for (SimulationEvent head : oldBuckets) {
+            for (SimulationEvent event = head; event != null; ) {
+                SimulationEvent next = event.next;
+                long day = day(event.time);
+                earliestDay = Math.min(earliestDay, day);
+                insert(event, day);
+                event = next;
+            }
+        }
+        currentDay = earliestDay == Long.MAX_VALUE ? 0 : earliestDay;
+    }
+
+    /**
+     * Estimates a good day width as three times the typical gap between consecutive events, taken as the median
+     * positive gap of an even sample of the event times divided by the sampling stride.
+     * Simulation events come in tight bursts, such as the arrivals of one broadcast, separated by much longer gaps;
+     * the median follows the gaps within the bursts, so a burst spreads over many small buckets, and the long gaps
+     * only cost a jump over empty days once per burst.
+     */
+    private double estimateWidth() {
+        final int maxSamples = 1024;
+        int stride = Math.max(1, size / maxSamples);
+        double[] samples = new double[Math.min(size, maxSamples + 1)];
+        int numSamples = 0;
+        int k = 0;
+        for (SimulationEvent head : buckets) {
+            for (SimulationEvent event = head; event != null && numSamples < samples.length; event = event.next) {
+                if (k++ % stride == 0) {
+                    samples[numSamples++] = event.time;
+                }
+            }
+        }
+        Arrays.sort(samples, 0, numSamples);
+        int numGaps = 0;
+        for (int i = 1; i < numSamples; i++) {
+            if (samples[i] > samples[i - 1]) {
+                samples[numGaps++] = samples[i] - samples[i - 1];
+            }
+        }
+        if (numGaps == 0) {
+            return width;
+        }
+        Arrays.sort(samples, 0, numGaps);
+        return 3 * samples[numGaps / 2] / stride;
+    }
+
+    private long day(double time) {
+        return (long) Math.floor(time / width);
+    }
+}
@@ -0,0 +1,756 @@
+import java.util.*;
+
+/**
+ * This class represents a graph that keeps its nodes and links in primitive arrays instead of objects, for
+ * topologies of millions of nodes. A NetGraph spends well over a hundred bytes on every node (the NetNode, its name,
+ * the AdjacencyListHead and its LinkedList) and close to a hundred on every link (two Adjacent objects and two list
+ * nodes); here a node takes about 32 bytes and a link 8.
+ *
+ * Node i has the id ids[i], the coordinates x[i] and y[i], and a slice of the shared targets array holding the
+ * indexes of its neighbors: targets[start[i]] ... targets[start[i] + degree[i] - 1], with room for capacity[i]
+ * entries. A slice that fills up moves to the end of the array with twice the room, and the array is compacted when
+ * the abandoned slices take more room than the live ones.
+ * Link weights are not stored while every link weighs the distance between its nodes, as in the networks built by
+ * Network; the first link with another weight, or a node moved while it has links, makes the weights explicit.
+ * Names are not stored either while every node is called "node " + id, and ids are not mapped while every id is
+ * the index of its node.
+ *
+ * NetNode and Adjacent objects are only made on demand, as views: getNetNode, nodeFromIndex and getAdjacents return
+ * new objects on every call, so nodes are compared by id, and changing a view does not change the graph.
+ * Deleting a node moves the last node into its index.
+ */
+public class CompactGraph {
+
+    private int numNodes;
+    private int[] ids;
+    private double[] x;
+    private double[] y;
+
+    /**
+     * The names of the nodes, or null if every node is called "node " + id. A null entry stands for that name.
+     */
+    private String[] names;
+
+    /**
+     * Maps the id of every node to its index, or null if the id of every node is its index.
+     */
+    private IntIntHashMap indexes;
+
+    private int[] start;
+    private int[] degree;
+    private int[] capacity;
+    private int[] targets;
+
+    /**
+     * The weights of the links at the same positions as in targets, or null if every link weighs the distance
+     * between its nodes.
+     */
+    private double[] weights;
+
+    /**
+     * The number of entries of targets in use, live or abandoned.
+     */
+    private int used;
+
+    /**
+     * The number of entries of targets in slices that were moved or deleted.
+     */
+    private int abandoned;
+    private int numEntries;
+
+    /**
+     * The last snapshot returned by freeze, or null if the graph has changed since then.
+     */
+    private CsrGraph snapshot;
+
+    /**
+     * Constructs a new empty CompactGraph.
+     */
+    public CompactGraph() {
+        this(16, 64);
+    }
+
+    /**
+     * Constructs a new empty CompactGraph with room for the given number of nodes and links.
+     *
+     * @param expectedNodes the number of nodes the graph should hold before growing.
+     * @param expectedLinks the number of links the graph should hold before growing.
+     * @throws IllegalArgumentException if either number is negative.
+     */
+    public CompactGraph(int expectedNodes, int expectedLinks) {
+        if (expectedNodes < 0 || expectedLinks < 0) {
+            throw new IllegalArgumentException();
+        }
+        int nodes = Math.max(expectedNodes, 1);
+        this.ids = new int[nodes];
+        this.x = new double[nodes];
+        this.y = new double[nodes];
+        this.start = new int[nodes];
+        this.degree = new int[nodes];
+        this.capacity = new int[nodes];
+        this.targets = new int[Math.max(2 * expectedLinks, 1)];
+    }
+
+    /**
+     * Constructs a new CompactGraph from the arrays of a compressed sparse row graph. The arrays are used
+     * as they are, not copied.
+     *
+     * @param ids     the ids of the nodes, all different.
+     * @param names   the names of the nodes, or null; a null name stands for "node " + id.
+     * @param x       the x coordinates of the nodes.
+     * @param y       the y coordinates of the nodes.
+     * @param offsets the start of the neighbor list of every node in targets, plus the length of targets at the end.
+     * @param targets the indexes of the neighbors of every node, every link stored once in each direction.
+     * @param weights the weights of the links to the neighbors in targets, or null if every link weighs the
+     *                distance between its nodes.
+     * @throws IllegalArgumentException if two nodes have the same id.
+     */
+    CompactGraph(int[] ids, String[] names, double[] x, double[] y, int[] offsets, int[] targets, double[] weights) {
+        this.numNodes = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.x = x;
+        this.y = y;
+        this.start = Arrays.copyOf(offsets, numNodes);
+        this.degree = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            degree[i] = offsets[i + 1] - offsets[i];
+        }
+        this.capacity = degree.clone();
+        this.targets = targets;
+        this.weights = weights;
+        this.used = offsets[numNodes];
+        this.numEntries = used;
+        for (int i = 0; i < numNodes; i++) {
+            if (indexes == null && ids[i] != i) {
+                mapIds(i);
+            }
+            if (indexes != null) {
+                if (indexes.containsKey(ids[i])) {
+                    throw new IllegalArgumentException();
+                }
+                indexes.put(ids[i], i);
+            }
+        }
+    }
+
+    /**
+     * Builds a CompactGraph holding the same nodes and links as a NetGraph, in the same order.
+     *
+     * @param graph the graph to be copied.
+     * @return the compact copy of the graph.
+     */
+    public static CompactGraph of(NetGraph graph) {
+        CsrGraph snapshot = graph.freeze();
+        int numNodes = snapshot.getNumNodes();
+        int[] ids = new int[numNodes];
+        String[] names = new String[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            NetNode node = snapshot.getNode(i);
+            ids[i] = node.getId();
+            if (!node.getName().equals("node " + node.getId())) {
+                names[i] = node.getName();
+            }
+        }
+        CompactGraph compact = new CompactGraph(ids, names, snapshot.getX().clone(), snapshot.getY().clone(),
+                snapshot.getOffsets(), snapshot.getTargets().clone(), snapshot.getWeights().clone());
+        compact.dropDefaults();
+        return compact;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes.
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns the number of links in the undirected graph.
+     *
+     * @return the number of links.
+     */
+    public int getNumLinks() {
+        return numEntries / 2;
+    }
+
+    /**
+     * Returns the index of the node with the given id.
+     *
+     * @param id the id of the node.
+     * @return the index of the node, or -1 if there is no such node in the graph.
+     */
+    public int indexOf(int id) {
+        if (indexes != null) {
+            return indexes.get(id);
+        }
+        return id >= 0 && id < numNodes ? id : -1;
+    }
+
+    /**
+     * Returns the id of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the id of the node.
+     * @throws IllegalArgumentException if there is no node at that index.
+     */
+    public int getId(int index) {
+        return ids[checkIndex(index)];
+    }
+
+    /**
+     * Returns the name of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the name of the node.
+     * @throws IllegalArgumentException if there is no node at that index.
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        String name = names == null ? null : names[index];
+        return name == null ? "node " + ids[index] : name;
+    }
+
+    /**
+     * Returns the x coordinate of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the x coordinate of the node.
+     * @throws IllegalArgumentException if there is no node at that index.
+     */
+    public double getX(int index) {
+        return x[checkIndex(index)];
+    }
+
+    /**
+     * Returns the y coordinate of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the y coordinate of the node.
+     * @throws IllegalArgumentException if there is no node at that index.
+     */
+    public double getY(int index) {
+        return y[checkIndex(index)];
+    }
+
+    /**
+     * Returns the number of neighbors of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the degree of the node.
+     * @throws IllegalArgumentException if there is no node at that index.
+     */
+    public int degree(int index) {
+        return degree[checkIndex(index)];
+    }
+
+    /**
+     * Returns a neighbor of the node at the given index. Neighbors keep the order in which their links were added.
+     *
+     * @param index the index of the node.
+     * @param k     the position of the neighbor, from 0 to degree(index) - 1.
+     * @return the index of the neighbor.
+     * @throws IllegalArgumentException if there is no such node or neighbor.
+     */
+    public int getNeighbor(int index, int k) {
+        return targets[entry(index, k)];
+    }
+
+    /**
+     * Returns the weight of the link to a neighbor of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @param k     the position of the neighbor, from 0 to degree(index) - 1.
+     * @return the weight of the link.
+     * @throws IllegalArgumentException if there is no such node or neighbor.
+     */
+    public double getWeight(int index, int k) {
+        int entry = entry(index, k);
+        return weights == null ? distance(index, targets[entry]) : weights[entry];
+    }
+
+    /**
+     * Returns the maximum number of neighbors of any node in the graph.
+     *
+     * @return the max degree of the graph.
+     */
+    public int getGraphMaxDegree() {
+        int max = 0;
+        for (int i = 0; i < numNodes; i++) {
+            max = Math.max(max, degree[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns a view of the node with the given id.
+     *
+     * @param id the id of the node.
+     * @return a new NetNode with the id, name and coordinates of the node, or null if there is no such node.
+     */
+    public NetNode getNetNode(int id) {
+        int index = indexOf(id);
+        return index == -1 ? null : view(index);
+    }
+
+    /**
+     * Returns a view of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return a new NetNode with the id, name and coordinates of the node, or null if the index is out of bounds.
+     */
+    public NetNode nodeFromIndex(int index) {
+        return index < 0 || index >= numNodes ? null : view(index);
+    }
+
+    /**
+     * Returns views of the neighbors of a node and of the weights of the links to them.
+     *
+     * @param node the node, matched by id.
+     * @return a new list of new Adjacent objects, in the order the links were added.
+     * @throws IllegalArgumentException if the node is null or not in the graph.
+     */
+    public List<Adjacent> getAdjacents(NetNode node) {
+        int index = indexOf(node);
+        ArrayList<Adjacent> adjacents = new ArrayList<>(degree[index]);
+        for (int k = 0; k < degree[index]; k++) {
+            adjacents.add(new Adjacent(view(targets[start[index] + k]), getWeight(index, k)));
+        }
+        return adjacents;
+    }
+
+    /**
+     * Adds a new node to the graph at index getNumNodes().
+     *
+     * @param id           id of the new node.
+     * @param name         name of the new node.
+     * @param x_coordinate x coordinate of the new node.
+     * @param y_coordinate y coordinate of the new node.
+     * @throws IllegalArgumentException if a node with the same id already exists in the graph.
+     */
+    public void insertNetNode(int id, String name, double x_coordinate, double y_coordinate) {
+        if (indexOf(id) != -1) {
+            throw new IllegalArgumentException();
+        }
+        if (numNodes == ids.length) {
+            int length = ids.length + (ids.length >> 1) + 1;
+            ids = Arrays.copyOf(ids, length);
+            x = Arrays.copyOf(x, length);
+            y = Arrays.copyOf(y, length);
+            start = Arrays.copyOf(start, length);
+            degree = Arrays.copyOf(degree, length);
+            capacity = Arrays.copyOf(capacity, length);
+            if (names != null) {
+                names = Arrays.copyOf(names, length);
+            }
+        }
+        int index = numNodes++;
+        ids[index] = id;
+        x[index] = x_coordinate;
+        y[index] = y_coordinate;
+        start[index] = used;
+        degree[index] = 0;
+        capacity[index] = 0;
+        setName(index, name);
+        if (indexes == null && id != index) {
+            mapIds(index);
+        }
+        if (indexes != null) {
+            indexes.put(id, index);
+        }
+        snapshot = null;
+    }
+
+    /**
+     * Adds a link between two nodes with the given weight. Nothing changes if the nodes are already linked.
+     *
+     * @param node1  the first node, matched by id.
+     * @param node2  the second node, matched by id.
+     * @param weight weight of the link to be added.
+     * @throws IllegalArgumentException if either node is null or not in the graph.
+     */
+    public void addLink(NetNode node1, NetNode node2, double weight) {
+        addLink(indexOf(node1), indexOf(node2), weight);
+    }
+
+    /**
+     * Adds a link between the nodes at the given indexes. Nothing changes if the nodes are already linked.
+     *
+     * @param index1 the index of the first node.
+     * @param index2 the index of the second node.
+     * @param weight weight of the link to be added.
+     * @throws IllegalArgumentException if there is no node at either index.
+     */
+    public void addLink(int index1, int index2, double weight) {
+        checkIndex(index1);
+        checkIndex(index2);
+        if (find(index1, index2) != -1) {
+            return;
+        }
+        if (weights == null && weight != distance(index1, index2)) {
+            storeWeights();
+        }
+        append(index1, index2, weight);
+        append(index2, index1, weight);
+        snapshot = null;
+    }
+
+    /**
+     * Deletes the link between two nodes, if there is one.
+     *
+     * @param node1 the first node, matched by id.
+     * @param node2 the second node, matched by id.
+     * @throws IllegalArgumentException if either node is null or not in the graph.
+     */
+    public void removeLink(NetNode node1, NetNode node2) {
+        int index1 = indexOf(node1);
+        int index2 = indexOf(node2);
+        remove(index1, index2);
+        remove(index2, index1);
+        snapshot = null;
+    }
+
+    /**
+     * Moves a node to new coordinates. Links and their weights are not changed.
+     *
+     * @param node         the node to be moved, matched by id.
+     * @param x_coordinate the new x coordinate of the node.
+     * @param y_coordinate the new y coordinate of the node.
+     * @throws IllegalArgumentException if the node is null or not in the graph.
+     */
+    public void moveNetNode(NetNode node, double x_coordinate, double y_coordinate) {
+        int index = indexOf(node);
+        if (weights == null && degree[index] > 0) {
+            //the links keep their weights, which are no longer the distances once the node moves
+            storeWeights();
+        }
+        x[index] = x_coordinate;
+        y[index] = y_coordinate;
+        snapshot = null;
+    }
+
+    /**
+     * Deletes a node and its links in O(degree) time, apart from the moved node. The last node of the graph
+     * moves into the index of the deleted one.
+     *
+     * @param node the node to be deleted, matched by id.
+     * @throws IllegalArgumentException if the node is null or not in the graph.
+     */
+    public void deleteNetNode(NetNode node) {
+        int index = indexOf(node);
+        for (int k = 0; k < degree[index]; k++) {
+            int neighbor = targets[start[index] + k];
+            if (neighbor != index) {
+                remove(neighbor, index);
+            }
+        }
+        numEntries -= degree[index];
+        abandoned += capacity[index];
+        int last = numNodes - 1;
+        if (indexes == null && last != index) {
+            //the last node gets a new index, so its id no longer is its index
+            mapIds(numNodes);
+        }
+        if (indexes != null) {
+            indexes.remove(ids[index]);
+        }
+        numNodes--;
+        if (last != index) {
+            //the neighbors of the last node now find it at index
+            for (int k = 0; k < degree[last]; k++) {
+                int entry = start[last] + k;
+                int neighbor = targets[entry];
+                if (neighbor == last) {
+                    targets[entry] = index;
+                } else {
+                    targets[find(neighbor, last)] = index;
+                }
+            }
+            ids[index] = ids[last];
+            x[index] = x[last];
+            y[index] = y[last];
+            start[index] = start[last];
+            degree[index] = degree[last];
+            capacity[index] = capacity[last];
+            if (names != null) {
+                names[index] = names[last];
+            }
+            indexes.put(ids[index], index);
+        }
+        if (names != null) {
+            names[last] = null;
+        }
+        snapshot = null;
+    }
+
+    /**
+     * Returns an immutable compressed sparse row snapshot of the graph whose nodes are made on demand.
+     * The snapshot is built once and returned again by later calls until the graph changes.
+     *
+     * @return the snapshot of the current graph.
+     */
+    public CsrGraph freeze() {
+        if (snapshot == null) {
+            int[] offsets = new int[numNodes + 1];
+            for (int i = 0; i < numNodes; i++) {
+                offsets[i + 1] = offsets[i] + degree[i];
+            }
+            int[] csrTargets = new int[numEntries];
+            double[] csrWeights = new double[numEntries];
+            for (int i = 0; i < numNodes; i++) {
+                System.arraycopy(targets, start[i], csrTargets, offsets[i], degree[i]);
+                for (int k = 0; k < degree[i]; k++) {
+                    csrWeights[offsets[i] + k] = weights == null
+                            ? distance(i, targets[start[i] + k]) : weights[start[i] + k];
+                }
+            }
+            snapshot = new CsrGraph(Arrays.copyOf(ids, numNodes), names == null ? null : Arrays.copyOf(names, numNodes),
+                    Arrays.copyOf(x, numNodes), Arrays.copyOf(y, numNodes), offsets, csrTargets, csrWeights);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Builds a NetGraph holding the same nodes and links, in the same order. Every node and link becomes an object,
+     * so the copy takes an order of magnitude more memory than this graph.
+     *
+     * @return the NetGraph copy of the graph.
+     */
+    public NetGraph toNetGraph() {
+        ArrayList<AdjacencyListHead> nodesList = new ArrayList<>(numNodes);
+        for (int i = 0; i < numNodes; i++) {
+            nodesList.add(new AdjacencyListHead(view(i)));
+        }
+        for (int i = 0; i < numNodes; i++) {
+            LinkedList<Adjacent> adjacencyList = nodesList.get(i).getAdjacencyList();
+            for (int k = 0; k < degree[i]; k++) {
+                adjacencyList.add(new Adjacent(nodesList.get(targets[start[i] + k]).getNetNode(), getWeight(i, k)));
+            }
+        }
+        return new NetGraph(nodesList);
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays of the graph, including the room reserved for growth.
+     *
+     * @return the size of the graph in bytes, without object headers.
+     */
+    public long getMemoryFootprint() {
+        long bytes = (long) ids.length * (4 + 8 + 8 + 4 + 4 + 4) + (long) targets.length * 4;
+        if (weights != null) {
+            bytes += (long) weights.length * 8;
+        }
+        if (names != null) {
+            bytes += (long) names.length * 4;
+            for (int i = 0; i < numNodes; i++) {
+                if (names[i] != null) {
+                    bytes += 40 + names[i].length();
+                }
+            }
+        }
+        if (indexes != null) {
+            bytes += indexes.capacity() * 9L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the index of a node, matched by id.
+     *
+     * @throws IllegalArgumentException if the node is null or not in the graph.
+     */
+    private int indexOf(NetNode node) {
+        if (node == null) {
+            throw new IllegalArgumentException();
+        }
+        int index = indexOf(node.getId());
+        if (index == -1) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= numNodes) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    private int entry(int index, int k) {
+        checkIndex(index);
+        if (k < 0 || k >= degree[index]) {
+            throw new IllegalArgumentException();
+        }
+        return start[index] + k;
+    }
+
+    private NetNode view(int index) {
+        return new NetNode(ids[index], getName(index), x[index], y[index]);
+    }
+
+    /**
+     * Returns the distance between two nodes, computed exactly as Network computes the weights of its links,
+     * so that weights left implicit read back bit for bit.
+     */
+    private double distance(int index1, int index2) {
+        return DistanceKernel.distance(x[index1], y[index1], x[index2], y[index2]);
+    }
+
+    private void setName(int index, String name) {
+        if (name.equals("node " + ids[index])) {
+            if (names != null) {
+                names[index] = null;
+            }
+            return;
+        }
+        if (names == null) {
+            names = new String[ids.length];
+        }
+        names[index] = name;
+    }
+
+    /**
+     * Starts mapping ids to indexes, for the first count nodes, whose ids are their indexes.
+     */
+    private void mapIds(int count) {
+        indexes = new IntIntHashMap(Math.max(numNodes, count), -1);
+        for (int i = 0; i < count; i++) {
+            indexes.put(i, i);
+        }
+    }
+
+    /**
+     * Drops the names and weights that only repeat the defaults, after a copy of a NetGraph.
+     */
+    private void dropDefaults() {
+        boolean named = false;
+        for (int i = 0; i < numNodes && !named; i++) {
+            named = names[i] != null;
+        }
+        if (!named) {
+            names = null;
+        }
+        boolean weighted = false;
+        for (int i = 0; i < numNodes && !weighted; i++) {
+            for (int k = 0; k < degree[i] && !weighted; k++) {
+                weighted = weights[start[i] + k] != distance(i, targets[start[i] + k]);
+            }
+        }
+        if (!weighted) {
+            weights = null;
+        }
+    }
+
+    /**
+     * Makes the weights explicit, from the distances they stand for.
+     */
+    private void storeWeights() {
+        weights = new double[targets.length];
+        for (int i = 0; i < numNodes; i++) {
+            for (int k = 0; k < degree[i]; k++) {
+                weights[start[i] + k] = distance(i, targets[start[i] + k]);
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the entry of neighbor in the slice of index, or -1 if they are not linked.
+     */
+    private int find(int index, int neighbor) {
+        int end = start[index] + degree[index];
+        for (int entry = start[index]; entry < end; entry++) {
+            if (targets[entry] == neighbor) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private void append(int index, int neighbor, double weight) {
+        if (degree[index] == capacity[index]) {
+            grow(index);
+        }
+        int entry = start[index] + degree[index]++;
+        targets[entry] = neighbor;
+        if (weights != null) {
+            weights[entry] = weight;
+        }
+        numEntries++;
+    }
+
+    /**
+     * Removes the entry of neighbor from the slice of index, keeping the order of the others.
+     */
+    private void remove(int index, int neighbor) {
+        int entry = find(index, neighbor);
+        if (entry == -1) {
+            return;
+        }
+        int end = start[index] + --degree[index];
+        System.arraycopy(targets, entry + 1, targets, entry, end - entry);
+        if (weights != null) {
+            System.arraycopy(weights, entry + 1, weights, entry, end - entry);
+        }
+        numEntries--;
+    }
+
+    /**
+     * Moves the slice of a full node to the end of the targets array with twice the room.
+     */
+    private void grow(int index) {
+        int room = Math.max(4, 2 * capacity[index]);
+        if (start[index] + capacity[index] == used && start[index] + room <= targets.length) {
+            //the slice is the last one, so it grows in place
+            used = start[index] + room;
+            capacity[index] = room;
+            return;
+        }
+        if (used + room > targets.length) {
+            if (abandoned > used - abandoned) {
+                compact();
+            }
+            if (used + room > targets.length) {
+                int length = (int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) used + room, targets.length + (targets.length >> 1)));
+                if (length < used + room) {
+                    throw new IllegalStateException("too many links");
+                }
+                targets = Arrays.copyOf(targets, length);
+                if (weights != null) {
+                    weights = Arrays.copyOf(weights, length);
+                }
+            }
+        }
+        System.arraycopy(targets, start[index], targets, used, degree[index]);
+        if (weights != null) {
+            System.arraycopy(weights, start[index], weights, used, degree[index]);
+        }
+        abandoned += capacity[index];
+        start[index] = used;
+        capacity[index] = room;
+        used += room;
+    }
+
+    /**
+     * Packs the live slices at the start of the targets array in index order, each keeping its room.
+     */
+    private void compact() {
+        int[] packedTargets = new int[targets.length];
+        double[] packedWeights = weights == null ? null : new double[weights.length];
+        int position = 0;
+        for (int i = 0; i < numNodes; i++) {
+            System.arraycopy(targets, start[i], packedTargets, position, degree[i]);
+            if (weights != null) {
+                System.arraycopy(weights, start[i], packedWeights, position, degree[i]);
+            }
+            start[i] = position;
+            position += capacity[i];
+        }
+        targets = packedTargets;
+        weights = packedWeights;
+        used = position;
+        abandoned = 0;
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * This class lets one NetGraph be changed and queried from many threads at once.
+ * Writers apply batches of changes one batch at a time under a lock. At the end of every batch a new immutable
+ * CsrGraph snapshot is published through a volatile field (copy-on-write), so readers never lock, never see
+ * a half-applied batch and are never disturbed by later changes. A snapshot costs O(V + E) to build,
+ * so changes should be grouped into batches rather than applied one by one.
+ * Once wrapped, the NetGraph must only be changed through update.
+ */
+public class ConcurrentNetGraph {
+
+    private final NetGraph graph;
+    private final ReentrantLock writeLock;
+    private volatile CsrGraph snapshot;
+
+    /**
+     * Constructs a new ConcurrentNetGraph around the given graph and publishes its first snapshot.
+     *
+     * @param graph the graph to be shared.
+     */
+    public ConcurrentNetGraph(NetGraph graph) {
+        this.graph = graph;
+        this.writeLock = new ReentrantLock();
+        this.snapshot = graph.freeze();
+    }
+
+    /**
+     * Returns the latest published snapshot without locking.
+     *
+     * @return the snapshot of the graph after the last completed batch.
+     */
+    public CsrGraph snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Applies a batch of changes to the graph and publishes the resulting snapshot. Batches from different
+     * threads run one after the other. If the batch throws, the changes it made before throwing are still published.
+     *
+     * @param batch the changes to be applied to the graph.
+     * @return the snapshot published after the batch.
+     */
+    public CsrGraph update(Consumer<NetGraph> batch) {
+        CsrGraph published;
+        writeLock.lock();
+        try {
+            batch.accept(graph);
+        } finally {
+            //the field may already hold the snapshot of a later batch once the lock is released
+            published = graph.freeze();
+            snapshot = published;
+            writeLock.unlock();
+        }
+        return published;
+    }
+
+    /**
+     * Computes the shortest path between two nodes on the latest snapshot, without locking.
+     *
+     * @param node1 the starting node of the shortest path.
+     * @param node2 the destination node of the shortest path.
+     * @param mode  the search algorithm to use.
+     * @return an ArrayList of NetNode objects representing the shortest path from node1 to node2, or an empty
+     * ArrayList if node2 cannot be reached from node1.
+     * @throws IllegalArgumentException if either node is not in the latest snapshot or is null.
+     */
+    public ArrayList<NetNode> getShortestPath(NetNode node1, NetNode node2, RoutingMode mode) {
+        CsrGraph graph = snapshot;
+        int source = graph.indexOf(node1);
+        int target = graph.indexOf(node2);
+        if (source == -1 || target == -1) {
+            throw new IllegalArgumentException();
+        }
+        return Network.shortestPath(graph, source, target, mode);
+    }
+}
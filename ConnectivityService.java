@@ -0,0 +1,219 @@
+import java.util.*;
+
+/**
+ * This class answers connectivity questions about a NetGraph: which connected component a node is in,
+ * whether two nodes can reach each other, and whether the network is partitioned.
+ * It listens to the graph and keeps its components in a UnionFind. Added nodes and links are merged in as they
+ * happen; removed links and deleted nodes can split a component, which union-find cannot undo, so they only mark
+ * the components as stale and they are recomputed from a snapshot of the graph at the next query.
+ * A burst of removals therefore costs one O(V + E) recomputation, and every other query takes almost constant time.
+ */
+public class ConnectivityService implements NetGraphListener {
+
+    private final NetGraph graph;
+
+    /**
+     * The components, with one element per node, and the element of every node by node id.
+     */
+    private UnionFind components;
+    private IntIntHashMap elements;
+
+    /**
+     * The number of components of every size, kept up to date by merge.
+     */
+    private TreeMap<Integer, Integer> sizeHistogram;
+
+    /**
+     * Whether a link or node was removed since the components were last computed.
+     */
+    private boolean stale;
+    private long numRecomputations;
+
+    /**
+     * Constructs a new ConnectivityService for the given graph and starts listening to it.
+     *
+     * @param graph the graph.
+     */
+    public ConnectivityService(NetGraph graph) {
+        this.graph = graph;
+        recompute();
+        graph.addListener(this);
+    }
+
+    /**
+     * Stops listening to the graph. The service must not be used afterwards.
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    @Override
+    public void nodeInserted(NetNode node) {
+        if (!stale) {
+            elements.put(node.getId(), components.add());
+            sizeHistogram.merge(1, 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void nodeDeleted(NetNode node) {
+        stale = true;
+    }
+
+    @Override
+    public void linkAdded(NetNode node1, NetNode node2, double weight) {
+        if (!stale) {
+            merge(elements.get(node1.getId()), elements.get(node2.getId()));
+        }
+    }
+
+    @Override
+    public void linkRemoved(NetNode node1, NetNode node2) {
+        stale = true;
+    }
+
+    /**
+     * Returns an identifier of the connected component of a node. Two nodes are in the same component exactly
+     * when they get the same identifier; identifiers are only meaningful until the graph changes.
+     *
+     * @param node the node.
+     * @return the identifier of the component of the node.
+     * @throws IllegalArgumentException if the node does not exist in the graph or is null.
+     */
+    public int getComponent(NetNode node) {
+        return components().find(elementOf(node));
+    }
+
+    /**
+     * Returns whether there is a path between two nodes.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     * @return true if the nodes are in the same connected component.
+     * @throws IllegalArgumentException if either node does not exist in the graph or is null.
+     */
+    public boolean isConnected(NetNode node1, NetNode node2) {
+        return getComponent(node1) == getComponent(node2);
+    }
+
+    /**
+     * Returns the number of nodes in the connected component of a node.
+     *
+     * @param node the node.
+     * @return the size of the component of the node.
+     * @throws IllegalArgumentException if the node does not exist in the graph or is null.
+     */
+    public int getComponentSize(NetNode node) {
+        return components().setSize(elementOf(node));
+    }
+
+    /**
+     * Returns the number of connected components of the graph.
+     *
+     * @return the number of components.
+     */
+    public int getNumComponents() {
+        return components().getNumSets();
+    }
+
+    /**
+     * Returns whether the network is partitioned, that is whether it has more than one connected component.
+     *
+     * @return true if some nodes cannot reach each other.
+     */
+    public boolean isPartitioned() {
+        return getNumComponents() > 1;
+    }
+
+    /**
+     * Returns the number of nodes in the largest connected component.
+     *
+     * @return the size of the largest component, or 0 if the graph is empty.
+     */
+    public int getLargestComponentSize() {
+        components();
+        return sizeHistogram.isEmpty() ? 0 : sizeHistogram.lastKey();
+    }
+
+    /**
+     * Returns how many connected components there are of every size.
+     *
+     * @return an unmodifiable view from component size to the number of components of that size.
+     */
+    public SortedMap<Integer, Integer> getSizeHistogram() {
+        components();
+        return Collections.unmodifiableSortedMap(sizeHistogram);
+    }
+
+    /**
+     * Returns how many times the components were recomputed from scratch after removals.
+     *
+     * @return the number of recomputations.
+     */
+    public long getNumRecomputations() {
+        return numRecomputations;
+    }
+
+    /**
+     * Returns the components, recomputing them first if they are stale.
+     */
+    private UnionFind components() {
+        if (stale) {
+            recompute();
+        }
+        return components;
+    }
+
+    private int elementOf(NetNode node) {
+        components();
+        graph.getNodeIndex(node);
+        return elements.get(node.getId());
+    }
+
+    /**
+     * Recomputes the components from a snapshot of the graph. Element i is node i of the snapshot.
+     */
+    private void recompute() {
+        CsrGraph snapshot = graph.freeze();
+        int numNodes = snapshot.getNumNodes();
+        int[] offsets = snapshot.getOffsets();
+        int[] targets = snapshot.getTargets();
+
+        components = new UnionFind(numNodes);
+        elements = new IntIntHashMap(numNodes, -1);
+        for (int node = 0; node < numNodes; node++) {
+            elements.put(snapshot.getNode(node).getId(), node);
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                components.union(node, targets[k]);
+            }
+        }
+
+        sizeHistogram = new TreeMap<>();
+        for (int node = 0; node < numNodes; node++) {
+            if (components.find(node) == node) {
+                sizeHistogram.merge(components.setSize(node), 1, Integer::sum);
+            }
+        }
+        stale = false;
+        numRecomputations++;
+    }
+
+    /**
+     * Merges the components of two elements and updates the size histogram.
+     */
+    private void merge(int element1, int element2) {
+        int size1 = components.setSize(element1);
+        int size2 = components.setSize(element2);
+        if (components.union(element1, element2)) {
+            decrement(size1);
+            decrement(size2);
+            sizeHistogram.merge(size1 + size2, 1, Integer::sum);
+        }
+    }
+
+    private void decrement(int size) {
+        if (sizeHistogram.merge(size, -1, Integer::sum) == 0) {
+            sizeHistogram.remove(size);
+        }
+    }
+}
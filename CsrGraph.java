@@ -0,0 +1,254 @@
+/**
+ * This class represents an immutable snapshot of a NetGraph in compressed sparse row form.
+ * Node i of the snapshot is the node at index i of the nodesList of the graph when the snapshot was taken.
+ * The neighbors of node i are targets[offsets[i]] ... targets[offsets[i + 1] - 1] and the weights of the links
+ * to them are stored at the same positions in weights, so a whole neighbor list is read from two primitive arrays.
+ * A snapshot of a CompactGraph holds no NetNode objects: getNode makes a view of the node from its id, name and
+ * coordinates on every call, so views of the same node are equal by id but not identical.
+ */
+public class CsrGraph {
+
+    /**
+     * The nodes of the snapshot, or null if they are made on demand from ids and names.
+     */
+    private final NetNode[] nodes;
+    private final int[] ids;
+
+    /**
+     * The names of the nodes made on demand. A null array or entry stands for the name "node " + id.
+     */
+    private final String[] names;
+    private final double[] x;
+    private final double[] y;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     * Maps the id of every node to its index in the snapshot, or null if the id of every node is its index.
+     */
+    private final IntIntHashMap indexes;
+
+    /**
+     * Constructs a new CsrGraph from its arrays. The arrays are used as they are, not copied.
+     *
+     * @param nodes   the nodes of the graph, indexed like the snapshot.
+     * @param x       the x coordinates of the nodes.
+     * @param y       the y coordinates of the nodes.
+     * @param offsets the start of the neighbor list of every node in targets, plus the length of targets at the end.
+     * @param targets the indexes of the neighbors of every node.
+     * @param weights the weights of the links to the neighbors in targets.
+     */
+    CsrGraph(NetNode[] nodes, double[] x, double[] y, int[] offsets, int[] targets, double[] weights) {
+        this.nodes = nodes;
+        this.ids = null;
+        this.names = null;
+        this.x = x;
+        this.y = y;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.indexes = new IntIntHashMap(nodes.length, -1);
+        for (int i = 0; i < nodes.length; i++) {
+            indexes.put(nodes[i].getId(), i);
+        }
+    }
+
+    /**
+     * Constructs a new CsrGraph whose nodes are made on demand. The arrays are used as they are, not copied.
+     *
+     * @param ids     the ids of the nodes, indexed like the snapshot.
+     * @param names   the names of the nodes, or null; a null name stands for "node " + id.
+     * @param x       the x coordinates of the nodes.
+     * @param y       the y coordinates of the nodes.
+     * @param offsets the start of the neighbor list of every node in targets, plus the length of targets at the end.
+     * @param targets the indexes of the neighbors of every node.
+     * @param weights the weights of the links to the neighbors in targets.
+     */
+    CsrGraph(int[] ids, String[] names, double[] x, double[] y, int[] offsets, int[] targets, double[] weights) {
+        this.nodes = null;
+        this.ids = ids;
+        this.names = names;
+        this.x = x;
+        this.y = y;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        IntIntHashMap indexes = null;
+        for (int i = 0; i < ids.length; i++) {
+            if (indexes == null && ids[i] != i) {
+                //the ids stop matching the indexes here, so every id from here on has to be mapped
+                indexes = new IntIntHashMap(ids.length, -1);
+                for (int k = 0; k < i; k++) {
+                    indexes.put(k, k);
+                }
+            }
+            if (indexes != null) {
+                indexes.put(ids[i], i);
+            }
+        }
+        this.indexes = indexes;
+    }
+
+    /**
+     * Builds a snapshot of the given list of nodes. Neighbors keep the order of the adjacency lists.
+     *
+     * @param graph the graph to be copied.
+     * @return the snapshot of the graph.
+     */
+    static CsrGraph of(NetGraph graph) {
+        int numNodes = graph.getNumNodes();
+        NetNode[] nodes = new NetNode[numNodes];
+        double[] x = new double[numNodes];
+        double[] y = new double[numNodes];
+        int[] offsets = new int[numNodes + 1];
+        for (int i = 0; i < numNodes; i++) {
+            AdjacencyListHead head = graph.getNodesList().get(i);
+            nodes[i] = head.getNetNode();
+            x[i] = nodes[i].getX_coordinate();
+            y[i] = nodes[i].getY_coordinate();
+            offsets[i + 1] = offsets[i] + head.getAdjacencyList().size();
+        }
+
+        int[] targets = new int[offsets[numNodes]];
+        double[] weights = new double[offsets[numNodes]];
+        for (int i = 0; i < numNodes; i++) {
+            int k = offsets[i];
+            for (Adjacent adjacent : graph.getNodesList().get(i).getAdjacencyList()) {
+                targets[k] = graph.getNodeIndex(adjacent.getNeighbor());
+                weights[k] = adjacent.getWeight();
+                k++;
+            }
+        }
+        return new CsrGraph(nodes, x, y, offsets, targets, weights);
+    }
+
+    /**
+     * Returns the number of nodes in the snapshot.
+     *
+     * @return the number of nodes.
+     */
+    public int getNumNodes() {
+        return x.length;
+    }
+
+    /**
+     * Returns the number of links in the snapshot. Every undirected link is stored once in each direction.
+     *
+     * @return the number of links.
+     */
+    public int getNumLinks() {
+        return targets.length / 2;
+    }
+
+    /**
+     * Returns the node at the given index of the snapshot.
+     *
+     * @param index the index of the node.
+     * @return the NetNode at that index.
+     */
+    public NetNode getNode(int index) {
+        if (nodes != null) {
+            return nodes[index];
+        }
+        String name = names == null ? null : names[index];
+        return new NetNode(ids[index], name == null ? "node " + ids[index] : name, x[index], y[index]);
+    }
+
+    /**
+     * Returns the id of the node at the given index of the snapshot.
+     *
+     * @param index the index of the node.
+     * @return the id of the node.
+     */
+    public int getId(int index) {
+        return nodes != null ? nodes[index].getId() : ids[index];
+    }
+
+    /**
+     * Returns the index of the node with the given id in the snapshot.
+     *
+     * @param id the id of the node.
+     * @return the index of the node, or -1 if no node had that id when the snapshot was taken.
+     */
+    public int indexOfId(int id) {
+        if (indexes != null) {
+            return indexes.get(id);
+        }
+        return id >= 0 && id < x.length ? id : -1;
+    }
+
+    /**
+     * Returns the index of a node in the snapshot. Unlike NetGraph.getNodeIndex, this stays valid
+     * while the graph changes after the snapshot was taken.
+     *
+     * @param node the node.
+     * @return the index of the node in the snapshot, or -1 if the node was not in the graph when the snapshot was taken.
+     */
+    public int indexOf(NetNode node) {
+        if (node == null) {
+            return -1;
+        }
+        int index = indexOfId(node.getId());
+        if (nodes == null) {
+            //views are not kept, so a node of a snapshot without nodes is recognised by its id
+            return index;
+        }
+        return index != -1 && nodes[index] == node ? index : -1;
+    }
+
+    /**
+     * Returns the number of neighbors of the node at the given index.
+     *
+     * @param index the index of the node.
+     * @return the degree of the node.
+     */
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns the x coordinates of the nodes when the snapshot was taken. The array must not be modified.
+     *
+     * @return the x coordinate of every node.
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y coordinates of the nodes when the snapshot was taken. The array must not be modified.
+     *
+     * @return the y coordinate of every node.
+     */
+    public double[] getY() {
+        return y;
+    }
+
+    /**
+     * Returns the offsets array. It is shared with the snapshot and must not be modified.
+     *
+     * @return the start of the neighbor list of every node in targets, followed by the length of targets.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the targets array. It is shared with the snapshot and must not be modified.
+     *
+     * @return the indexes of the neighbors of every node.
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the weights array. It is shared with the snapshot and must not be modified.
+     *
+     * @return the weights of the links to the neighbors in targets.
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * The ways a TopologyGenerator can spread nodes over a square area.
+ */
+public enum Deployment {
+
+    /**
+     * Every node is placed uniformly at random over the whole area, as Network does.
+     */
+    UNIFORM,
+
+    /**
+     * The nodes gather around randomly placed centers, like devices in buildings or at events. Every node picks
+     * a center at random and lies at a normally distributed offset from it.
+     */
+    CLUSTERED,
+
+    /**
+     * The nodes sit on a square grid covering the area, like planned sensor fields, each moved by a random
+     * fraction of the grid spacing.
+     */
+    JITTERED_GRID,
+
+    /**
+     * The nodes are spread uniformly over a band across the middle of the area, like vehicles on a road
+     * or sensors along a tunnel.
+     */
+    CORRIDOR
+}
@@ -0,0 +1,82 @@
+/**
+ * This class computes the distances between a node and a batch of other nodes. The coordinates of the batch are
+ * first gathered into contiguous arrays, and the distances are then worked out in one straight loop without
+ * branches or calls, a shape the JIT compiles to SIMD instructions, several distances per instruction.
+ * All distances of the emulator are computed the same way, so a weight stored as a distance compares equal
+ * to a distance computed again later.
+ */
+public class DistanceKernel {
+
+    private DistanceKernel() {
+    }
+
+    /**
+     * Returns the Euclidean distance between two points.
+     *
+     * @param x1 the x coordinate of the first point.
+     * @param y1 the y coordinate of the first point.
+     * @param x2 the x coordinate of the second point.
+     * @param y2 the y coordinate of the second point.
+     * @return the distance between the points.
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Copies the coordinates of a batch of points into contiguous arrays.
+     *
+     * @param x      the x coordinates of all points.
+     * @param y      the y coordinates of all points.
+     * @param points the indexes of the points of the batch.
+     * @param count  the number of points in the batch.
+     * @param outX   receives the x coordinates of the batch, at least count long.
+     * @param outY   receives the y coordinates of the batch, at least count long.
+     */
+    public static void gather(double[] x, double[] y, int[] points, int count, double[] outX, double[] outY) {
+        for (int k = 0; k < count; k++) {
+            outX[k] = x[points[k]];
+            outY[k] = y[points[k]];
+        }
+    }
+
+    /**
+     * Computes the distances from one point to a batch of points.
+     *
+     * @param x     the x coordinate of the point.
+     * @param y     the y coordinate of the point.
+     * @param batchX the x coordinates of the batch.
+     * @param batchY the y coordinates of the batch.
+     * @param count the number of points in the batch.
+     * @param out   receives the distance to every point of the batch, at least count long.
+     */
+    public static void distances(double x, double y, double[] batchX, double[] batchY, int count, double[] out) {
+        for (int k = 0; k < count; k++) {
+            double dx = x - batchX[k];
+            double dy = y - batchY[k];
+            out[k] = Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    /**
+     * Keeps the points of a batch within range: they are moved, in order, to the front of points and distances.
+     *
+     * @param points    the indexes of the points of the batch.
+     * @param distances the distances to the points.
+     * @param count     the number of points in the batch.
+     * @param range     the largest distance kept.
+     * @return the number of points kept.
+     */
+    public static int withinRange(int[] points, double[] distances, int count, double range) {
+        int kept = 0;
+        for (int k = 0; k < count; k++) {
+            double distance = distances[k];
+            points[kept] = points[k];
+            distances[kept] = distance;
+            kept += distance <= range ? 1 : 0;
+        }
+        return kept;
+    }
+}
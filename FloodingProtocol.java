@@ -0,0 +1,99 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class implements simple flooding: every node rebroadcasts each flood the first time it hears it,
+ * until the packet has used up its time to live. A node remembers the floods it has seen with a sliding window
+ * over their sequence numbers, like the anti-replay window of IPsec: the highest sequence number seen and a
+ * 64-bit mask of the ones before it. Floods more than 64 behind the newest one a node has seen are taken as seen,
+ * so up to 64 floods can overlap with no memory per packet.
+ */
+public class FloodingProtocol implements ProtocolHandler {
+
+    private static final int WINDOW = 64;
+
+    private final int[] highest;
+    private final long[] window;
+    private final AtomicInteger nextSequence = new AtomicInteger();
+
+    /**
+     * Constructs a new FloodingProtocol for the nodes of the given simulator and installs it on every node.
+     *
+     * @param simulator the simulator.
+     */
+    public FloodingProtocol(Simulator simulator) {
+        this(simulator.getGraph());
+        simulator.setHandler(this);
+    }
+
+    /**
+     * Constructs a new FloodingProtocol for the nodes of the given parallel simulator and installs it on every node.
+     * Floods must be started through the shard of their source, ParallelSimulator.getShard.
+     *
+     * @param simulator the simulator.
+     */
+    public FloodingProtocol(ParallelSimulator simulator) {
+        this(simulator.getGraph());
+        simulator.setHandler(this);
+    }
+
+    private FloodingProtocol(CsrGraph graph) {
+        this.highest = new int[graph.getNumNodes()];
+        this.window = new long[graph.getNumNodes()];
+        Arrays.fill(highest, -1);
+    }
+
+    /**
+     * Starts a flood from a node at the current simulation time.
+     *
+     * @param simulator the simulator.
+     * @param source    the index of the node starting the flood.
+     * @param size      the size of the packet in bytes.
+     * @param ttl       the maximum number of hops of the flood.
+     * @return the packet of the flood.
+     */
+    public Packet flood(Simulator simulator, int source, int size, int ttl) {
+        Packet packet = simulator.newPacket(source, -1, size, ttl, nextSequence.getAndIncrement());
+        markSeen(source, packet.getPayload());
+        if (ttl > 0) {
+            simulator.broadcast(source, packet);
+        }
+        return packet;
+    }
+
+    @Override
+    public void onPacket(Simulator simulator, int node, int from, Packet packet, int hops) {
+        if (!markSeen(node, packet.getPayload())) {
+            return;
+        }
+        if (packet.getDestination() == -1 || packet.getDestination() == node) {
+            simulator.deliver(node, packet, hops);
+        }
+        if (hops < packet.getTtl() && packet.getDestination() != node) {
+            simulator.broadcast(node, packet);
+        }
+    }
+
+    /**
+     * Records that a node has seen a flood.
+     *
+     * @return true if the node had not seen it before.
+     */
+    private boolean markSeen(int node, int sequence) {
+        int shift = sequence - highest[node];
+        if (shift > 0) {
+            window[node] = shift >= WINDOW ? 1 : (window[node] << shift) | 1;
+            highest[node] = sequence;
+            return true;
+        }
+        if (-shift >= WINDOW) {
+            return false;
+        }
+        long bit = 1L << -shift;
+        if ((window[node] & bit) != 0) {
+            return false;
+        }
+        window[node] |= bit;
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.*;
+
+/**
+ * A batch of link insertions and removals between nodes given by id, applied to a NetGraph at once by
+ * NetGraph.apply. The changes are kept in primitive arrays in the order they were recorded, so recording one
+ * costs no allocation; the batch can be applied to several graphs and reused after clear.
+ */
+public class GraphBatch {
+
+    private int size;
+    private int[] ids1;
+    private int[] ids2;
+    private double[] weights;
+    private boolean[] removals;
+
+    /**
+     * Constructs a new empty GraphBatch.
+     */
+    public GraphBatch() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new empty GraphBatch with room for the given number of changes before it grows.
+     *
+     * @param expectedSize the expected number of changes.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     */
+    public GraphBatch(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.ids1 = new int[expectedSize];
+        this.ids2 = new int[expectedSize];
+        this.weights = new double[expectedSize];
+        this.removals = new boolean[expectedSize];
+    }
+
+    /**
+     * Records a link to be added between two nodes. As with NetGraph.addLink, nothing changes if the nodes
+     * are already linked when the batch gets to it.
+     *
+     * @param id1    the id of the first node.
+     * @param id2    the id of the second node.
+     * @param weight the weight of the link.
+     */
+    public void addLink(int id1, int id2, double weight) {
+        record(id1, id2, weight, false);
+    }
+
+    /**
+     * Records the link between two nodes to be removed, if there is one when the batch gets to it.
+     *
+     * @param id1 the id of the first node.
+     * @param id2 the id of the second node.
+     */
+    public void removeLink(int id1, int id2) {
+        record(id1, id2, 0, true);
+    }
+
+    /**
+     * Records links to be added: the k-th link joins ids1[k] and ids2[k] with weight weights[k].
+     *
+     * @param ids1    the ids of the first nodes.
+     * @param ids2    the ids of the second nodes.
+     * @param weights the weights of the links.
+     * @throws IllegalArgumentException if the arrays have different lengths.
+     */
+    public void addLinks(int[] ids1, int[] ids2, double[] weights) {
+        if (ids1.length != ids2.length || ids1.length != weights.length) {
+            throw new IllegalArgumentException();
+        }
+        ensureCapacity(size + ids1.length);
+        for (int k = 0; k < ids1.length; k++) {
+            record(ids1[k], ids2[k], weights[k], false);
+        }
+    }
+
+    /**
+     * Records links to be removed: the k-th link joins ids1[k] and ids2[k].
+     *
+     * @param ids1 the ids of the first nodes.
+     * @param ids2 the ids of the second nodes.
+     * @throws IllegalArgumentException if the arrays have different lengths.
+     */
+    public void removeLinks(int[] ids1, int[] ids2) {
+        if (ids1.length != ids2.length) {
+            throw new IllegalArgumentException();
+        }
+        ensureCapacity(size + ids1.length);
+        for (int k = 0; k < ids1.length; k++) {
+            record(ids1[k], ids2[k], 0, true);
+        }
+    }
+
+    /**
+     * Returns the number of changes recorded.
+     *
+     * @return the number of changes in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every change from the batch, keeping its arrays for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the id of the first node of a change.
+     */
+    int getId1(int change) {
+        return ids1[change];
+    }
+
+    /**
+     * Returns the id of the second node of a change.
+     */
+    int getId2(int change) {
+        return ids2[change];
+    }
+
+    /**
+     * Returns the weight of an added link.
+     */
+    double getWeight(int change) {
+        return weights[change];
+    }
+
+    /**
+     * Returns whether a change removes its link.
+     */
+    boolean isRemoval(int change) {
+        return removals[change];
+    }
+
+    private void record(int id1, int id2, double weight, boolean removal) {
+        if (size == ids1.length) {
+            ensureCapacity(Math.max(16, size * 2));
+        }
+        ids1[size] = id1;
+        ids2[size] = id2;
+        weights[size] = weight;
+        removals[size] = removal;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids1.length) {
+            ids1 = Arrays.copyOf(ids1, capacity);
+            ids2 = Arrays.copyOf(ids2, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            removals = Arrays.copyOf(removals, capacity);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import jdk.jfr.*;
+
+/**
+ * The JFR event of a change of a NetGraph.
+ */
+@Name("netgraph.GraphChange")
+@Label("Graph Change")
+@Category("NetGraph")
+@Description("A link added to or removed from a NetGraph")
+public class GraphChangeEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("First Node")
+    int node1;
+
+    @Label("Second Node")
+    int node2;
+}
@@ -0,0 +1,200 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes a NetGraph to a Writer or OutputStream in several text formats. Nodes and neighbors are
+ * written one at a time as the adjacency lists are walked, so memory use does not grow with the graph.
+ * The Writer is flushed but not closed. OutputStreams are written as UTF-8 through a buffer.
+ */
+public class GraphExporter {
+
+    private GraphExporter() {
+    }
+
+    /**
+     * Writes the graph in the adjacency list format of NetGraph.printGraph, one node per line:
+     * <pre>
+     *   A: {(B,3.0), (D,2.0)}
+     * </pre>
+     *
+     * @param graph  the graph to be written.
+     * @param writer the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeAdjacencyList(NetGraph graph, Writer writer) throws IOException {
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            writer.write(head.getNetNode().getName());
+            writer.write(": {");
+            boolean first = true;
+            for (Adjacent adjacent : head.getAdjacencyList()) {
+                if (!first) {
+                    writer.write(", ");
+                }
+                writer.write('(');
+                writer.write(adjacent.getNeighbor().getName());
+                writer.write(',');
+                writer.write(Double.toString(adjacent.getWeight()));
+                writer.write(')');
+                first = false;
+            }
+            writer.write("}\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes every link of the graph once, links of a node to itself included, as a CSV line
+     * "source,target,weight" of node ids, after a header line.
+     *
+     * @param graph  the graph to be written.
+     * @param writer the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeEdgeList(NetGraph graph, Writer writer) throws IOException {
+        writer.write("source,target,weight\n");
+        forEachLink(graph, (node, adjacent) -> {
+            writer.write(Integer.toString(node.getId()));
+            writer.write(',');
+            writer.write(Integer.toString(adjacent.getNeighbor().getId()));
+            writer.write(',');
+            writer.write(Double.toString(adjacent.getWeight()));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    /**
+     * Writes the graph as an undirected Graphviz DOT graph. Nodes are named by id, labeled with their name and
+     * pinned at their coordinates; links carry their weight.
+     *
+     * @param graph  the graph to be written.
+     * @param writer the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeDot(NetGraph graph, Writer writer) throws IOException {
+        writer.write("graph network {\n");
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            NetNode node = head.getNetNode();
+            writer.write("  n" + node.getId() + " [label=\"" + escapeDot(node.getName()) + "\", pos=\""
+                    + node.getX_coordinate() + "," + node.getY_coordinate() + "!\"];\n");
+        }
+        forEachLink(graph, (node, adjacent) -> writer.write("  n" + node.getId() + " -- n"
+                + adjacent.getNeighbor().getId() + " [weight=" + adjacent.getWeight() + "];\n"));
+        writer.write("}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the graph as an undirected GraphML document with name, x and y attributes on nodes and a weight
+     * attribute on links.
+     *
+     * @param graph  the graph to be written.
+     * @param writer the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeGraphML(NetGraph graph, Writer writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        writer.write("  <key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>\n");
+        writer.write("  <key id=\"x\" for=\"node\" attr.name=\"x\" attr.type=\"double\"/>\n");
+        writer.write("  <key id=\"y\" for=\"node\" attr.name=\"y\" attr.type=\"double\"/>\n");
+        writer.write("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"double\"/>\n");
+        writer.write("  <graph id=\"network\" edgedefault=\"undirected\">\n");
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            NetNode node = head.getNetNode();
+            writer.write("    <node id=\"n" + node.getId() + "\">"
+                    + "<data key=\"name\">" + escapeXml(node.getName()) + "</data>"
+                    + "<data key=\"x\">" + node.getX_coordinate() + "</data>"
+                    + "<data key=\"y\">" + node.getY_coordinate() + "</data></node>\n");
+        }
+        forEachLink(graph, (node, adjacent) -> writer.write("    <edge source=\"n" + node.getId() + "\" target=\"n"
+                + adjacent.getNeighbor().getId() + "\"><data key=\"weight\">" + adjacent.getWeight() + "</data></edge>\n"));
+        writer.write("  </graph>\n</graphml>\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the graph in the adjacency list format of NetGraph.printGraph to a stream.
+     *
+     * @param graph the graph to be written.
+     * @param out   the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeAdjacencyList(NetGraph graph, OutputStream out) throws IOException {
+        writeAdjacencyList(graph, toWriter(out));
+    }
+
+    /**
+     * Writes every link of the graph once as CSV to a stream.
+     *
+     * @param graph the graph to be written.
+     * @param out   the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeEdgeList(NetGraph graph, OutputStream out) throws IOException {
+        writeEdgeList(graph, toWriter(out));
+    }
+
+    /**
+     * Writes the graph as Graphviz DOT to a stream.
+     *
+     * @param graph the graph to be written.
+     * @param out   the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeDot(NetGraph graph, OutputStream out) throws IOException {
+        writeDot(graph, toWriter(out));
+    }
+
+    /**
+     * Writes the graph as GraphML to a stream.
+     *
+     * @param graph the graph to be written.
+     * @param out   the destination.
+     * @throws IOException if writing fails.
+     */
+    public static void writeGraphML(NetGraph graph, OutputStream out) throws IOException {
+        writeGraphML(graph, toWriter(out));
+    }
+
+    /**
+     * Passes every link of the graph once to link, from the node of lower index. A link of a node to itself
+     * appears twice in its list and is passed at the first entry.
+     */
+    private static void forEachLink(NetGraph graph, LinkWriter link) throws IOException {
+        int index = 0;
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            NetNode node = head.getNetNode();
+            boolean loop = false;
+            for (Adjacent adjacent : head.getAdjacencyList()) {
+                int neighbor = graph.getNodeIndex(adjacent.getNeighbor());
+                if (neighbor == index) {
+                    loop = !loop;
+                }
+                if (neighbor > index || neighbor == index && loop) {
+                    link.write(node, adjacent);
+                }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Writes one link, given by its first node and the entry of the second one in the list of the first.
+     */
+    private interface LinkWriter {
+        void write(NetNode node, Adjacent adjacent) throws IOException;
+    }
+
+    private static Writer toWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static String escapeDot(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeXml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,281 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This class saves a NetGraph to a compact binary file and loads it back through memory-mapped buffers,
+ * so a large topology can be replayed without generating it again.
+ *
+ * The file is little-endian and laid out as follows, where n is the number of nodes and m the number of
+ * adjacency entries (twice the number of links):
+ * <pre>
+ *   int    magic, "NETG"
+ *   int    format version, currently 1
+ *   int    n
+ *   int    m
+ *   long   total length of the UTF-8 names in bytes
+ *   int    ids[n]
+ *   double x[n]
+ *   double y[n]
+ *   int    offsets[n + 1]   neighbor list of node i is at offsets[i] ... offsets[i + 1] - 1
+ *   int    targets[m]       node indexes of the neighbors
+ *   double weights[m]
+ *   long   nameOffsets[n + 1]
+ *   byte   names[]
+ * </pre>
+ */
+public class GraphFile {
+
+    private static final int MAGIC = 0x4E455447;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    /**
+     * Files are written through a buffer of this size and mapped in chunks of at most this many bytes per section.
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long MAP_BYTES = 1 << 30;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes the graph to a file, replacing it if it exists. Memory use is bounded by a fixed buffer
+     * plus the snapshot of the graph.
+     *
+     * @param graph the graph to be saved.
+     * @param path  the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void save(NetGraph graph, Path path) throws IOException {
+        CsrGraph snapshot = graph.freeze();
+        int numNodes = snapshot.getNumNodes();
+        int[] offsets = snapshot.getOffsets();
+
+        byte[][] names = new byte[numNodes][];
+        long[] nameOffsets = new long[numNodes + 1];
+        int[] ids = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            ids[i] = snapshot.getNode(i).getId();
+            names[i] = snapshot.getNode(i).getName().getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i + 1] = nameOffsets[i] + names[i].length;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(numNodes).putInt(offsets[numNodes]).putLong(nameOffsets[numNodes]);
+            writeInts(channel, buffer, ids, ids.length);
+            writeDoubles(channel, buffer, snapshot.getX(), numNodes);
+            writeDoubles(channel, buffer, snapshot.getY(), numNodes);
+            writeInts(channel, buffer, offsets, numNodes + 1);
+            writeInts(channel, buffer, snapshot.getTargets(), offsets[numNodes]);
+            writeDoubles(channel, buffer, snapshot.getWeights(), offsets[numNodes]);
+            for (long nameOffset : nameOffsets) {
+                ensureRoom(channel, buffer, Long.BYTES);
+                buffer.putLong(nameOffset);
+            }
+            for (byte[] name : names) {
+                for (int k = 0; k < name.length; ) {
+                    ensureRoom(channel, buffer, 1);
+                    int length = Math.min(name.length - k, buffer.remaining());
+                    buffer.put(name, k, length);
+                    k += length;
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Loads a graph saved by save into a new NetGraph whose nodes, names, coordinates and adjacency lists are
+     * the same as those of the saved graph.
+     *
+     * @param path the file to read.
+     * @return the loaded graph.
+     * @throws IOException if the file cannot be read, is not a graph file of a supported version or is corrupt,
+     *                     for example if two nodes have the same id.
+     */
+    public static NetGraph load(Path path) throws IOException {
+        CsrGraph snapshot = loadSnapshot(path);
+        int numNodes = snapshot.getNumNodes();
+        int[] offsets = snapshot.getOffsets();
+        int[] targets = snapshot.getTargets();
+        double[] weights = snapshot.getWeights();
+
+        ArrayList<AdjacencyListHead> nodesList = new ArrayList<>(numNodes);
+        for (int i = 0; i < numNodes; i++) {
+            LinkedList<Adjacent> adjacencyList = new LinkedList<>();
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                adjacencyList.add(new Adjacent(snapshot.getNode(targets[k]), weights[k]));
+            }
+            nodesList.add(new AdjacencyListHead(snapshot.getNode(i), adjacencyList));
+        }
+        return new NetGraph(nodesList);
+    }
+
+    /**
+     * Loads a graph saved by save straight into an immutable CsrGraph, which is much faster than building
+     * a NetGraph since the arrays are copied in bulk from the mapped file.
+     *
+     * @param path the file to read.
+     * @return the snapshot of the saved graph.
+     * @throws IOException if the file cannot be read, is not a graph file of a supported version or is corrupt,
+     *                     for example if two nodes have the same id.
+     */
+    public static CsrGraph loadSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("not a graph file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a graph file: " + path);
+            }
+            int formatVersion = header.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("unsupported graph file version " + formatVersion + ": " + path);
+            }
+            int numNodes = header.getInt();
+            int numEntries = header.getInt();
+            long nameBytes = header.getLong();
+            long expectedSize = HEADER_BYTES + 4L * numNodes + 16L * numNodes + 4L * (numNodes + 1)
+                    + 12L * numEntries + 8L * (numNodes + 1) + nameBytes;
+            if (numNodes < 0 || numEntries < 0 || nameBytes < 0 || channel.size() != expectedSize) {
+                throw new IOException("corrupt graph file: " + path);
+            }
+
+            long position = HEADER_BYTES;
+            int[] ids = new int[numNodes];
+            position = readInts(channel, position, ids);
+            IntIntHashMap indexes = new IntIntHashMap(numNodes, -1);
+            for (int i = 0; i < numNodes; i++) {
+                if (indexes.containsKey(ids[i])) {
+                    throw new IOException("corrupt graph file: " + path);
+                }
+                indexes.put(ids[i], i);
+            }
+            double[] x = new double[numNodes];
+            position = readDoubles(channel, position, x);
+            double[] y = new double[numNodes];
+            position = readDoubles(channel, position, y);
+            int[] offsets = new int[numNodes + 1];
+            position = readInts(channel, position, offsets);
+            int[] targets = new int[numEntries];
+            position = readInts(channel, position, targets);
+            double[] weights = new double[numEntries];
+            position = readDoubles(channel, position, weights);
+            long[] nameOffsets = new long[numNodes + 1];
+            ByteBuffer names = map(channel, position, 8L * (numNodes + 1));
+            names.asLongBuffer().get(nameOffsets);
+            position += 8L * (numNodes + 1);
+            if (nameOffsets[0] != 0 || nameOffsets[numNodes] != nameBytes) {
+                throw new IOException("corrupt graph file: " + path);
+            }
+            for (int i = 0; i < numNodes; i++) {
+                long length = nameOffsets[i + 1] - nameOffsets[i];
+                if (length < 0 || length > MAP_BYTES) {
+                    throw new IOException("corrupt graph file: " + path);
+                }
+            }
+
+            NetNode[] nodes = new NetNode[numNodes];
+            long nameStart = position;
+            ByteBuffer chunk = null;
+            long chunkStart = 0;
+            byte[] name = new byte[64];
+            for (int i = 0; i < numNodes; i++) {
+                long start = nameStart + nameOffsets[i];
+                int length = (int) (nameOffsets[i + 1] - nameOffsets[i]);
+                if (chunk == null || start + length > chunkStart + chunk.capacity()) {
+                    chunkStart = start;
+                    chunk = map(channel, start, Math.min(MAP_BYTES, Math.max(length, channel.size() - start)));
+                }
+                if (length > name.length) {
+                    name = new byte[length];
+                }
+                chunk.position((int) (start - chunkStart));
+                chunk.get(name, 0, length);
+                nodes[i] = new NetNode(ids[i], new String(name, 0, length, StandardCharsets.UTF_8), x[i], y[i]);
+            }
+            for (int i = 0; i < numNodes; i++) {
+                if (offsets[i] > offsets[i + 1]) {
+                    throw new IOException("corrupt graph file: " + path);
+                }
+            }
+            for (int target : targets) {
+                if (target < 0 || target >= numNodes) {
+                    throw new IOException("corrupt graph file: " + path);
+                }
+            }
+            if (offsets[0] != 0 || offsets[numNodes] != numEntries) {
+                throw new IOException("corrupt graph file: " + path);
+            }
+            return new CsrGraph(nodes, x, y, offsets, targets, weights);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int count = (int) Math.min(values.length - i, MAP_BYTES / Integer.BYTES);
+            map(channel, position, (long) count * Integer.BYTES).asIntBuffer().get(values, i, count);
+            position += (long) count * Integer.BYTES;
+            i += count;
+        }
+        return position;
+    }
+
+    private static long readDoubles(FileChannel channel, long position, double[] values) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int count = (int) Math.min(values.length - i, MAP_BYTES / Double.BYTES);
+            map(channel, position, (long) count * Double.BYTES).asDoubleBuffer().get(values, i, count);
+            position += (long) count * Double.BYTES;
+            i += count;
+        }
+        return position;
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            ensureRoom(channel, buffer, Integer.BYTES);
+            int length = Math.min(count - i, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, i, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            i += length;
+        }
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            ensureRoom(channel, buffer, Double.BYTES);
+            int length = Math.min(count - i, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(values, i, length);
+            buffer.position(buffer.position() + length * Double.BYTES);
+            i += length;
+        }
+    }
+
+    /**
+     * Writes out the buffer if it has less than the given number of bytes left.
+     */
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class implements greedy geographic forwarding: a node sends a packet to the neighbor closest to its
+ * destination, as long as that neighbor is closer to the destination than the node itself. Packets that reach a
+ * node with no closer neighbor, a local minimum, are dropped. The protocol keeps no per-node state, so one instance
+ * serves every node.
+ */
+public class GreedyForwarding implements ProtocolHandler {
+
+    private final LongAdder packetsStuck = new LongAdder();
+
+    /**
+     * Constructs a new GreedyForwarding and installs it on every node of the given simulator.
+     *
+     * @param simulator the simulator.
+     */
+    public GreedyForwarding(Simulator simulator) {
+        simulator.setHandler(this);
+    }
+
+    /**
+     * Constructs a new GreedyForwarding and installs it on every node of the given parallel simulator.
+     * Packets must be sent through the shard of their source, ParallelSimulator.getShard.
+     *
+     * @param simulator the simulator.
+     */
+    public GreedyForwarding(ParallelSimulator simulator) {
+        simulator.setHandler(this);
+    }
+
+    /**
+     * Creates a packet at a node and forwards it towards its destination.
+     *
+     * @param simulator   the simulator.
+     * @param source      the index of the node sending the packet.
+     * @param destination the index of the destination node.
+     * @param size        the size of the packet in bytes.
+     * @return the packet.
+     */
+    public Packet send(Simulator simulator, int source, int destination, int size) {
+        Packet packet = simulator.newPacket(source, destination, size, Integer.MAX_VALUE, 0);
+        if (source == destination) {
+            simulator.deliver(source, packet, 0);
+        } else {
+            forward(simulator, source, packet);
+        }
+        return packet;
+    }
+
+    /**
+     * Returns the number of packets dropped at a node with no neighbor closer to the destination.
+     *
+     * @return the number of stuck packets.
+     */
+    public long getPacketsStuck() {
+        return packetsStuck.sum();
+    }
+
+    @Override
+    public void onPacket(Simulator simulator, int node, int from, Packet packet, int hops) {
+        if (node == packet.getDestination()) {
+            simulator.deliver(node, packet, hops);
+        } else if (hops < packet.getTtl()) {
+            forward(simulator, node, packet);
+        }
+    }
+
+    private void forward(Simulator simulator, int node, Packet packet) {
+        CsrGraph graph = simulator.getGraph();
+        double[] x = graph.getX();
+        double[] y = graph.getY();
+        int[] targets = graph.getTargets();
+        int destination = packet.getDestination();
+
+        int best = -1;
+        double bestDistance = squaredDistance(x, y, node, destination);
+        for (int k = graph.getOffsets()[node]; k < graph.getOffsets()[node + 1]; k++) {
+            double distance = squaredDistance(x, y, targets[k], destination);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = targets[k];
+            }
+        }
+        if (best == -1) {
+            packetsStuck.increment();
+        } else {
+            simulator.send(node, best, packet);
+        }
+    }
+
+    private static double squaredDistance(double[] x, double[] y, int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        return dx * dx + dy * dy;
+    }
+}
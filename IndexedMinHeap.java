@@ -0,0 +1,194 @@
+import java.util.*;
+
+/**
+ * This class represents a 4-ary min-heap of int items (node indexes) with double keys that supports decrease-key.
+ * Every item can be in the heap at most once and the heap remembers where each item is,
+ * so a node whose distance improves is moved up in place instead of being inserted again.
+ * Items and keys are kept in primitive arrays; once the heap has grown to the size of the graph
+ * no operation allocates.
+ */
+public class IndexedMinHeap {
+
+    private static final int ARITY = 4;
+
+    /**
+     * heap[p] is the item at position p and keys[p] its key; position[item] is the position of item, or -1.
+     */
+    private int[] heap;
+    private double[] keys;
+    private int[] position;
+    private int size;
+
+    /**
+     * The number of insertions, decreases and removals since the last clear.
+     */
+    private long operations;
+
+    /**
+     * Constructs a new empty IndexedMinHeap for the items 0 ... capacity - 1.
+     *
+     * @param capacity the number of distinct items.
+     */
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.keys = new double[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Makes room for the items 0 ... capacity - 1. The heap must be empty.
+     *
+     * @param capacity the number of distinct items.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > position.length) {
+            int oldCapacity = position.length;
+            heap = Arrays.copyOf(heap, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            position = Arrays.copyOf(position, capacity);
+            Arrays.fill(position, oldCapacity, capacity, -1);
+        }
+    }
+
+    /**
+     * Returns the number of items in the heap.
+     *
+     * @return the number of items in the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the heap is empty.
+     *
+     * @return true if the heap has no items.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether the given item is in the heap.
+     *
+     * @param item the item.
+     * @return true if the item is in the heap.
+     */
+    public boolean contains(int item) {
+        return position[item] != -1;
+    }
+
+    /**
+     * Returns the smallest key in the heap. The heap must not be empty.
+     *
+     * @return the key of the item at the top of the heap.
+     */
+    public double minKey() {
+        return keys[0];
+    }
+
+    /**
+     * Inserts the item with the given key, or lowers its key if it is already in the heap with a larger one.
+     *
+     * @param item the item.
+     * @param key  the new key of the item.
+     * @return true if the heap changed.
+     */
+    public boolean insertOrDecrease(int item, double key) {
+        int p = position[item];
+        if (p == -1) {
+            p = size++;
+        } else if (key >= keys[p]) {
+            return false;
+        }
+        siftUp(p, item, key);
+        operations++;
+        return true;
+    }
+
+    /**
+     * Removes the item with the smallest key from the heap. The heap must not be empty.
+     *
+     * @return the removed item.
+     */
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        operations++;
+        if (size > 0) {
+            siftDown(heap[size], keys[size]);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every item from the heap, in time proportional to the number of items in it.
+     */
+    public void clear() {
+        for (int p = 0; p < size; p++) {
+            position[heap[p]] = -1;
+        }
+        size = 0;
+        operations = 0;
+    }
+
+    /**
+     * Returns the number of items inserted, keys decreased and items removed since the heap was last cleared.
+     *
+     * @return the number of changes of the heap.
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Moves the hole at position p up until the key fits and stores the item there.
+     */
+    private void siftUp(int p, int item, double key) {
+        while (p > 0) {
+            int parent = (p - 1) / ARITY;
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[p] = heap[parent];
+            keys[p] = keys[parent];
+            position[heap[p]] = p;
+            p = parent;
+        }
+        heap[p] = item;
+        keys[p] = key;
+        position[item] = p;
+    }
+
+    /**
+     * Moves the hole at the top of the heap down until the key fits and stores the item there.
+     */
+    private void siftDown(int item, double key) {
+        int p = 0;
+        while (true) {
+            int firstChild = p * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + ARITY, size);
+            int minChild = firstChild;
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                if (keys[c] < keys[minChild]) {
+                    minChild = c;
+                }
+            }
+            if (keys[minChild] >= key) {
+                break;
+            }
+            heap[p] = heap[minChild];
+            keys[p] = keys[minChild];
+            position[heap[p]] = p;
+            p = minChild;
+        }
+        heap[p] = item;
+        keys[p] = key;
+        position[item] = p;
+    }
+}
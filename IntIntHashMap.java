@@ -0,0 +1,165 @@
+import java.util.*;
+
+/**
+ * This class represents a hash map from int keys to int values that stores both in primitive arrays,
+ * so that neither lookups nor insertions box their arguments.
+ * It uses open addressing with linear probing and backward shift deletion.
+ */
+public class IntIntHashMap {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /**
+     * The value returned by get for keys that are not in the map.
+     */
+    private final int missingValue;
+
+    /**
+     * Constructs a new empty IntIntHashMap.
+     *
+     * @param expectedSize the number of keys the map should hold without growing.
+     * @param missingValue the value returned by get for keys that are not in the map.
+     */
+    public IntIntHashMap(int expectedSize, int missingValue) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+        this.missingValue = missingValue;
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     *
+     * @return the number of keys in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots in the table. Every slot takes nine bytes.
+     *
+     * @return the capacity of the map.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the value associated with the given key.
+     *
+     * @param key the key to look up.
+     * @return the value of the key, or the missing value if the key is not in the map.
+     */
+    public int get(int key) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return missingValue;
+    }
+
+    /**
+     * Returns whether the given key is in the map.
+     *
+     * @param key the key to look up.
+     * @return true if the key is in the map.
+     */
+    public boolean containsKey(int key) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any previous value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    public void put(int key, int value) {
+        int slot = hash(key) & mask;
+        for (; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > MAX_LOAD * keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the given key from the map.
+     *
+     * @param key the key to be removed.
+     * @return the value the key had, or the missing value if the key was not in the map.
+     */
+    public int remove(int key) {
+        int slot = hash(key) & mask;
+        for (; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                // shift the following keys of the probe sequence back so that no tombstone is needed
+                int hole = slot;
+                for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+                    int home = hash(keys[next]) & mask;
+                    if (((next - home) & mask) >= ((next - hole) & mask)) {
+                        keys[hole] = keys[next];
+                        values[hole] = values[next];
+                        hole = next;
+                    }
+                }
+                used[hole] = false;
+                size--;
+                return value;
+            }
+        }
+        return missingValue;
+    }
+
+    /**
+     * Removes every key from the map.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class represents a histogram of latencies in nanoseconds that many threads record into at once.
+ * Every power of two is split into four buckets, so a percentile is read back within 25% of the true value
+ * whatever the scale, from 1 ns to centuries, in a fixed 248 buckets. Every bucket is a LongAdder, so recording
+ * never makes threads wait for each other.
+ */
+public class LatencyHistogram {
+
+    private static final int NUM_BUCKETS = 248;
+
+    private final String name;
+    private final LongAdder[] buckets;
+    private final LongAdder total;
+    private final LongAccumulator max;
+
+    /**
+     * Constructs a new empty LatencyHistogram.
+     *
+     * @param name the name of the measured operation.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+        this.buckets = new LongAdder[NUM_BUCKETS];
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            buckets[b] = new LongAdder();
+        }
+        this.total = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Returns the name of the measured operation.
+     *
+     * @return the name of the histogram.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        buckets[bucket(nanos)].increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Records the time elapsed since the given start.
+     *
+     * @param start a time returned by System.nanoTime.
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the count of the histogram.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the average latency.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * Returns the largest latency recorded.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns a latency that the given fraction of the recorded latencies do not exceed, rounded up to the end of
+     * its bucket.
+     *
+     * @param fraction the fraction, from 0 to 1, for instance 0.99 for the 99th percentile.
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded.
+     * @throws IllegalArgumentException if fraction is not between 0 and 1.
+     */
+    public long getPercentile(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        long[] counts = new long[NUM_BUCKETS];
+        long count = 0;
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            counts[b] = buckets[b].sum();
+            count += counts[b];
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) {
+                return Math.min(upperBound(b), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forgets every latency recorded. Latencies recorded during the reset may be partly kept.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns the count, mean, median, 99th percentile and maximum of the histogram.
+     *
+     * @return a one-line summary of the histogram.
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0fns p50=%dns p99=%dns max=%dns",
+                getCount(), getMean(), getPercentile(0.5), getPercentile(0.99), getMax());
+    }
+
+    /**
+     * Returns the bucket of a latency: values below 4 have their own bucket, and every power of two above is
+     * split by the two bits below its leading one.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < 4) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return 4 * (exponent - 1) + (int) ((nanos >>> (exponent - 2)) & 3);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int shift = bucket / 4 - 1;
+        long lower = (long) (4 + bucket % 4) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
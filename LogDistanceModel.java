@@ -0,0 +1,140 @@
+/**
+ * This class represents the log-distance path loss model. A transmission loses
+ * referenceLoss + 10 * exponent * log10(distance) decibels on its way, distances below 1 counting as 1,
+ * and is heard when the power left is at least the sensitivity of the receiver.
+ * Obstacles are modelled by log-normal shadowing: every pair of nodes gets a fixed extra loss drawn from a normal
+ * distribution of standard deviation shadowing, cut off at three standard deviations so that the range stays finite.
+ * The draw only depends on the ids of the two nodes and the seed, so it is the same in both directions and in
+ * every run. The weight of a link is the distance.
+ */
+public class LogDistanceModel implements PropagationModel {
+
+    /**
+     * Shadowing draws are cut off at this many standard deviations.
+     */
+    private static final double MAX_DEVIATIONS = 3;
+
+    private final double transmitPower;
+    private final double referenceLoss;
+    private final double exponent;
+    private final double sensitivity;
+    private final double shadowing;
+    private final long seed;
+
+    /**
+     * The range without shadowing, at which the power left is exactly the sensitivity.
+     */
+    private final double meanRange;
+
+    /**
+     * Constructs a new LogDistanceModel without shadowing, which links nodes up to a fixed range like
+     * a UnitDiskModel.
+     *
+     * @param transmitPower the transmit power in dBm.
+     * @param referenceLoss the loss at distance 1 in dB.
+     * @param exponent      the path loss exponent, 2 in free space and up to 6 indoors.
+     * @param sensitivity   the lowest power heard in dBm.
+     * @throws IllegalArgumentException if exponent is not positive.
+     */
+    public LogDistanceModel(double transmitPower, double referenceLoss, double exponent, double sensitivity) {
+        this(transmitPower, referenceLoss, exponent, sensitivity, 0, 0);
+    }
+
+    /**
+     * Constructs a new LogDistanceModel with log-normal shadowing.
+     *
+     * @param transmitPower the transmit power in dBm.
+     * @param referenceLoss the loss at distance 1 in dB.
+     * @param exponent      the path loss exponent, 2 in free space and up to 6 indoors.
+     * @param sensitivity   the lowest power heard in dBm.
+     * @param shadowing     the standard deviation of the shadowing in dB.
+     * @param seed          the seed of the shadowing draws.
+     * @throws IllegalArgumentException if exponent is not positive, shadowing is negative, or no link is possible.
+     */
+    public LogDistanceModel(double transmitPower, double referenceLoss, double exponent, double sensitivity,
+                            double shadowing, long seed) {
+        if (!(exponent > 0) || !(shadowing >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.transmitPower = transmitPower;
+        this.referenceLoss = referenceLoss;
+        this.exponent = exponent;
+        this.sensitivity = sensitivity;
+        this.shadowing = shadowing;
+        this.seed = seed;
+        this.meanRange = Math.pow(10, (transmitPower - referenceLoss - sensitivity) / (10 * exponent));
+        if (!(getRange() > 0) || getRange() == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public double getRange() {
+        return meanRange * Math.pow(10, MAX_DEVIATIONS * shadowing / (10 * exponent));
+    }
+
+    /**
+     * Returns the power left of a transmission after the given distance, without shadowing.
+     *
+     * @param distance the distance between the nodes.
+     * @return the received power in dBm.
+     */
+    public double receivedPower(double distance) {
+        return transmitPower - referenceLoss - 10 * exponent * Math.log10(Math.max(distance, 1));
+    }
+
+    /**
+     * Returns the shadowing loss between two nodes, the same whichever of them transmits.
+     *
+     * @param id1 the id of one node.
+     * @param id2 the id of the other node.
+     * @return the extra loss in dB, between -3 and 3 standard deviations.
+     */
+    public double shadowingLoss(int id1, int id2) {
+        if (shadowing == 0) {
+            return 0;
+        }
+        long pair = (long) Math.min(id1, id2) << 32 | (Math.max(id1, id2) & 0xFFFFFFFFL);
+        long bits1 = mix(seed ^ pair);
+        long bits2 = mix(bits1);
+        //Box-Muller transform of two uniform numbers in (0, 1]
+        double u1 = ((bits1 >>> 11) + 1) * 0x1.0p-53;
+        double u2 = (bits2 >>> 11) * 0x1.0p-53;
+        double normal = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        return shadowing * Math.max(-MAX_DEVIATIONS, Math.min(MAX_DEVIATIONS, normal));
+    }
+
+    @Override
+    public int receive(int receiver, int[] transmitters, double[] distances, int count, double[] weights) {
+        if (shadowing == 0) {
+            //without shadowing the power only falls with the distance, so the threshold is a distance
+            int heard = DistanceKernel.withinRange(transmitters, distances, count, meanRange);
+            System.arraycopy(distances, 0, weights, 0, heard);
+            return heard;
+        }
+        //the loss of the whole batch first, in a loop the JIT can vectorize, then the shadowing pair by pair
+        double budget = transmitPower - referenceLoss - sensitivity;
+        double slope = 10 * exponent;
+        for (int k = 0; k < count; k++) {
+            weights[k] = budget - slope * Math.log10(Math.max(distances[k], 1));
+        }
+        int heard = 0;
+        for (int k = 0; k < count; k++) {
+            if (weights[k] - shadowingLoss(receiver, transmitters[k]) >= 0) {
+                transmitters[heard] = transmitters[k];
+                weights[heard] = distances[k];
+                heard++;
+            }
+        }
+        return heard;
+    }
+
+    /**
+     * Scrambles the bits of a long, as SplittableRandom does.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
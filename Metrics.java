@@ -0,0 +1,147 @@
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * This class is the registry of the metrics of the emulator: named LongAdder counters and latency histograms,
+ * created on first use and shared by every thread. Instrumented code looks its metrics up once, into static
+ * fields, and checks isEnabled before measuring, so while metrics are off an operation only pays one read of
+ * a volatile boolean. Metrics are off unless the system property netgraph.metrics is true, and can be switched
+ * at any time, also over JMX once registerMBean has been called.
+ *
+ * The operations are also reported as JFR events (GraphChangeEvent, ShortestPathEvent, SpanningForestEvent),
+ * which JFR records independently of this switch.
+ */
+public class Metrics {
+
+    private static volatile boolean enabled = Boolean.getBoolean("netgraph.metrics");
+
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    /**
+     * The name the metrics are registered under with JMX.
+     */
+    public static final String OBJECT_NAME = "NetGraph:type=Metrics";
+
+    private Metrics() {
+    }
+
+    /**
+     * Tells whether operations are being measured.
+     *
+     * @return true if metrics are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches the measuring of operations on or off. Values recorded so far are kept.
+     *
+     * @param enabled true to record metrics.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Returns the counter of the given name, creating it if needed.
+     *
+     * @param name the name of the counter.
+     * @return the counter.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the latency histogram of the given name, creating it if needed.
+     *
+     * @param name the name of the measured operation.
+     * @return the histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Returns the current value of every counter by name.
+     *
+     * @return the counters, sorted by name.
+     */
+    public static Map<String, Long> getCounters() {
+        TreeMap<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> counters.put(name, counter.sum()));
+        return counters;
+    }
+
+    /**
+     * Returns every latency histogram by name.
+     *
+     * @return the histograms, sorted by name.
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under OBJECT_NAME, unless they already are.
+     *
+     * @throws IllegalStateException if the MBean cannot be registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(new MBean(), MetricsMXBean.class, true), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The JMX view of the registry.
+     */
+    private static class MBean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            return Metrics.getCounters();
+        }
+
+        @Override
+        public Map<String, String> getLatencies() {
+            TreeMap<String, String> latencies = new TreeMap<>();
+            HISTOGRAMS.forEach((name, histogram) -> latencies.put(name, histogram.toString()));
+            return latencies;
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
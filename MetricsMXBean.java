@@ -0,0 +1,40 @@
+import java.util.*;
+
+/**
+ * The management interface of the metrics of the emulator, registered with JMX by Metrics.registerMBean.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Tells whether operations are being measured.
+     *
+     * @return true if metrics are recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * Switches the measuring of operations on or off.
+     *
+     * @param enabled true to record metrics.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the value of every counter by name.
+     *
+     * @return the counters.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Returns a summary of every latency histogram by name.
+     *
+     * @return the count, mean, percentiles and maximum of every histogram.
+     */
+    Map<String, String> getLatencies();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,276 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * This class computes minimum spanning forests of a CsrGraph in O(E log V) time and O(V + E) memory.
+ * The result is a SpanningForest listing the links of the forest, so it stays small on large graphs,
+ * and graphs with several connected components get one tree per component.
+ */
+public class MinSpanningForest {
+
+    private MinSpanningForest() {
+    }
+
+    /**
+     * Computes a minimum spanning forest of the graph with the given algorithm.
+     *
+     * @param graph     the graph.
+     * @param algorithm the algorithm to use.
+     * @return the minimum spanning forest of the graph.
+     */
+    public static SpanningForest compute(CsrGraph graph, MstAlgorithm algorithm) {
+        switch (algorithm) {
+            case KRUSKAL:
+                return kruskal(graph);
+            case BORUVKA:
+                return boruvka(graph);
+            default:
+                return prim(graph);
+        }
+    }
+
+    /**
+     * Computes a minimum spanning forest with Prim's algorithm, using an IndexedMinHeap to find the next node
+     * and starting a new tree from every node that no earlier tree reached.
+     *
+     * @param graph the graph.
+     * @return the minimum spanning forest of the graph.
+     */
+    public static SpanningForest prim(CsrGraph graph) {
+        int numNodes = graph.getNumNodes();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+
+        IndexedMinHeap heap = new IndexedMinHeap(numNodes);
+        boolean[] inTree = new boolean[numNodes];
+        int[] parent = new int[numNodes];
+        double[] lightest = new double[numNodes];
+        Arrays.fill(parent, -1);
+        Arrays.fill(lightest, Double.POSITIVE_INFINITY);
+
+        int[] from = new int[Math.max(0, numNodes - 1)];
+        int[] to = new int[from.length];
+        double[] linkWeights = new double[from.length];
+        int numLinks = 0;
+
+        for (int root = 0; root < numNodes; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            heap.insertOrDecrease(root, 0);
+            while (!heap.isEmpty()) {
+                int node = heap.poll();
+                inTree[node] = true;
+                if (parent[node] != -1) {
+                    from[numLinks] = parent[node];
+                    to[numLinks] = node;
+                    linkWeights[numLinks] = lightest[node];
+                    numLinks++;
+                }
+                for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                    int neighbor = targets[k];
+                    if (!inTree[neighbor] && weights[k] < lightest[neighbor]) {
+                        lightest[neighbor] = weights[k];
+                        parent[neighbor] = node;
+                        heap.insertOrDecrease(neighbor, weights[k]);
+                    }
+                }
+            }
+        }
+        return new SpanningForest(numNodes, from, to, linkWeights, numLinks);
+    }
+
+    /**
+     * Computes a minimum spanning forest with Kruskal's algorithm: the links are sorted by weight and a link is
+     * kept when a UnionFind shows that it joins two different trees.
+     *
+     * @param graph the graph.
+     * @return the minimum spanning forest of the graph.
+     */
+    public static SpanningForest kruskal(CsrGraph graph) {
+        int numNodes = graph.getNumNodes();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+
+        // every undirected link appears twice in the snapshot; take it from its lower end
+        int numCandidates = 0;
+        for (int node = 0; node < numNodes; node++) {
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                if (node < targets[k]) {
+                    numCandidates++;
+                }
+            }
+        }
+        int[] sources = new int[numCandidates];
+        int[] links = new int[numCandidates];
+        int[] positions = new int[numCandidates];
+        double[] keys = new double[numCandidates];
+        numCandidates = 0;
+        for (int node = 0; node < numNodes; node++) {
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                if (node < targets[k]) {
+                    sources[numCandidates] = node;
+                    links[numCandidates] = k;
+                    positions[numCandidates] = numCandidates;
+                    keys[numCandidates] = weights[k];
+                    numCandidates++;
+                }
+            }
+        }
+        sort(keys, positions, 0, numCandidates - 1);
+
+        UnionFind trees = new UnionFind(numNodes);
+        int[] from = new int[Math.max(0, numNodes - 1)];
+        int[] to = new int[from.length];
+        double[] linkWeights = new double[from.length];
+        int numLinks = 0;
+        for (int i = 0; i < numCandidates && numLinks < from.length; i++) {
+            int candidate = positions[i];
+            int node = sources[candidate];
+            int neighbor = targets[links[candidate]];
+            if (trees.union(node, neighbor)) {
+                from[numLinks] = node;
+                to[numLinks] = neighbor;
+                linkWeights[numLinks] = keys[i];
+                numLinks++;
+            }
+        }
+        return new SpanningForest(numNodes, from, to, linkWeights, numLinks);
+    }
+
+    /**
+     * Computes a minimum spanning forest with Boruvka's algorithm. In every round each tree picks its lightest link
+     * to another tree and all those links are added at once, so there are at most log V rounds. The search for the
+     * lightest link of every node, which reads all the links, runs in parallel on the common fork-join pool.
+     * Ties between equal weights are broken by the indexes of the two nodes, so the picked links never form a cycle.
+     *
+     * @param graph the graph.
+     * @return the minimum spanning forest of the graph.
+     */
+    public static SpanningForest boruvka(CsrGraph graph) {
+        int numNodes = graph.getNumNodes();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+
+        UnionFind trees = new UnionFind(numNodes);
+        int[] tree = new int[numNodes];
+        for (int node = 0; node < numNodes; node++) {
+            tree[node] = node;
+        }
+        int[] lightestOfNode = new int[numNodes];
+        int[] lightestOfTree = new int[numNodes];
+        int[] lightestSource = new int[numNodes];
+
+        int[] from = new int[Math.max(0, numNodes - 1)];
+        int[] to = new int[from.length];
+        double[] linkWeights = new double[from.length];
+        int numLinks = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // the lightest link from every node to another tree
+            IntStream.range(0, numNodes).parallel().forEach(node -> {
+                int lightest = -1;
+                for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                    if (tree[targets[k]] != tree[node]
+                            && (lightest == -1 || lighter(node, k, node, lightest, targets, weights))) {
+                        lightest = k;
+                    }
+                }
+                lightestOfNode[node] = lightest;
+            });
+
+            // the lightest link of every tree
+            Arrays.fill(lightestOfTree, -1);
+            for (int node = 0; node < numNodes; node++) {
+                int k = lightestOfNode[node];
+                int root = tree[node];
+                if (k != -1 && (lightestOfTree[root] == -1
+                        || lighter(node, k, lightestSource[root], lightestOfTree[root], targets, weights))) {
+                    lightestOfTree[root] = k;
+                    lightestSource[root] = node;
+                }
+            }
+
+            for (int root = 0; root < numNodes; root++) {
+                int k = lightestOfTree[root];
+                if (k != -1 && trees.union(lightestSource[root], targets[k])) {
+                    from[numLinks] = lightestSource[root];
+                    to[numLinks] = targets[k];
+                    linkWeights[numLinks] = weights[k];
+                    numLinks++;
+                    changed = true;
+                }
+            }
+            for (int node = 0; node < numNodes; node++) {
+                tree[node] = trees.find(node);
+            }
+        }
+        return new SpanningForest(numNodes, from, to, linkWeights, numLinks);
+    }
+
+    /**
+     * Returns whether the link at position k1 of the snapshot, leaving source1, comes before the link at position k2,
+     * leaving source2, in the order by weight and then by the indexes of the nodes at the two ends.
+     */
+    private static boolean lighter(int source1, int k1, int source2, int k2, int[] targets, double[] weights) {
+        if (weights[k1] != weights[k2]) {
+            return weights[k1] < weights[k2];
+        }
+        int low1 = Math.min(source1, targets[k1]);
+        int low2 = Math.min(source2, targets[k2]);
+        if (low1 != low2) {
+            return low1 < low2;
+        }
+        return Math.max(source1, targets[k1]) < Math.max(source2, targets[k2]);
+    }
+
+    /**
+     * Sorts keys[low ... high] in ascending order with quicksort, applying the same moves to values.
+     */
+    private static void sort(double[] keys, int[] values, int low, int high) {
+        while (high - low > 16) {
+            double pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            // recurse into the smaller half so the stack stays O(log n)
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && keys[j - 1] > keys[j]; j--) {
+                swap(keys, values, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(double[] keys, int[] values, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,266 @@
+import java.util.*;
+
+/**
+ * This class moves the nodes of a Network and keeps its links up to date without rebuilding it.
+ * Moves are queued with moveNode and applied together by step. Only the moved nodes are looked at:
+ * their links are reweighted or removed, and new links are found in a grid of cells as large as the range of the
+ * propagation model of the network, so a tick costs time proportional to the moved nodes and their neighborhoods.
+ * With a model that is not symmetric, like SinrModel, a move also changes what the nodes around the moved one hear;
+ * only the links of the moved nodes are decided again.
+ * The engine keeps its own grid of the nodes, so nodes must be inserted or deleted through the engine
+ * once it has been created.
+ */
+public class MobilityEngine {
+
+    private final NetGraph graph;
+    private final PropagationModel model;
+    private final double range;
+
+    /**
+     * The nodes of the graph by grid cell. The key of a cell packs its column and row into a long.
+     */
+    private final HashMap<Long, ArrayList<NetNode>> cells;
+
+    /**
+     * The queued moves, applied in order by step.
+     */
+    private final ArrayList<NetNode> movedNodes;
+    private double[] movedX;
+    private double[] movedY;
+
+    /**
+     * Reused by relink: the neighbors of the node being relinked, and the nodes it hears by id with the position
+     * of their weight in heardWeights.
+     */
+    private final ArrayList<Adjacent> neighbors;
+    private final IntIntHashMap linked;
+    private double[] heardWeights;
+
+    /**
+     * Reused by hear: the nodes around a receiver and their ids, coordinates, distances and weights.
+     */
+    private final ArrayList<NetNode> batch;
+    private int[] batchIds;
+    private double[] batchX;
+    private double[] batchY;
+    private double[] distances;
+    private double[] weights;
+
+    /**
+     * Constructs a new MobilityEngine for the given network, placing its current nodes in the grid.
+     *
+     * @param network the network whose nodes will move.
+     */
+    public MobilityEngine(Network network) {
+        this.graph = network.getNetworkGraph();
+        this.model = network.getPropagationModel();
+        this.range = model.getRange();
+        this.cells = new HashMap<>();
+        this.movedNodes = new ArrayList<>();
+        this.movedX = new double[16];
+        this.movedY = new double[16];
+        this.neighbors = new ArrayList<>();
+        this.linked = new IntIntHashMap(16, -1);
+        this.heardWeights = new double[16];
+        this.batch = new ArrayList<>();
+        this.batchIds = new int[16];
+        this.batchX = new double[16];
+        this.batchY = new double[16];
+        this.distances = new double[16];
+        this.weights = new double[16];
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            addToCell(head.getNetNode());
+        }
+    }
+
+    /**
+     * Queues a move of a node to new coordinates. Nothing changes in the graph until step is called.
+     *
+     * @param node         the node to be moved.
+     * @param x_coordinate the new x coordinate of the node.
+     * @param y_coordinate the new y coordinate of the node.
+     * @throws IllegalArgumentException if the node does not exist in the graph or is null.
+     */
+    public void moveNode(NetNode node, double x_coordinate, double y_coordinate) {
+        graph.getNodeIndex(node);
+        int i = movedNodes.size();
+        if (i == movedX.length) {
+            movedX = Arrays.copyOf(movedX, 2 * i);
+            movedY = Arrays.copyOf(movedY, 2 * i);
+        }
+        movedNodes.add(node);
+        movedX[i] = x_coordinate;
+        movedY[i] = y_coordinate;
+    }
+
+    /**
+     * Applies the queued moves. All nodes are moved first and their links are fixed afterwards,
+     * so a link between two moved nodes is decided on their new positions.
+     *
+     * @return the number of nodes moved.
+     */
+    public int step() {
+        int numMoved = movedNodes.size();
+        for (int i = 0; i < numMoved; i++) {
+            NetNode node = movedNodes.get(i);
+            removeFromCell(node);
+            graph.moveNetNode(node, movedX[i], movedY[i]);
+            addToCell(node);
+        }
+        for (int i = 0; i < numMoved; i++) {
+            relink(movedNodes.get(i));
+        }
+        movedNodes.clear();
+        return numMoved;
+    }
+
+    /**
+     * Adds a new node to the graph and links it to the nodes within range.
+     *
+     * @param id           id of the new node.
+     * @param name         name of the new node.
+     * @param x_coordinate x coordinate of the new node.
+     * @param y_coordinate y coordinate of the new node.
+     * @return the new node.
+     * @throws IllegalArgumentException if a node with the same id already exists in the graph.
+     */
+    public NetNode insertNode(int id, String name, double x_coordinate, double y_coordinate) {
+        graph.insertNetNode(id, name, x_coordinate, y_coordinate);
+        NetNode node = graph.getNetNode(id);
+        addToCell(node);
+        relink(node);
+        return node;
+    }
+
+    /**
+     * Deletes a node and its links from the graph.
+     *
+     * @param node the node to be deleted.
+     * @throws IllegalArgumentException if the node does not exist in the graph or is null.
+     */
+    public void deleteNode(NetNode node) {
+        graph.deleteNetNode(node);
+        removeFromCell(node);
+    }
+
+    /**
+     * Brings the links of a node in line with its position: links to nodes it no longer hears are removed,
+     * the others get the weight the model now gives them, and nodes it came to hear are linked.
+     */
+    private void relink(NetNode node) {
+        int heard = hear(node);
+        linked.clear();
+        if (heardWeights.length < heard) {
+            heardWeights = new double[batchIds.length];
+        }
+        System.arraycopy(weights, 0, heardWeights, 0, heard);
+        int[] heardIds = Arrays.copyOf(batchIds, heard);
+        for (int k = 0; k < heard; k++) {
+            //a link needs both ends to hear each other unless the model decides the same both ways
+            if (model.isSymmetric() || hears(graph.getNetNode(heardIds[k]), node)) {
+                linked.put(heardIds[k], k);
+            }
+        }
+
+        neighbors.clear();
+        neighbors.addAll(graph.getAdjacents(node));
+        for (Adjacent adjacent : neighbors) {
+            NetNode neighbor = adjacent.getNeighbor();
+            int k = linked.get(neighbor.getId());
+            if (k == -1) {
+                graph.removeLink(node, neighbor);
+            } else {
+                if (heardWeights[k] != adjacent.getWeight()) {
+                    graph.updateLink(node, neighbor, heardWeights[k]);
+                }
+                linked.remove(neighbor.getId());
+            }
+        }
+        for (int k = 0; k < heard; k++) {
+            if (linked.get(heardIds[k]) == k) {
+                graph.addLink(node, graph.getNetNode(heardIds[k]), heardWeights[k]);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a receiver hears a transmitter among the nodes around it.
+     */
+    private boolean hears(NetNode receiver, NetNode transmitter) {
+        int heard = hear(receiver);
+        for (int k = 0; k < heard; k++) {
+            if (batchIds[k] == transmitter.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Asks the model which of the nodes around a receiver it hears. Their ids are left at the front of batchIds
+     * in the order of the cells, and the weights of their links at the front of weights.
+     *
+     * @return the number of nodes heard.
+     */
+    private int hear(NetNode receiver) {
+        batch.clear();
+        long column = cellCoordinate(receiver.getX_coordinate());
+        long row = cellCoordinate(receiver.getY_coordinate());
+        for (long c = column - 1; c <= column + 1; c++) {
+            for (long r = row - 1; r <= row + 1; r++) {
+                ArrayList<NetNode> cell = cells.get(cellKey(c, r));
+                if (cell == null) {
+                    continue;
+                }
+                for (NetNode candidate : cell) {
+                    if (candidate != receiver) {
+                        batch.add(candidate);
+                    }
+                }
+            }
+        }
+        int count = batch.size();
+        if (batchIds.length < count) {
+            int length = Math.max(count, 2 * batchIds.length);
+            batchIds = new int[length];
+            batchX = new double[length];
+            batchY = new double[length];
+            distances = new double[length];
+            weights = new double[length];
+        }
+        for (int k = 0; k < count; k++) {
+            NetNode candidate = batch.get(k);
+            batchIds[k] = candidate.getId();
+            batchX[k] = candidate.getX_coordinate();
+            batchY[k] = candidate.getY_coordinate();
+        }
+        DistanceKernel.distances(receiver.getX_coordinate(), receiver.getY_coordinate(), batchX, batchY, count, distances);
+        count = DistanceKernel.withinRange(batchIds, distances, count, range);
+        return model.receive(receiver.getId(), batchIds, distances, count, weights);
+    }
+
+    private void addToCell(NetNode node) {
+        long key = cellKey(cellCoordinate(node.getX_coordinate()), cellCoordinate(node.getY_coordinate()));
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+    }
+
+    private void removeFromCell(NetNode node) {
+        long key = cellKey(cellCoordinate(node.getX_coordinate()), cellCoordinate(node.getY_coordinate()));
+        ArrayList<NetNode> cell = cells.get(key);
+        // swap the last node of the cell into the hole instead of shifting the rest down
+        int i = cell.indexOf(node);
+        cell.set(i, cell.get(cell.size() - 1));
+        cell.remove(cell.size() - 1);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private long cellCoordinate(double coordinate) {
+        return (long) Math.floor(coordinate / range);
+    }
+
+    private static long cellKey(long column, long row) {
+        return (column << 32) ^ (row & 0xFFFFFFFFL);
+    }
+}
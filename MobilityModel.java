@@ -0,0 +1,15 @@
+/**
+ * A mobility model decides where the nodes of a network go. Every tick it queues the moves of the nodes
+ * that changed position on a MobilityEngine, which then updates the links.
+ */
+public interface MobilityModel {
+
+    /**
+     * Advances the model to the given simulation time and queues the resulting moves on the engine.
+     * The caller applies them with engine.step().
+     *
+     * @param time   the new simulation time, in seconds.
+     * @param engine the engine receiving the moves.
+     */
+    void advance(double time, MobilityEngine engine);
+}
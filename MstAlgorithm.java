@@ -0,0 +1,20 @@
+/**
+ * The algorithms available to compute a minimum spanning forest.
+ */
+public enum MstAlgorithm {
+
+    /**
+     * Prim's algorithm with an indexed heap, restarted in every connected component.
+     */
+    PRIM,
+
+    /**
+     * Kruskal's algorithm: links sorted by weight and joined with union-find.
+     */
+    KRUSKAL,
+
+    /**
+     * Boruvka's algorithm, finding the lightest outgoing link of every node in parallel in each round.
+     */
+    BORUVKA
+}
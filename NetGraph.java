@@ -1,6 +1,7 @@
 
 import org.w3c.dom.NodeList;
 
+import java.io.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,19 +17,93 @@ public class NetGraph {
 
     private ArrayList<AdjacencyListHead> nodesList;
 
+    /**
+     * Maps the id of every node in the graph to its index in nodesList, so that a node is found without walking the list.
+     */
+    private IntIntHashMap nodeIndex;
+
+    /**
+     * The last snapshot returned by freeze, or null if the graph has changed since then.
+     */
+    private CsrGraph snapshot;
+
+    /**
+     * The modification version of the graph, increased by every change made through NetGraph.
+     */
+    private long version;
+
+    /**
+     * The listeners notified of every change.
+     */
+    private ArrayList<NetGraphListener> listeners = new ArrayList<>();
+
+    /**
+     * The number of nodes of every degree, kept up to date by every change so that the statistics of the graph
+     * are read without walking it: degreeCounts[d] is the number of nodes with d adjacent entries.
+     */
+    private int[] degreeCounts = new int[16];
+
+    /**
+     * The largest degree with a node in degreeCounts.
+     */
+    private int maxDegree;
+
+    /**
+     * The number of entries in all adjacency lists, twice the number of links.
+     */
+    private long numEntries;
+
+    /**
+     * The latencies of the operations of every NetGraph, recorded while Metrics is enabled.
+     */
+    private static final LatencyHistogram ADD_LINK = Metrics.histogram("NetGraph.addLink");
+    private static final LatencyHistogram REMOVE_LINK = Metrics.histogram("NetGraph.removeLink");
+    private static final LatencyHistogram GET_ADJACENTS = Metrics.histogram("NetGraph.getAdjacents");
+    private static final LatencyHistogram APPLY = Metrics.histogram("NetGraph.apply");
+
+    /**
+     * The net effect of the changes of a batch on a pair of nodes.
+     */
+    private static final byte ADD = 1;
+    private static final byte SET = 2;
+    private static final byte REMOVE = 3;
+
+    /**
+     * The number of changes of a node up to which apply finds them in its adjacency list by comparing nodes.
+     */
+    private static final int FEW_ENDS = 16;
+
+    /**
+     * The bits sorted by every pass of the radix sort of apply, and the number of their values.
+     */
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+
     /**
      * Constructs a new NetGraph object with the given list of nodes.
      *
      * @param nodesList the list of nodes in the graph.
+     * @throws IllegalArgumentException if two nodes in the list have the same id.
      */
 
     public NetGraph(ArrayList<AdjacencyListHead> nodesList) {
         this.nodesList = nodesList;
-        //This method is complete
+        this.nodeIndex = new IntIntHashMap(nodesList.size(), -1);
+        for (int i = 0; i < nodesList.size(); i++) {
+            int id = nodesList.get(i).getNetNode().getId();
+            if (nodeIndex.containsKey(id)) {
+                throw new IllegalArgumentException();
+            }
+            nodeIndex.put(id, i);
+        }
+        for (AdjacencyListHead head : nodesList) {
+            degreeAdded(head.getAdjacencyList().size());
+        }
     }
 
     /**
-     * Returns the list of nodes in the graph.
+     * Returns the list of nodes in the graph. The list must not be changed directly, since NetGraph keeps
+     * an index of the position of every node in it.
      *
      * @return the list of nodes in the graph.
      */
@@ -56,7 +131,9 @@ public class NetGraph {
     }
 
     /**
-     * Returns the number of edges in the undirected graph.
+     * Returns the number of edges in the undirected graph. It is kept up to date by every change made through
+     * NetGraph, so it takes constant time; changes made directly to the lists returned by getNodesList or
+     * getAdjacents are not counted.
      *
      * @return the number of edges.
      */
@@ -64,12 +141,7 @@ public class NetGraph {
     public int getNumLinks() {
         //Implement this method
         //returns the number of edges in the graph. Remember this is an undirected graph
-        int count = 0;
-        for (AdjacencyListHead nodes : nodesList) {
-            count += nodes.getAdjacencyList().size();
-
-        }
-        return count / 2;
+        return (int) (numEntries / 2);
     }
 
     /**
@@ -79,6 +151,7 @@ public class NetGraph {
      * @param name         name of the new node.
      * @param x_coordinate x coordinate of the new node.
      * @param y_coordinate y coordinate of the new node.
+     * @throws IllegalArgumentException if a node with the same id already exists in the graph.
      */
 
     public void insertNetNode(int id, String name, double x_coordinate, double y_coordinate) {
@@ -87,16 +160,22 @@ public class NetGraph {
         //Adds a new node to the graph. The node is represented by the NetNode class having id, name, x_coordinate, and y_coordinatte instance variables
         //You should check if the nodes already exists in the graph. If this is the case throw an IllegalArgumentException
 
-        NetNode netNode = new NetNode(id, name, x_coordinate, y_coordinate);
-        AdjacencyListHead adjacencyListHead = new AdjacencyListHead(netNode);
-        if (nodesList.contains(adjacencyListHead)) {
+        if (nodeIndex.containsKey(id)) {
             throw new IllegalArgumentException();
         }
-        nodesList.add(adjacencyListHead);
+        NetNode netNode = new NetNode(id, name, x_coordinate, y_coordinate);
+        nodesList.add(new AdjacencyListHead(netNode));
+        nodeIndex.put(id, nodesList.size() - 1);
+        degreeAdded(0);
+        changed();
+        for (NetGraphListener listener : listeners) {
+            listener.nodeInserted(netNode);
+        }
     }
 
     /**
-     * Adds a link in the graph between two nodes node1 and node2 with the given weight.
+     * Adds a link in the graph between two nodes node1 and node2 with the given weight. Nothing changes if the
+     * nodes are already linked.
      *
      * @param node1  the first NetNode to be connected.
      * @param node2  the second NetNode to be connected.
@@ -108,46 +187,47 @@ public class NetGraph {
         //Implement this method
         //adds a link in the graph between two  nodes node1 and node2.
         // You should check if the nodes exist in the graph and that they are not null or else you should raise an IllegalArgumentException
-
-        boolean foundNode1 = false;
-        boolean foundNode2 = false;
-
-
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getNetNode() == node1) {
-                foundNode1 = true;
-                Adjacent adjacent = new Adjacent(node2, weight);
-                if (!nodes.getAdjacencyList().contains(adjacent)) {
-
-                    nodes.getAdjacencyList().add(adjacent);
-
-                }
-
-
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        GraphChangeEvent event = new GraphChangeEvent();
+        event.begin();
+
+        AdjacencyListHead head1 = getHead(node1);
+        AdjacencyListHead head2 = getHead(node2);
+
+        //Adjacent has no equals, so the link is looked for by neighbor; a link to itself is added to the list twice
+        boolean linked = false;
+        for (Adjacent adjacent : head1.getAdjacencyList()) {
+            if (adjacent.getNeighbor() == node2) {
+                linked = true;
+                break;
             }
-
-            if (nodes.getNetNode() == node2) {
-                foundNode2 = true;
-                Adjacent adjacent = new Adjacent(node1, weight);
-
-                if (!nodes.getAdjacencyList().contains(adjacent)) {
-
-                    nodes.getAdjacencyList().add(adjacent);
-                }
-
-
+        }
+        if (!linked) {
+            int degree1 = head1.getAdjacencyList().size();
+            head1.getAdjacencyList().add(new Adjacent(node2, weight));
+            degreeChanged(degree1, head1.getAdjacencyList().size());
+
+            int degree2 = head2.getAdjacencyList().size();
+            head2.getAdjacencyList().add(new Adjacent(node1, weight));
+            degreeChanged(degree2, head2.getAdjacencyList().size());
+            changed();
+            for (NetGraphListener listener : listeners) {
+                listener.linkAdded(node1, node2, weight);
             }
         }
-
-        if (!foundNode1 || !foundNode2) {
-            throw new IllegalArgumentException();
+        if (timed) {
+            ADD_LINK.recordSince(start);
         }
-
-
+        commit(event, "addLink", node1, node2);
     }
 
     /**
      * Deletes a particular node from the NetGraph and all edges containing it from the different adjacency lists.
+     * Only the lists of its neighbors are walked, each up to the entry of the node, so the deletion takes time in
+     * the degree of the node plus the positions of the node in the lists of its neighbors, at most the sum of their
+     * degrees, rather than in the size of the graph. The last node of the list takes the place of the deleted one,
+     * which changes its index; every other node keeps its index.
      *
      * @param node the NetNode to be deleted from the graph.
      * @throws IllegalArgumentException if the node does not exist in the graph or if it is null.
@@ -156,20 +236,45 @@ public class NetGraph {
         //Implement this method
         //deletes a particular  node from the NetGraph. Remember to delete all edges containing it from the different adjacency lists
         //You should check if node exists in the graph and that it is not null or else you should raise an IllegalArgumentException
-        AdjacencyListHead listNode = new AdjacencyListHead(node);
-
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getNetNode() == node) {
-                nodesList.remove(listNode);
+        int index = getNodeIndex(node);
+        LinkedList<Adjacent> adjacents = nodesList.get(index).getAdjacencyList();
+
+        //links are kept in both lists, so every entry of the node has exactly one entry of the node in a neighbor's list
+        for (Adjacent adjacent : adjacents) {
+            int neighbor = nodeIndex.get(adjacent.getNeighbor().getId());
+            if (neighbor == -1 || neighbor == index) {
+                continue;
             }
-            nodes.getAdjacencyList().removeIf(adjacent -> adjacent.getNeighbor() == node);
-
+            LinkedList<Adjacent> neighborAdjacents = nodesList.get(neighbor).getAdjacencyList();
+            int degree = neighborAdjacents.size();
+            Iterator<Adjacent> iterator = neighborAdjacents.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getNeighbor() == node) {
+                    iterator.remove();
+                    degreeChanged(degree, degree - 1);
+                    break;
+                }
+            }
+        }
+        degreeRemoved(adjacents.size());
+
+        //the last node fills the hole, so that no other node moves
+        int last = nodesList.size() - 1;
+        if (index != last) {
+            AdjacencyListHead moved = nodesList.get(last);
+            nodesList.set(index, moved);
+            nodeIndex.put(moved.getNetNode().getId(), index);
+        }
+        nodesList.remove(last);
+        nodeIndex.remove(node.getId());
+        changed();
+        for (NetGraphListener listener : listeners) {
+            listener.nodeDeleted(node);
         }
-        throw new IllegalArgumentException();
     }
 
     /**
-     * Deletes a link between two nodes in the NetGraph.
+     * Deletes a link between two nodes in the NetGraph. Nothing changes if the nodes are not linked.
      *
      * @param node1 the first node.
      * @param node2 the second node.
@@ -181,53 +286,310 @@ public class NetGraph {
         //deletes a link between two  nodes in the NetGraph.
         //You should check if the nodes exist in the graph and that they are not null or else you should raise an IllegalArgumentException.
 
-        //flags to check if node1 and node2 are found in the graph.
-        boolean foundNode1 = false;
-        boolean foundNode2 = false;
-
-        //Loop through all the nodes in the graph to find node1 and node2.
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getNetNode() == node1) {
-                foundNode1 = true;
-
-                //Get the adjacency list of node1 and find the adjacent node that is equal to node2.
-                LinkedList<Adjacent> adjacents = nodes.getAdjacencyList();
-                Adjacent neighbor = adjacents
-                        .stream()
-                        .filter(adjacent -> adjacent.getNeighbor() == node2)
-                        .findFirst()
-                        .orElse(null);
-
-                // If the adjacent node is found, remove it from the adjacency list of node1.
-                if (neighbor != null) {
-                    adjacents.remove(neighbor);
-                }
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        GraphChangeEvent event = new GraphChangeEvent();
+        event.begin();
+
+        //Find node1 and node2 in the graph; an IllegalArgumentException is raised if either is missing.
+        AdjacencyListHead head1 = getHead(node1);
+        AdjacencyListHead head2 = getHead(node2);
+
+        // Remove node2 from the adjacency list of node1 and node1 from the adjacency list of node2.
+        int degree1 = head1.getAdjacencyList().size();
+        boolean removed = head1.getAdjacencyList().removeIf(adjacent -> adjacent.getNeighbor() == node2);
+        degreeChanged(degree1, head1.getAdjacencyList().size());
+        int degree2 = head2.getAdjacencyList().size();
+        removed |= head2.getAdjacencyList().removeIf(adjacent -> adjacent.getNeighbor() == node1);
+        degreeChanged(degree2, head2.getAdjacencyList().size());
+        //as with addLink, nothing changes and no listener hears of it if the nodes were not linked
+        if (removed) {
+            changed();
+            for (NetGraphListener listener : listeners) {
+                listener.linkRemoved(node1, node2);
+            }
+        }
+        if (timed) {
+            REMOVE_LINK.recordSince(start);
+        }
+        commit(event, "removeLink", node1, node2);
+    }
 
+    /**
+     * Applies a batch of link insertions and removals in one pass. The result is the same as making the changes
+     * of the batch one by one with addLink and removeLink: repeated changes of a pair of nodes are merged first,
+     * so that only the last removal and the first addition after it count, and then every adjacency list touched
+     * by the batch is walked once. Pairs and their ends are sorted as packed long keys by a radix sort, so the
+     * batch costs O(B + D), where B is the number of changes and D the total degree of the nodes they touch, with
+     * a pass over the changes for every 11 bits of the keys but none over the graph; changes of single links are faster through addLink and removeLink. A link removed
+     * and added again with the weight it had is left alone. Listeners are notified of every link added, updated
+     * or removed once the whole batch is applied.
+     *
+     * @param batch the changes.
+     * @return the number of links added, updated or removed.
+     * @throws IllegalArgumentException if the batch is null or names a node that does not exist in the graph,
+     *                                  in which case nothing changes.
+     */
+    public int apply(GraphBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException();
+        }
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        int size = batch.size();
+
+        //every pair is kept as the key lower << shift | higher of the indexes of its nodes
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(1, nodesList.size() - 1));
+        long mask = (1L << shift) - 1;
+        long[] keys = new long[size];
+        for (int k = 0; k < size; k++) {
+            int index1 = nodeIndex.get(batch.getId1(k));
+            int index2 = nodeIndex.get(batch.getId2(k));
+            if (index1 == -1 || index2 == -1) {
+                throw new IllegalArgumentException();
             }
+            keys[k] = (long) Math.min(index1, index2) << shift | Math.max(index1, index2);
+        }
 
-            if (nodes.getNetNode() == node2) {
-                foundNode2 = true;
+        //merge the changes of every pair into one; the sort is stable, so they come in batch order
+        int[] order = sortOrder(keys, size, 2 * shift);
+        int numPairs = 0;
+        long[] pairKeys = new long[size];
+        double[] pairWeights = new double[size];
+        byte[] effects = new byte[size];
+        for (int p = 0; p < size; p++) {
+            int k = order[p];
+            if (numPairs == 0 || keys[k] != pairKeys[numPairs - 1]) {
+                pairKeys[numPairs++] = keys[k];
+            }
+            int pair = numPairs - 1;
+            if (batch.isRemoval(k)) {
+                effects[pair] = REMOVE;
+            } else if (effects[pair] == 0 || effects[pair] == REMOVE) {
+                //the first addition, or the first since the last removal, which then replaces any weight
+                effects[pair] = effects[pair] == 0 ? ADD : SET;
+                pairWeights[pair] = batch.getWeight(k);
+            }
+        }
 
-                //Get the adjacency list of node2 and find the adjacent node that is equal to node1.
-                LinkedList<Adjacent> adjacents = nodes.getAdjacencyList();
+        //both ends of every pair as node << shift | partner, sorted so the ends of a node come together by partner
+        long[] endKeys = new long[2 * numPairs];
+        int[] endPairs = new int[2 * numPairs];
+        int numEnds = 0;
+        for (int pair = 0; pair < numPairs; pair++) {
+            int lower = (int) (pairKeys[pair] >>> shift);
+            int higher = (int) (pairKeys[pair] & mask);
+            endKeys[numEnds] = pairKeys[pair];
+            endPairs[numEnds++] = pair;
+            if (higher != lower) {
+                endKeys[numEnds] = (long) higher << shift | lower;
+                endPairs[numEnds++] = pair;
+            }
+        }
+        order = sortOrder(endKeys, numEnds, 2 * shift);
+        long[] ends = new long[numEnds];
+        int[] pairs = new int[numEnds];
+        for (int e = 0; e < numEnds; e++) {
+            ends[e] = endKeys[order[e]];
+            pairs[e] = endPairs[order[e]];
+        }
 
-                Adjacent neighbor = adjacents
-                        .stream()
-                        .filter(adjacent -> adjacent.getNeighbor() == node1)
-                        .findFirst()
-                        .orElse(null);
+        //walk every touched list once; whether a pair is linked is found at its lower node, which comes first
+        boolean[] linked = new boolean[numPairs];
+        NetNode[] partners = new NetNode[FEW_ENDS];
+        for (int first = 0, last; first < numEnds; first = last) {
+            int i = (int) (ends[first] >>> shift);
+            last = first + 1;
+            while (last < numEnds && (int) (ends[last] >>> shift) == i) {
+                last++;
+            }
+            LinkedList<Adjacent> adjacents = nodesList.get(i).getAdjacencyList();
+            int degree = adjacents.size();
+            boolean few = last - first <= FEW_ENDS;
+            if (few) {
+                for (int e = first; e < last; e++) {
+                    partners[e - first] = nodesList.get((int) (ends[e] & mask)).getNetNode();
+                }
+            }
+            for (Iterator<Adjacent> iterator = adjacents.iterator(); iterator.hasNext(); ) {
+                Adjacent adjacent = iterator.next();
+                int e = -1;
+                if (few) {
+                    //comparing the neighbor with a few nodes is cheaper than looking up its index
+                    for (int f = first; f < last; f++) {
+                        if (adjacent.getNeighbor() == partners[f - first]) {
+                            e = f;
+                            break;
+                        }
+                    }
+                } else {
+                    long key = (long) i << shift | nodeIndex.get(adjacent.getNeighbor().getId());
+                    e = Math.max(-1, Arrays.binarySearch(ends, first, last, key));
+                }
+                if (e == -1) {
+                    continue;
+                }
+                int pair = pairs[e];
+                if ((int) (pairKeys[pair] >>> shift) == i && !linked[pair]) {
+                    linked[pair] = true;
+                    //setting the weight the link already has changes nothing
+                    if (effects[pair] == SET && adjacent.getWeight() == pairWeights[pair]) {
+                        effects[pair] = ADD;
+                    }
+                }
+                if (effects[pair] == REMOVE) {
+                    iterator.remove();
+                } else if (effects[pair] == SET) {
+                    adjacent.setWeight(pairWeights[pair]);
+                }
+            }
+            for (int e = first; e < last; e++) {
+                int pair = pairs[e];
+                int j = (int) (ends[e] & mask);
+                if (effects[pair] != REMOVE && !linked[pair]) {
+                    NetNode neighbor = nodesList.get(j).getNetNode();
+                    adjacents.add(new Adjacent(neighbor, pairWeights[pair]));
+                    if (j == i) {
+                        adjacents.add(new Adjacent(neighbor, pairWeights[pair]));
+                    }
+                }
+            }
+            degreeChanged(degree, adjacents.size());
+        }
 
-                // If the adjacent node is found, remove it from the adjacency list of node2.
-                if (neighbor != null) {
-                    adjacents.remove(neighbor);
+        int numChanges = 0;
+        for (int pair = 0; pair < numPairs; pair++) {
+            if (linked[pair] ? effects[pair] != ADD : effects[pair] != REMOVE) {
+                numChanges++;
+            }
+        }
+        if (numChanges > 0) {
+            changed();
+        }
+        if (!listeners.isEmpty()) {
+            for (int pair = 0; pair < numPairs; pair++) {
+                NetNode node1 = nodesList.get((int) (pairKeys[pair] >>> shift)).getNetNode();
+                NetNode node2 = nodesList.get((int) (pairKeys[pair] & mask)).getNetNode();
+                for (NetGraphListener listener : listeners) {
+                    if (!linked[pair]) {
+                        if (effects[pair] != REMOVE) {
+                            listener.linkAdded(node1, node2, pairWeights[pair]);
+                        }
+                    } else if (effects[pair] == REMOVE) {
+                        listener.linkRemoved(node1, node2);
+                    } else if (effects[pair] == SET) {
+                        listener.linkUpdated(node1, node2, pairWeights[pair]);
+                    }
                 }
             }
         }
+        if (timed) {
+            APPLY.recordSince(start);
+        }
+        return numChanges;
+    }
+
+    /**
+     * Returns the indexes of the first size keys, all below 2^bits, in the order of their keys, keeping equal keys
+     * in index order. A least significant digit radix sort takes a pass over the keys for every RADIX_BITS bits.
+     */
+    private static int[] sortOrder(long[] keys, int size, int bits) {
+        int[] order = new int[size];
+        for (int k = 0; k < size; k++) {
+            order[k] = k;
+        }
+        int[] buffer = new int[size];
+        int[] counts = new int[RADIX];
+        for (int low = 0; low < bits; low += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int k = 0; k < size; k++) {
+                counts[(int) (keys[k] >>> low) & (RADIX - 1)]++;
+            }
+            for (int digit = 0, sum = 0; digit < RADIX; digit++) {
+                int count = counts[digit];
+                counts[digit] = sum;
+                sum += count;
+            }
+            for (int p = 0; p < size; p++) {
+                int k = order[p];
+                buffer[counts[(int) (keys[k] >>> low) & (RADIX - 1)]++] = k;
+            }
+            int[] sorted = buffer;
+            buffer = order;
+            order = sorted;
+        }
+        return order;
+    }
+
+    /**
+     * Commits the event of a change of a link, if JFR is recording it.
+     */
+    private static void commit(GraphChangeEvent event, String operation, NetNode node1, NetNode node2) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.node1 = node1.getId();
+            event.node2 = node2.getId();
+            event.commit();
+        }
+    }
 
-        // If either node1 or node2 is not found in the graph, raise an IllegalArgumentException.
-        if (!foundNode1 || !foundNode2) {
+    /**
+     * Changes the weight of an existing link between two nodes in the NetGraph.
+     *
+     * @param node1  the first node.
+     * @param node2  the second node.
+     * @param weight the new weight of the link.
+     * @throws IllegalArgumentException if either node is null or does not exist in the graph, or if they are not linked.
+     */
+    public void updateLink(NetNode node1, NetNode node2, double weight) {
+        boolean found = false;
+        for (Adjacent adjacent : getHead(node1).getAdjacencyList()) {
+            if (adjacent.getNeighbor() == node2) {
+                adjacent.setWeight(weight);
+                found = true;
+            }
+        }
+        for (Adjacent adjacent : getHead(node2).getAdjacencyList()) {
+            if (adjacent.getNeighbor() == node1) {
+                adjacent.setWeight(weight);
+            }
+        }
+        if (!found) {
             throw new IllegalArgumentException();
         }
+        changed();
+        for (NetGraphListener listener : listeners) {
+            listener.linkUpdated(node1, node2, weight);
+        }
+    }
+
+    /**
+     * Moves a node of the NetGraph to new coordinates. Links and their weights are not changed.
+     *
+     * @param node         the node to be moved.
+     * @param x_coordinate the new x coordinate of the node.
+     * @param y_coordinate the new y coordinate of the node.
+     * @throws IllegalArgumentException if the node does not exist in the graph or is null.
+     */
+    public void moveNetNode(NetNode node, double x_coordinate, double y_coordinate) {
+        getNodeIndex(node);
+        node.setX_coordinate(x_coordinate);
+        node.setY_coordinate(y_coordinate);
+        changed();
+        for (NetGraphListener listener : listeners) {
+            listener.nodeMoved(node);
+        }
+    }
+
+    /**
+     * Returns the node of the graph with the given id.
+     *
+     * @param id the id of the node.
+     * @return the NetNode with that id, or null if there is no such node in the graph.
+     */
+    public NetNode getNetNode(int id) {
+        int index = nodeIndex.get(id);
+        return index == -1 ? null : nodesList.get(index).getNetNode();
     }
 
     /**
@@ -242,19 +604,19 @@ public class NetGraph {
 
         //Implement this method
         //returns a LinkedList containing the Adjacent Objects representing the neighbors of a particular node and the weights of the link
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getNetNode() == node) {
-                return nodes.getAdjacencyList();
-            }
-
+        if (!Metrics.isEnabled()) {
+            return getHead(node).getAdjacencyList();
         }
-        throw new IllegalArgumentException();
-
+        long start = System.nanoTime();
+        LinkedList<Adjacent> adjacents = getHead(node).getAdjacencyList();
+        GET_ADJACENTS.recordSince(start);
+        return adjacents;
 
     }
 
     /**
-     * Returns the index in the nodesList ArrayList of a particular node.
+     * Returns the index in the nodesList ArrayList of a particular node. The index stays the same until the node
+     * is deleted, except for the last node of the list, which takes the place of any other node that is deleted.
      *
      * @param node the NetNode whose index in the nodesList ArrayList is to be returned.
      * @return the index of the given node in the nodesList ArrayList.
@@ -265,19 +627,27 @@ public class NetGraph {
         //Implement this method
         //returns the index in the nodesList ArrayList of a particular node.
         //You should check if node exists in the graph and that it is not null or else you should raise an IllegalArgumentException
-        int index = -1;
-
-        for (int i = 0; i < nodesList.size(); i++) {
-            if (nodesList.get(i).getNetNode() == node) {
-                index = i;
-            }
+        if (node == null) {
+            throw new IllegalArgumentException();
         }
-        if (index == -1) {
+        int index = nodeIndex.get(node.getId());
+        if (index == -1 || nodesList.get(index).getNetNode() != node) {
             throw new IllegalArgumentException();
         }
         return index;
     }
 
+    /**
+     * Returns the AdjacencyListHead of a particular node.
+     *
+     * @param node the node whose AdjacencyListHead is to be returned.
+     * @return the AdjacencyListHead holding the node in nodesList.
+     * @throws IllegalArgumentException if the node is not found in the graph or is null.
+     */
+    private AdjacencyListHead getHead(NetNode node) {
+        return nodesList.get(getNodeIndex(node));
+    }
+
     /**
      * Returns the degree(the number of its adjacent nodes) of a given node in the NetGraph.
      *
@@ -290,33 +660,138 @@ public class NetGraph {
         //Implement this method
         //returns the number of adjacent nodes of a particular  node
         ////You should check if node exists in the graph and that it is not null or else you should raise an IllegalArgumentException
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getNetNode() == node) {
-                return nodes.getAdjacencyList().size();
-            }
-
-        }
-        throw new IllegalArgumentException();
-
+        return getHead(node).getAdjacencyList().size();
     }
 
     /**
-     * Returns the maximum number of adjacent nodes connected to any node in the graph.
+     * Returns the maximum number of adjacent nodes connected to any node in the graph. It is kept up to date,
+     * through the number of nodes of every degree, by every change made through NetGraph.
      *
      * @return the max degree of the graph.
      */
     public int getGraphMaxDegree() {
         //Implement this method
         //returns the maximum number of adjacent nodes connected to a particular node
-        int max = 0;
-        for (AdjacencyListHead nodes : nodesList) {
-            if (nodes.getAdjacencyList().size() > max) {
-                max = nodes.getAdjacencyList().size();
+        return maxDegree;
+    }
+
+    /**
+     * Returns the average number of adjacent nodes of the nodes in the graph.
+     *
+     * @return the average degree, or 0 if the graph has no nodes.
+     */
+    public double getAverageDegree() {
+        return nodesList.isEmpty() ? 0 : (double) numEntries / nodesList.size();
+    }
+
+    /**
+     * Returns the number of nodes of the graph without any adjacent node.
+     *
+     * @return the number of isolated nodes.
+     */
+    public int getNumIsolatedNodes() {
+        return degreeCounts[0];
+    }
+
+    /**
+     * Returns the number of nodes of every degree.
+     *
+     * @return a new array whose element d is the number of nodes of degree d, up to the max degree of the graph.
+     */
+    public int[] getDegreeHistogram() {
+        return Arrays.copyOf(degreeCounts, maxDegree + 1);
+    }
+
+    /**
+     * Estimates the average local clustering coefficient of the nodes with at least two adjacent nodes: the chance
+     * that two neighbors of such a node are linked themselves. Every sample picks one of those nodes and two of its
+     * neighbors at random and checks whether they are linked, so the cost depends on the number of samples and the
+     * degrees, not on the size of the graph, and the estimate is within sqrt(ln(2 / delta) / (2 * samples)) of the
+     * exact value with probability 1 - delta, about 0.014 with 95% confidence for 10000 samples.
+     *
+     * @param samples the number of samples.
+     * @param seed    the seed of the random choices.
+     * @return the estimated clustering coefficient, or 0 if no node has two adjacent nodes.
+     * @throws IllegalArgumentException if samples is not positive.
+     */
+    public double estimateClusteringCoefficient(int samples, long seed) {
+        if (samples < 1) {
+            throw new IllegalArgumentException();
+        }
+        int numNodes = nodesList.size();
+        if (numNodes == degreeCounts[0] + degreeCounts[1]) {
+            return 0;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int closed = 0;
+        for (int s = 0; s < samples; s++) {
+            LinkedList<Adjacent> adjacents;
+            do {
+                adjacents = nodesList.get(random.nextInt(numNodes)).getAdjacencyList();
+            } while (adjacents.size() < 2);
+            int a = random.nextInt(adjacents.size());
+            int b = random.nextInt(adjacents.size() - 1);
+            if (b >= a) {
+                b++;
+            }
+            if (linked(adjacents.get(a).getNeighbor(), adjacents.get(b).getNeighbor())) {
+                closed++;
+            }
+        }
+        return (double) closed / samples;
+    }
+
+    /**
+     * Returns whether two nodes of the graph are linked, walking the shorter of their adjacency lists.
+     */
+    private boolean linked(NetNode node1, NetNode node2) {
+        LinkedList<Adjacent> adjacents1 = getHead(node1).getAdjacencyList();
+        LinkedList<Adjacent> adjacents2 = getHead(node2).getAdjacencyList();
+        if (adjacents2.size() < adjacents1.size()) {
+            adjacents1 = adjacents2;
+            node2 = node1;
+        }
+        for (Adjacent adjacent : adjacents1) {
+            if (adjacent.getNeighbor() == node2) {
+                return true;
             }
         }
+        return false;
+    }
 
+    /**
+     * Records a node of the given degree joining the graph.
+     */
+    private void degreeAdded(int degree) {
+        if (degree >= degreeCounts.length) {
+            degreeCounts = Arrays.copyOf(degreeCounts, Math.max(degree + 1, degreeCounts.length * 2));
+        }
+        degreeCounts[degree]++;
+        maxDegree = Math.max(maxDegree, degree);
+        numEntries += degree;
+    }
+
+    /**
+     * Records a node of the given degree leaving the graph. If it was the last node of the max degree,
+     * the max degree goes down to the next degree with a node.
+     */
+    private void degreeRemoved(int degree) {
+        degreeCounts[degree]--;
+        numEntries -= degree;
+        while (maxDegree > 0 && degreeCounts[maxDegree] == 0) {
+            maxDegree--;
+        }
+    }
 
-        return max;
+    /**
+     * Records the degree of a node changing.
+     */
+    private void degreeChanged(int from, int to) {
+        //adding first stops the max degree from walking down and back up when the largest node grows
+        if (from != to) {
+            degreeAdded(to);
+            degreeRemoved(from);
+        }
     }
 
     /**
@@ -330,14 +805,63 @@ public class NetGraph {
         //Implement this method
         //returns an NetNode object from the index of the node in nodesList ArrayList
 
-        for (int i = 0; i < nodesList.size(); i++) {
-            if (index == i) {
-                return nodesList.get(i).getNetNode();
-            }
+        if (index < 0 || index >= nodesList.size()) {
+            return null;
         }
-        return null;
+        return nodesList.get(index).getNetNode();
+    }
+
+
+    /**
+     * Returns the modification version of the graph. It increases every time the graph is changed through
+     * insertNetNode, addLink, removeLink, updateLink, moveNetNode or deleteNetNode, so a result computed at one
+     * version is still valid as long as the version stays the same.
+     *
+     * @return the current version of the graph.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Registers a listener to be notified of every later change made through the methods of the graph.
+     *
+     * @param listener the listener to be added.
+     */
+    public void addListener(NetGraphListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to be removed.
+     */
+    public void removeListener(NetGraphListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records a change of the graph: the version goes up and the cached snapshot is dropped.
+     */
+    private void changed() {
+        version++;
+        snapshot = null;
     }
 
+    /**
+     * Returns an immutable compressed sparse row snapshot of the graph for read-heavy algorithms.
+     * The snapshot is built once and returned again by later calls until the version of the graph changes. Changes made directly to the lists returned by
+     * getNodesList or getAdjacents are not detected.
+     *
+     * @return the snapshot of the current graph.
+     */
+    public CsrGraph freeze() {
+        if (snapshot == null) {
+            snapshot = CsrGraph.of(this);
+        }
+        return snapshot;
+    }
 
     /**
      * Returns a String representation of the network graph in the adjacency list format.
@@ -355,29 +879,15 @@ public class NetGraph {
             E:{(A,0.5),(B,2)}
         */
 
-        StringBuilder stringBuilder = new StringBuilder();
-
-        for (AdjacencyListHead nodes : nodesList) {
-            stringBuilder.append(nodes.getNetNode().getName());
-            stringBuilder.append(": {");
-            int count = 0;
-            List<Adjacent> adjacents = nodes.getAdjacencyList();
-            for (int i = 0; i < adjacents.size(); i++) {
-                stringBuilder.append("(");
-                Adjacent adjacent = adjacents.get(i);
-                stringBuilder.append(adjacent.getNeighbor().getName());
-                stringBuilder.append(",");
-                stringBuilder.append(adjacent.getWeight());
-                stringBuilder.append(")");
-                if (count < adjacents.size() - 1) {
-                    stringBuilder.append(", ");
-                }
-                count++;
-            }
-            stringBuilder.append("}");
-            stringBuilder.append("\n");
+        //The whole text is built in memory; use GraphExporter to stream large graphs to a Writer instead
+        StringWriter writer = new StringWriter();
+        try {
+            GraphExporter.writeAdjacencyList(this, writer);
+        } catch (IOException e) {
+            //a StringWriter never throws
+            throw new UncheckedIOException(e);
         }
-        return stringBuilder.toString();
+        return writer.toString();
     }
 
 }
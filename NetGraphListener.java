@@ -0,0 +1,59 @@
+/**
+ * A listener notified of every change made to a NetGraph through its methods, after the change is done.
+ * All methods do nothing by default, so a listener only overrides the changes it cares about.
+ */
+public interface NetGraphListener {
+
+    /**
+     * Called after a node is added to the graph.
+     *
+     * @param node the new node.
+     */
+    default void nodeInserted(NetNode node) {
+    }
+
+    /**
+     * Called after a node and all its links are deleted from the graph.
+     *
+     * @param node the deleted node.
+     */
+    default void nodeDeleted(NetNode node) {
+    }
+
+    /**
+     * Called after a link is added between two nodes.
+     *
+     * @param node1  the first node.
+     * @param node2  the second node.
+     * @param weight the weight of the link.
+     */
+    default void linkAdded(NetNode node1, NetNode node2, double weight) {
+    }
+
+    /**
+     * Called after the link between two nodes is removed.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     */
+    default void linkRemoved(NetNode node1, NetNode node2) {
+    }
+
+    /**
+     * Called after the weight of the link between two nodes changes.
+     *
+     * @param node1  the first node.
+     * @param node2  the second node.
+     * @param weight the new weight of the link.
+     */
+    default void linkUpdated(NetNode node1, NetNode node2, double weight) {
+    }
+
+    /**
+     * Called after a node moves to new coordinates.
+     *
+     * @param node the moved node.
+     */
+    default void nodeMoved(NetNode node) {
+    }
+}
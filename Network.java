@@ -1,16 +1,43 @@
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
 
 
 
 public class Network {
+
+    /**
+     * By default two nodes are linked when the distance between them is at most RADIO_RANGE.
+     */
+    public static final double RADIO_RANGE = 20 * Math.sqrt(2);
+
+    /**
+     * The number of nodes whose links a task decides when a network is linked in parallel.
+     */
+    private static final int NODES_PER_TASK = 4096;
+
+    /**
+     * The metrics of the searches of every Network, recorded while Metrics is enabled.
+     */
+    private static final LatencyHistogram SHORTEST_PATH = Metrics.histogram("Network.getShortestPath");
+    private static final LatencyHistogram SPANNING_FOREST = Metrics.histogram("Network.minSpanningForest");
+    private static final LongAdder SETTLED_NODES = Metrics.counter("ShortestPath.settledNodes");
+    private static final LongAdder RELAXATIONS = Metrics.counter("ShortestPath.relaxations");
+    private static final LongAdder HEAP_OPERATIONS = Metrics.counter("ShortestPath.heapOperations");
+
     private NetGraph networkGraph;
 
+    /**
+     * The model that decided the links of the network.
+     */
+    private PropagationModel propagationModel;
+
 
 
     public Network() {
         //Default constructor creates an Network consisting of 1000 nodes located in an area of 200x200
-        Network sampleNetwork = new Network(1000, 200);
+        this(1000, 200);
     }
 
     /**
@@ -22,29 +49,340 @@ public class Network {
      */
 
     public Network(int numofNodes, double side) {
-        ArrayList<AdjacencyListHead> nodesList = new ArrayList<AdjacencyListHead>();
+        this(numofNodes, side, new Random(), new UnitDiskModel(RADIO_RANGE));
+    }
+
+    /**
+     * Constructs a new Network object like Network(numofNodes, side), placing the nodes with a random number
+     * generator started from the given seed, so the same seed always gives the same network.
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side the side length of the square area in which the nodes will be placed.
+     * @param seed the seed of the node positions.
+     */
+
+    public Network(int numofNodes, double side, long seed) {
+        this(numofNodes, side, new Random(seed), new UnitDiskModel(RADIO_RANGE));
+    }
+
+    /**
+     * Constructs a new Network object like Network(numofNodes, side, seed), with links decided by the given
+     * propagation model instead of the radio range.
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side the side length of the square area in which the nodes will be placed.
+     * @param seed the seed of the node positions.
+     * @param model the model deciding which nodes are linked and the weights of the links.
+     */
+
+    public Network(int numofNodes, double side, long seed, PropagationModel model) {
+        this(numofNodes, side, new Random(seed), model);
+    }
+
+    private Network(int numofNodes, double side, Random random, PropagationModel model) {
+        this(generate(numofNodes, side, random, model).toNetGraph(), model);
+    }
+
+    /**
+     * Constructs a new Network object around a graph whose links were decided by the given model.
+     * @param networkGraph the graph of the network.
+     * @param model the model that decided the links.
+     */
+    Network(NetGraph networkGraph, PropagationModel model) {
+        this.networkGraph = networkGraph;
+        this.propagationModel = model;
+    }
+
+    /**
+     * Builds the graph of a Network(numofNodes, side, seed) straight into a CompactGraph, without making a NetNode
+     * or Adjacent object, so networks of millions of nodes fit in memory.
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side the side length of the square area in which the nodes will be placed.
+     * @param seed the seed of the node positions.
+     * @return the graph of the network, with the same nodes and links in the same order as the Network.
+     */
+    public static CompactGraph compactGraph(int numofNodes, double side, long seed) {
+        return compactGraph(numofNodes, side, seed, new UnitDiskModel(RADIO_RANGE));
+    }
+
+    /**
+     * Builds the graph of a Network(numofNodes, side, seed, model) straight into a CompactGraph.
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side the side length of the square area in which the nodes will be placed.
+     * @param seed the seed of the node positions.
+     * @param model the model deciding which nodes are linked and the weights of the links.
+     * @return the graph of the network, with the same nodes and links in the same order as the Network.
+     */
+    public static CompactGraph compactGraph(int numofNodes, double side, long seed, PropagationModel model) {
+        return generate(numofNodes, side, new Random(seed), model);
+    }
+
+    private static CompactGraph generate(int numofNodes, double side, Random random, PropagationModel model) {
+        double[] x_coordinates = new double[numofNodes];
+        double[] y_coordinates = new double[numofNodes];
         for (int i = 0; i < numofNodes; i++) {
-            double x_coordinate = side * Math.random();
-            double y_coordinate = side * Math.random();
-            int id = i;
-            String name = "node " + i;
-            NetNode node = new NetNode(id, name, x_coordinate, y_coordinate);
-            nodesList.add(new AdjacencyListHead(node));
-
-        }
-        networkGraph = new NetGraph(nodesList);
-
-        //Iterate over all the node pairs in the graph and connect the nodes with a distance <=20root2  with links
-        for (int i = 0; i < networkGraph.getNumNodes(); i++) {
-            NetNode node1 = networkGraph.nodeFromIndex(i);
-            for (int j = i + 1; j < networkGraph.getNumNodes(); j++) {
-                NetNode node2 = networkGraph.nodeFromIndex(j);
-                double distance = euclideanDistance(node1, node2);
-                if (distance <= 20 * Math.sqrt(2)) {
-                    networkGraph.addLink(node1, node2, distance);
+            x_coordinates[i] = side * random.nextDouble();
+            y_coordinates[i] = side * random.nextDouble();
+        }
+        return link(x_coordinates, y_coordinates, model, false);
+    }
+
+    /**
+     * Links placed nodes with the given model. Node i gets id i, the name "node " + i and the coordinates
+     * x_coordinates[i] and y_coordinates[i], which are used as they are, not copied.
+     * The neighbors of every node are sorted by index, and the graph is the same whether it is built in
+     * parallel or not.
+     * @param x_coordinates the x coordinates of the nodes.
+     * @param y_coordinates the y coordinates of the nodes.
+     * @param model the model deciding which nodes are linked and the weights of the links.
+     * @param parallel true to decide the links of blocks of nodes on the common fork-join pool.
+     * @return the graph of the nodes.
+     */
+    static CompactGraph link(double[] x_coordinates, double[] y_coordinates, PropagationModel model, boolean parallel) {
+        int numofNodes = x_coordinates.length;
+        int[] ids = new int[numofNodes];
+        for (int i = 0; i < numofNodes; i++) {
+            ids[i] = i;
+        }
+
+        //Bucket the nodes into a grid of cells as large as the range of the model, so that every node only has to be
+        //compared with the nodes in its own cell and the eight cells around it
+        SpatialGrid grid = new SpatialGrid(x_coordinates, y_coordinates, model.getRange());
+        boolean symmetric = model.isSymmetric();
+        int[] offsets = new int[numofNodes + 1];
+        int[] targets;
+        double[] weights;
+        if (parallel) {
+            //every node hears all its candidates and only writes its own list, so blocks of nodes are independent.
+            //The first pass counts the neighbors of every node and the second one places and sorts them
+            int numTasks = (numofNodes + NODES_PER_TASK - 1) / NODES_PER_TASK;
+            AtomicBoolean weighted = new AtomicBoolean();
+            IntStream.range(0, numTasks).parallel().forEach(task -> {
+                LinkBatch batch = new LinkBatch(x_coordinates, y_coordinates, grid, model);
+                for (int i = task * NODES_PER_TASK; i < Math.min(numofNodes, (task + 1) * NODES_PER_TASK); i++) {
+                    int heard = batch.hear(i, -1);
+                    offsets[i + 1] = heard;
+                    if (!weighted.get() && !batch.weighsDistances(i, heard)) {
+                        weighted.set(true);
+                    }
+                }
+            });
+            for (int i = 0; i < numofNodes; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            targets = new int[offsets[numofNodes]];
+            weights = weighted.get() ? new double[offsets[numofNodes]] : null;
+            int[] placed = targets;
+            double[] placedWeights = weights;
+            IntStream.range(0, numTasks).parallel().forEach(task -> {
+                LinkBatch batch = new LinkBatch(x_coordinates, y_coordinates, grid, model);
+                for (int i = task * NODES_PER_TASK; i < Math.min(numofNodes, (task + 1) * NODES_PER_TASK); i++) {
+                    int heard = batch.hear(i, -1);
+                    System.arraycopy(batch.candidates, 0, placed, offsets[i], heard);
+                    if (placedWeights != null) {
+                        System.arraycopy(batch.weights, 0, placedWeights, offsets[i], heard);
+                    }
+                    sortNeighbors(offsets[i], offsets[i + 1], placed, placedWeights);
                 }
+            });
+        } else {
+            //A symmetric model only looks at the candidates with a greater index and links both ends at once.
+            //The first pass counts the neighbors of every node and the second one places them
+            LinkBatch batch = new LinkBatch(x_coordinates, y_coordinates, grid, model);
+            for (int i = 0; i < numofNodes; i++) {
+                int heard = batch.hear(i, symmetric ? i : -1);
+                offsets[i + 1] += heard;
+                for (int k = 0; symmetric && k < heard; k++) {
+                    offsets[batch.candidates[k] + 1]++;
+                }
+            }
+            for (int i = 0; i < numofNodes; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            targets = new int[offsets[numofNodes]];
+            weights = null;
+            int[] next = Arrays.copyOf(offsets, numofNodes);
+            for (int i = 0; i < numofNodes; i++) {
+                int heard = batch.hear(i, symmetric ? i : -1);
+                if (weights == null && !batch.weighsDistances(i, heard)) {
+                    weights = distanceWeights(x_coordinates, y_coordinates, offsets, next, targets);
+                }
+                for (int k = 0; k < heard; k++) {
+                    int j = batch.candidates[k];
+                    place(i, j, batch.weights[k], targets, weights, next);
+                    if (symmetric) {
+                        place(j, i, batch.weights[k], targets, weights, next);
+                    }
+                }
+            }
+            //the neighbors of every node are sorted by index, the order in which the all-pairs scan finds them
+            for (int i = 0; i < numofNodes; i++) {
+                sortNeighbors(offsets[i], offsets[i + 1], targets, weights);
             }
         }
+        if (!symmetric) {
+            //targets now holds the nodes every node hears; keep the links heard at both ends
+            return mutualLinks(ids, x_coordinates, y_coordinates, offsets, targets, weights);
+        }
+        //while every link weighs the distance between its nodes CompactGraph works it out instead of storing it
+        return new CompactGraph(ids, null, x_coordinates, y_coordinates, offsets, targets, weights);
+    }
+
+    /**
+     * The buffers of one thread deciding links: the candidates of a node and their coordinates, distances
+     * and weights.
+     */
+    private static class LinkBatch {
+
+        private final double[] x;
+        private final double[] y;
+        private final SpatialGrid grid;
+        private final PropagationModel model;
+        private final double range;
+        private final int[] candidates;
+        private final double[] batchX;
+        private final double[] batchY;
+        private final double[] distances;
+        private final double[] weights;
+
+        LinkBatch(double[] x, double[] y, SpatialGrid grid, PropagationModel model) {
+            this.x = x;
+            this.y = y;
+            this.grid = grid;
+            this.model = model;
+            this.range = model.getRange();
+            int maxCandidates = grid.maxCandidates();
+            this.candidates = new int[maxCandidates];
+            this.batchX = new double[maxCandidates];
+            this.batchY = new double[maxCandidates];
+            this.distances = new double[maxCandidates];
+            this.weights = new double[maxCandidates];
+        }
+
+        /**
+         * Asks the model which candidates with an index greater than minIndex node i hears. They are left at the
+         * front of candidates, in the order of the grid, with their weights at the front of weights.
+         *
+         * @return the number of nodes heard.
+         */
+        int hear(int i, int minIndex) {
+            int numCandidates = grid.getCandidates(i, minIndex, candidates);
+            DistanceKernel.gather(x, y, candidates, numCandidates, batchX, batchY);
+            DistanceKernel.distances(x[i], y[i], batchX, batchY, numCandidates, distances);
+            numCandidates = DistanceKernel.withinRange(candidates, distances, numCandidates, range);
+            return model.receive(i, candidates, distances, numCandidates, weights);
+        }
+
+        /**
+         * Tells whether the links to the first heard candidates of node i all weigh the distance between their nodes.
+         */
+        boolean weighsDistances(int i, int heard) {
+            for (int k = 0; k < heard; k++) {
+                if (weights[k] != DistanceKernel.distance(x[i], y[i], x[candidates[k]], y[candidates[k]])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static void place(int i, int j, double weight, int[] targets, double[] weights, int[] next) {
+        if (weights != null) {
+            weights[next[i]] = weight;
+        }
+        targets[next[i]++] = j;
+    }
+
+    /**
+     * Sorts a neighbor list by index, moving the weights along if there are any.
+     */
+    private static void sortNeighbors(int from, int to, int[] targets, double[] weights) {
+        if (weights == null) {
+            Arrays.sort(targets, from, to);
+            return;
+        }
+        //insertion sort, since neighbor lists are short
+        for (int k = from + 1; k < to; k++) {
+            int target = targets[k];
+            double weight = weights[k];
+            int position = k;
+            while (position > from && targets[position - 1] > target) {
+                targets[position] = targets[position - 1];
+                weights[position] = weights[position - 1];
+                position--;
+            }
+            targets[position] = target;
+            weights[position] = weight;
+        }
+    }
+
+    /**
+     * Returns the weights of the neighbors placed so far, all distances, with room for the others.
+     */
+    private static double[] distanceWeights(double[] x, double[] y, int[] offsets, int[] next, int[] targets) {
+        double[] weights = new double[targets.length];
+        for (int i = 0; i < next.length; i++) {
+            for (int k = offsets[i]; k < next[i]; k++) {
+                weights[k] = DistanceKernel.distance(x[i], y[i], x[targets[k]], y[targets[k]]);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Builds the graph of the pairs of nodes that hear each other, from the ascending lists of the nodes heard
+     * by every node. A link weighs the larger of the weights given by its two ends.
+     */
+    private static CompactGraph mutualLinks(int[] ids, double[] x, double[] y, int[] heardOffsets, int[] heard,
+                                            double[] heardWeights) {
+        int numofNodes = ids.length;
+        int[] offsets = new int[numofNodes + 1];
+        int[] targets = null;
+        double[] weights = null;
+        int[] next = null;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < numofNodes; i++) {
+                for (int k = heardOffsets[i]; k < heardOffsets[i + 1]; k++) {
+                    int j = heard[k];
+                    int back = j > i ? Arrays.binarySearch(heard, heardOffsets[j], heardOffsets[j + 1], i) : -1;
+                    if (back < 0) {
+                        continue;
+                    }
+                    if (pass == 0) {
+                        offsets[i + 1]++;
+                        offsets[j + 1]++;
+                        continue;
+                    }
+                    double weight = heardWeights == null ? DistanceKernel.distance(x[i], y[i], x[j], y[j])
+                            : Math.max(heardWeights[k], heardWeights[back]);
+                    place(i, j, weight, targets, weights, next);
+                    place(j, i, weight, targets, weights, next);
+                }
+            }
+            if (pass == 0) {
+                for (int i = 0; i < numofNodes; i++) {
+                    offsets[i + 1] += offsets[i];
+                }
+                targets = new int[offsets[numofNodes]];
+                weights = heardWeights == null ? null : new double[offsets[numofNodes]];
+                next = Arrays.copyOf(offsets, numofNodes);
+            }
+        }
+        return new CompactGraph(ids, null, x, y, offsets, targets, weights);
+    }
+
+    /**
+     * Returns the model that decided the links of the network.
+     * @return the propagation model.
+     */
+    public PropagationModel getPropagationModel() {
+        return propagationModel;
+    }
+
+    /**
+     * Returns the graph of the network.
+     * @return the NetGraph holding the nodes and links of the network.
+     */
+    public NetGraph getNetworkGraph() {
+        return networkGraph;
     }
 
     /**
@@ -56,66 +394,53 @@ public class Network {
     double euclideanDistance(NetNode node1, NetNode node2) {
         //Implement this method.
         //returns the Euclidean distance between two nodes node1 and node2.
-        double distance = Math.sqrt(Math.pow(node1.getX_coordinate() - node2.getX_coordinate(), 2)
-                + Math.pow(node1.getY_coordinate() - node2.getY_coordinate(), 2));
-        return distance;
+        return DistanceKernel.distance(node1.getX_coordinate(), node1.getY_coordinate(),
+                node2.getX_coordinate(), node2.getY_coordinate());
     }
 
     /**
      * Calculates the minimum spanning tree of the network using Prim's algorithm.
-     * @return A 2D array representing the minimum spanning tree of the network.
+     * The matrix needs numNodes * numNodes ints, so on large networks use minSpanningForest instead.
+     * @return A 2D array representing the minimum spanning tree of the network, indexed like the nodesList of the
+     * graph. If the network is disconnected it holds one tree per connected component.
      */
     public int[][] minSpanningTree() {
-        //the running time should be <= O(n*n) where n is the number of vertices in the graph
-
-        // Get the number of nodes in the network
-        int numNodes = networkGraph.getNumNodes();
-        // Create a 2D array to store the minimum spanning tree
-        int[][] spanningTree = new int[numNodes][numNodes];
-
-        //keep track of visited nodes, distances, and parents
-        boolean[] visited = new boolean[numNodes];
-        double[] distance = new double[numNodes];
-
-        Arrays.fill(distance, Double.MAX_VALUE);
-
-        distance[0] = 0;
-        int[] parent = new int[numNodes];
-        parent[0] = -1;
-
-        // loop until all nodes have been visited
-        for (int i = 0; i < numNodes; i++) {
-            // find the unvisited node with the smallest distance
-            int minNode = -1;
-            double minDist = Double.POSITIVE_INFINITY;
-            for (int j = 0; j < numNodes; j++) {
-                if (!visited[j] && distance[j] < minDist) {
-                    minNode = j;
-                    minDist = distance[j];
-                }
-            }
+        return minSpanningForest().toAdjacencyMatrix();
+    }
 
-            visited[minNode] = true;
+    /**
+     * Calculates the minimum spanning forest of the network using Prim's algorithm.
+     * @return the links of the minimum spanning forest of the network.
+     */
+    public SpanningForest minSpanningForest() {
+        return minSpanningForest(MstAlgorithm.PRIM);
+    }
 
-            // update the distances and parents of its neighbors
-            for (Adjacent adjacent :
-                    networkGraph.getAdjacents(networkGraph.nodeFromIndex(minNode))) {
-                NetNode neighbor = adjacent.getNeighbor();
-                int neighborIndex = neighbor.getId();
-                if (!visited[neighborIndex] && adjacent.getWeight() < distance[neighborIndex]) {
-                    parent[neighborIndex] = minNode;
-                    distance[neighborIndex] = adjacent.getWeight();
-                }
-            }
-        }
+    /**
+     * Calculates the minimum spanning forest of the network using the given algorithm, in O(E lg V) time.
+     * Node indexes in the result are the indexes of the nodes in the nodesList of the graph.
+     * @param algorithm the algorithm to use.
+     * @return the links of the minimum spanning forest of the network, one tree per connected component.
+     */
+    public SpanningForest minSpanningForest(MstAlgorithm algorithm) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        SpanningForestEvent event = new SpanningForestEvent();
+        event.begin();
 
-        // fill the MST matrix using the parent array
-        for (int i = 1; i < numNodes; i++) {
-            spanningTree[parent[i]][i] = 1;
-            spanningTree[i][parent[i]] = 1;
-        }
+        CsrGraph graph = networkGraph.freeze();
+        SpanningForest forest = MinSpanningForest.compute(graph, algorithm);
 
-        return spanningTree;
+        if (timed) {
+            SPANNING_FOREST.recordSince(start);
+        }
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm.name();
+            event.nodes = graph.getNumNodes();
+            event.links = graph.getNumLinks();
+            event.commit();
+        }
+        return forest;
     }
 
 
@@ -123,79 +448,76 @@ public class Network {
      * Computes the shortest path between two nodes in a network graph using Dijkstra's algorithm.
      * @param node1 the starting node of the shortest path.
      * @param node2 the destination node of the shortest path.
-     * @return an ArrayList of NetNode objects representing the shortest path from node1 to node2.
+     * @return an ArrayList of NetNode objects representing the shortest path from node1 to node2, or an empty
+     * ArrayList if node2 cannot be reached from node1.
      */
 
     public ArrayList<NetNode> getShortestPath(NetNode node1, NetNode node2) {
-        //the running time complexity is O(V lg V) where V is the number of vertices in the graph
-
-        //Create a priority queue to store NetNodeDistance objects in ascending order of distance.
-        PriorityQueue<NetNodeDistance> priorityQueue = new PriorityQueue<>();
-        //Create a map to store the shortest known distance from node1 to each node in the graph.
-        Map<NetNode, Double> distance = new HashMap<>();
-        // Create a map to store the previous node on the shortest known path to each node in the graph
-        Map<NetNode, NetNode> previous = new HashMap<>();
-        // a set to store the nodes that have already been visited.
-        Set<NetNode> visited = new HashSet<>();
-
-        for (int i = 0; i < networkGraph.getNumNodes(); i++) {
-            distance.put(networkGraph.nodeFromIndex(i), Double.MAX_VALUE);
-            previous.put(networkGraph.nodeFromIndex(i), null);
-        }
-
-        distance.put(node1, 0.0);
-        priorityQueue.offer(new NetNodeDistance(node1, 0));
-
-        while (!priorityQueue.isEmpty()) {
-            NetNodeDistance current = priorityQueue.poll();
-            NetNode currentNode = current.node;
-
-            if (currentNode == node2) {
-                ArrayList<NetNode> path = new ArrayList<>();
-                NetNode node = node2;
-                while (node != null) {
-                    path.add(0, node);
-                    node = previous.get(node);
-                }
-                return path;
-            }
-
-            if (visited.contains(currentNode)) {
-                continue;
-            }
-
-            visited.add(currentNode);
-
-            for (Adjacent adjacent : networkGraph.getAdjacents(currentNode)) {
-                NetNode node = adjacent.getNeighbor();
-                double weight = adjacent.getWeight();
+        return getShortestPath(node1, node2, RoutingMode.DIJKSTRA);
+    }
 
-                if (distance.get(currentNode) + weight < distance.get(node)) {
-                    distance.put(node, distance.get(currentNode) + weight);
-                    previous.put(currentNode, node);
-                    priorityQueue.offer(new NetNodeDistance(node, distance.get(node)));
-                }
-            }
+    /**
+     * Computes the shortest path between two nodes in a network graph using the given search algorithm.
+     * Link weights are the distances between their nodes, so A* can use the straight-line distance to node2
+     * to settle far fewer nodes than Dijkstra's algorithm.
+     * @param node1 the starting node of the shortest path.
+     * @param node2 the destination node of the shortest path.
+     * @param mode the search algorithm to use.
+     * @return an ArrayList of NetNode objects representing the shortest path from node1 to node2, or an empty
+     * ArrayList if node2 cannot be reached from node1.
+     */
 
-        }
+    public ArrayList<NetNode> getShortestPath(NetNode node1, NetNode node2, RoutingMode mode) {
+        //the running time complexity is O((V + E) lg V) where V is the number of vertices and E the number of links
 
-        return new ArrayList<>();
+        CsrGraph graph = networkGraph.freeze();
+        int source = networkGraph.getNodeIndex(node1);
+        int target = networkGraph.getNodeIndex(node2);
+        return shortestPath(graph, source, target, mode);
     }
 
-
-    // node class for priority queue
-    private class NetNodeDistance implements Comparable<NetNodeDistance> {
-        NetNode node;
-        double distance;
-
-        NetNodeDistance(NetNode node, double distance) {
-            this.node = node;
-            this.distance = distance;
+    /**
+     * Computes the shortest path between two nodes of a snapshot and records the search in the metrics and
+     * as a ShortestPathEvent.
+     * @param graph the snapshot to search.
+     * @param source the index of the starting node.
+     * @param target the index of the destination node.
+     * @param mode the search algorithm to use.
+     * @return the nodes of the path, or an empty ArrayList if the target cannot be reached.
+     */
+    static ArrayList<NetNode> shortestPath(CsrGraph graph, int source, int target, RoutingMode mode) {
+        boolean timed = Metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        ShortestPathEvent event = new ShortestPathEvent();
+        event.begin();
+
+        //Run the search with the reusable workspace of this thread and read the path back from it
+        ShortestPathWorkspace workspace = ShortestPathEngine.workspace();
+        ShortestPathEngine.shortestPath(graph, source, target, mode, workspace);
+        int length = workspace.extractPath(target);
+
+        ArrayList<NetNode> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(graph.getNode(workspace.getPath()[i]));
         }
 
-        public int compareTo(NetNodeDistance other) {
-            return Double.compare(distance, other.distance);
+        if (timed) {
+            SHORTEST_PATH.recordSince(start);
+            SETTLED_NODES.add(workspace.getNumSettled());
+            RELAXATIONS.add(workspace.getNumRelaxations());
+            HEAP_OPERATIONS.add(workspace.getNumHeapOperations());
+        }
+        if (event.shouldCommit()) {
+            event.mode = mode.name();
+            event.source = graph.getId(source);
+            event.target = graph.getId(target);
+            event.pathLength = length;
+            event.settledNodes = workspace.getNumSettled();
+            event.relaxations = workspace.getNumRelaxations();
+            event.heapOperations = workspace.getNumHeapOperations();
+            event.commit();
         }
+        return path;
     }
 
 }
@@ -0,0 +1,395 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * This class represents the next-hop routing tables of a set of source nodes, as a proactive routing protocol
+ * keeps them: for every source and every destination, the neighbor of the source to forward to.
+ * The tables are computed from one shortest path tree per source, in parallel, each thread reusing its own
+ * ShortestPathWorkspace and scratch arrays.
+ *
+ * A next hop is stored as its port, its position in the neighbor list of the source, plus one, with 0 for the
+ * source itself and for unreachable destinations. So an entry takes one byte when no node has 255 neighbors or
+ * more, two bytes below 65535, and four bytes only beyond, instead of the four bytes of a node index.
+ * The rows are kept in buffers of at most MAP_BYTES, either on the heap or mapped from a file written by write,
+ * which streams the rows to disk in batches so that all-pairs tables of large networks never sit on the heap.
+ *
+ * The file is little-endian and laid out as follows, where r is the number of sources and b the bytes per port:
+ * <pre>
+ *   int    magic, "NHOP"
+ *   int    format version, currently 1
+ *   int    number of nodes of the graph
+ *   int    number of adjacency entries of the graph
+ *   int    r
+ *   int    b
+ *   int    sources[r]
+ *   byte   rows[r][n * b]
+ * </pre>
+ */
+public class NextHopTable {
+
+    private static final int MAGIC = 0x4E484F50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final long MAP_BYTES = 1 << 30;
+
+    /**
+     * The most bytes of rows write computes before writing them out.
+     */
+    private static final long BATCH_BYTES = 64L << 20;
+
+    private static final ThreadLocal<RowWorkspace> ROW_WORKSPACES = ThreadLocal.withInitial(RowWorkspace::new);
+
+    private final CsrGraph graph;
+    private final int[] sources;
+    private final IntIntHashMap rows;
+    private final int portBytes;
+    private final int rowBytes;
+    private final int rowsPerChunk;
+    private final ByteBuffer[] chunks;
+
+    private NextHopTable(CsrGraph graph, int[] sources, int portBytes, ByteBuffer[] chunks) {
+        this.graph = graph;
+        this.sources = sources;
+        this.portBytes = portBytes;
+        this.rowBytes = graph.getNumNodes() * portBytes;
+        this.rowsPerChunk = rowsPerChunk(rowBytes);
+        this.chunks = chunks;
+        this.rows = new IntIntHashMap(sources.length, -1);
+        for (int row = 0; row < sources.length; row++) {
+            rows.put(sources[row], row);
+        }
+    }
+
+    /**
+     * Computes the tables of every node of the graph. They take n * n entries; for large graphs use write.
+     *
+     * @param graph the snapshot.
+     * @return the tables.
+     */
+    public static NextHopTable computeAll(CsrGraph graph) {
+        return compute(graph, IntStream.range(0, graph.getNumNodes()).toArray());
+    }
+
+    /**
+     * Computes the tables of the given sources in parallel and keeps them on the heap.
+     *
+     * @param graph   the snapshot.
+     * @param sources the indexes of the source nodes, one row each.
+     * @return the tables.
+     * @throws IllegalArgumentException if a source is not a node of the graph or appears twice.
+     */
+    public static NextHopTable compute(CsrGraph graph, int[] sources) {
+        sources = checkSources(graph, sources);
+        int portBytes = portBytes(graph);
+        int rowBytes = graph.getNumNodes() * portBytes;
+        int rowsPerChunk = rowsPerChunk(rowBytes);
+        ByteBuffer[] chunks = new ByteBuffer[(sources.length + rowsPerChunk - 1) / rowsPerChunk];
+        for (int c = 0; c < chunks.length; c++) {
+            int chunkRows = Math.min(rowsPerChunk, sources.length - c * rowsPerChunk);
+            chunks[c] = ByteBuffer.allocate(chunkRows * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        NextHopTable table = new NextHopTable(graph, sources, portBytes, chunks);
+        int[] rowSources = sources;
+        IntStream.range(0, sources.length).parallel().forEach(row ->
+                computeRow(graph, rowSources[row], portBytes, chunks[row / rowsPerChunk], (row % rowsPerChunk) * rowBytes));
+        return table;
+    }
+
+    /**
+     * Computes the tables of the given sources in parallel and streams them to a file, replacing it if it exists.
+     * Memory use is bounded by a batch of rows of at most BATCH_BYTES, or one row if rows are larger.
+     *
+     * @param graph   the snapshot.
+     * @param sources the indexes of the source nodes, one row each.
+     * @param path    the file to write.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if a source is not a node of the graph or appears twice.
+     */
+    public static void write(CsrGraph graph, int[] sources, Path path) throws IOException {
+        sources = checkSources(graph, sources);
+        int portBytes = portBytes(graph);
+        int rowBytes = graph.getNumNodes() * portBytes;
+        int batchRows = (int) Math.max(1, Math.min(sources.length, BATCH_BYTES / Math.max(1, rowBytes)));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 4 * sources.length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(graph.getNumNodes()).putInt(graph.getOffsets()[graph.getNumNodes()])
+                    .putInt(sources.length).putInt(portBytes);
+            header.asIntBuffer().put(sources);
+            header.position(header.limit());
+            writeFully(channel, header);
+
+            ByteBuffer batch = ByteBuffer.allocateDirect(batchRows * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+            int[] rowSources = sources;
+            for (int first = 0; first < sources.length; first += batchRows) {
+                int from = first;
+                int count = Math.min(batchRows, sources.length - first);
+                IntStream.range(0, count).parallel().forEach(i ->
+                        computeRow(graph, rowSources[from + i], portBytes, batch, i * rowBytes));
+                batch.position(count * rowBytes);
+                writeFully(channel, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Maps tables written by write. The rows stay in the file and are paged in as they are read.
+     *
+     * @param graph the snapshot the tables were computed from.
+     * @param path  the file to read.
+     * @return the tables.
+     * @throws IOException if the file cannot be read, is not a table file of a supported version,
+     *                     or was computed for a graph of another size.
+     */
+    public static NextHopTable open(CsrGraph graph, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("not a next-hop table file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a next-hop table file: " + path);
+            }
+            int formatVersion = header.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("unsupported next-hop table file version " + formatVersion + ": " + path);
+            }
+            int numNodes = header.getInt();
+            int numEntries = header.getInt();
+            int numSources = header.getInt();
+            int portBytes = header.getInt();
+            if (numNodes != graph.getNumNodes() || numEntries != graph.getOffsets()[graph.getNumNodes()]) {
+                throw new IOException("next-hop table file of another graph: " + path);
+            }
+            long rowBytes = (long) numNodes * portBytes;
+            long rowsStart = HEADER_BYTES + 4L * numSources;
+            if (numSources < 0 || portBytes != portBytes(graph) || channel.size() != rowsStart + numSources * rowBytes) {
+                throw new IOException("corrupt next-hop table file: " + path);
+            }
+
+            int[] sources = new int[numSources];
+            if (numSources > 0) {
+                channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 4L * numSources).order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer().get(sources);
+            }
+            try {
+                checkSources(graph, sources);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("corrupt next-hop table file: " + path);
+            }
+            int rowsPerChunk = rowsPerChunk((int) rowBytes);
+            ByteBuffer[] chunks = new ByteBuffer[(numSources + rowsPerChunk - 1) / rowsPerChunk];
+            for (int c = 0; c < chunks.length; c++) {
+                int chunkRows = Math.min(rowsPerChunk, numSources - c * rowsPerChunk);
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, rowsStart + (long) c * rowsPerChunk * rowBytes,
+                        chunkRows * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new NextHopTable(graph, sources, portBytes, chunks);
+        }
+    }
+
+    /**
+     * Returns the snapshot the tables were computed from.
+     *
+     * @return the snapshot.
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of sources, which is the number of rows.
+     *
+     * @return the number of sources.
+     */
+    public int getNumSources() {
+        return sources.length;
+    }
+
+    /**
+     * Returns the source of a row.
+     *
+     * @param row the row.
+     * @return the index of the source node of the row.
+     */
+    public int getSource(int row) {
+        return sources[row];
+    }
+
+    /**
+     * Returns the row of a source.
+     *
+     * @param source the index of the source node.
+     * @return the row of the source, or -1 if it has no table.
+     */
+    public int getRow(int source) {
+        return rows.get(source);
+    }
+
+    /**
+     * Returns the number of bytes of every entry.
+     *
+     * @return 1, 2 or 4.
+     */
+    public int getPortBytes() {
+        return portBytes;
+    }
+
+    /**
+     * Returns the port of the next hop from the source of a row to a destination.
+     *
+     * @param row         the row.
+     * @param destination the index of the destination node.
+     * @return the position of the next hop in the neighbor list of the source,
+     * or -1 if the destination is the source or cannot be reached.
+     */
+    public int getPort(int row, int destination) {
+        ByteBuffer chunk = chunks[row / rowsPerChunk];
+        int position = (row % rowsPerChunk) * rowBytes + destination * portBytes;
+        switch (portBytes) {
+            case 1:
+                return (chunk.get(position) & 0xFF) - 1;
+            case 2:
+                return (chunk.getShort(position) & 0xFFFF) - 1;
+            default:
+                return chunk.getInt(position) - 1;
+        }
+    }
+
+    /**
+     * Returns the neighbor of a source to forward to for a destination.
+     *
+     * @param source      the index of the source node.
+     * @param destination the index of the destination node.
+     * @return the index of the next hop, or -1 if the destination is the source or cannot be reached.
+     * @throws IllegalArgumentException if the source has no table.
+     */
+    public int getNextHop(int source, int destination) {
+        int row = rows.get(source);
+        if (row == -1) {
+            throw new IllegalArgumentException();
+        }
+        int port = getPort(row, destination);
+        return port == -1 ? -1 : graph.getTargets()[graph.getOffsets()[source] + port];
+    }
+
+    private static int[] checkSources(CsrGraph graph, int[] sources) {
+        IntIntHashMap seen = new IntIntHashMap(sources.length, -1);
+        for (int source : sources) {
+            if (source < 0 || source >= graph.getNumNodes() || seen.containsKey(source)) {
+                throw new IllegalArgumentException();
+            }
+            seen.put(source, 0);
+        }
+        return sources.clone();
+    }
+
+    /**
+     * Returns the number of bytes needed by a port plus one of any node of the graph.
+     */
+    private static int portBytes(CsrGraph graph) {
+        int maxDegree = 0;
+        for (int i = 0; i < graph.getNumNodes(); i++) {
+            maxDegree = Math.max(maxDegree, graph.degree(i));
+        }
+        return maxDegree < 0xFF ? 1 : maxDegree < 0xFFFF ? 2 : 4;
+    }
+
+    private static int rowsPerChunk(int rowBytes) {
+        return (int) Math.max(1, MAP_BYTES / Math.max(1, rowBytes));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Computes the shortest path tree of a source and writes the port of the first hop towards every node
+     * at the given position of out.
+     */
+    private static void computeRow(CsrGraph graph, int source, int portBytes, ByteBuffer out, int position) {
+        ShortestPathWorkspace workspace = ShortestPathEngine.workspace();
+        ShortestPathEngine.dijkstra(graph, source, -1, workspace);
+        RowWorkspace row = ROW_WORKSPACES.get();
+        int[] firstPort = row.prepare(graph.getNumNodes());
+        int stamp = row.stamp;
+        int[] stamps = row.stamps;
+        int[] stack = row.stack;
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        stamps[source] = stamp;
+        firstPort[source] = 0;
+        for (int k = offsets[source]; k < offsets[source + 1]; k++) {
+            // the first link to a neighbor wins if the adjacency list has duplicates; the tree uses the lightest
+            if (stamps[targets[k]] != stamp && workspace.getPrevious(targets[k]) == source) {
+                stamps[targets[k]] = stamp;
+                firstPort[targets[k]] = k - offsets[source] + 1;
+            }
+        }
+
+        for (int node = 0; node < graph.getNumNodes(); node++) {
+            if (stamps[node] != stamp) {
+                // walk up the tree to a node whose first hop is known, then hand it down the walked nodes
+                int depth = 0;
+                int up = node;
+                while (up != -1 && stamps[up] != stamp) {
+                    stack[depth++] = up;
+                    up = workspace.getPrevious(up);
+                }
+                int port = up == -1 ? 0 : firstPort[up];
+                while (depth > 0) {
+                    int walked = stack[--depth];
+                    stamps[walked] = stamp;
+                    firstPort[walked] = port;
+                }
+            }
+            int index = position + node * portBytes;
+            switch (portBytes) {
+                case 1:
+                    out.put(index, (byte) firstPort[node]);
+                    break;
+                case 2:
+                    out.putShort(index, (short) firstPort[node]);
+                    break;
+                default:
+                    out.putInt(index, firstPort[node]);
+            }
+        }
+    }
+
+    /**
+     * The scratch arrays of computeRow for one thread. A stamp per search marks the nodes whose first hop is
+     * known, so the arrays are never cleared.
+     */
+    private static class RowWorkspace {
+
+        int[] firstPort = new int[0];
+        int[] stamps = new int[0];
+        int[] stack = new int[0];
+        int stamp;
+
+        int[] prepare(int numNodes) {
+            if (firstPort.length < numNodes) {
+                firstPort = new int[numNodes];
+                stamps = new int[numNodes];
+                stack = new int[numNodes];
+                stamp = 0;
+            }
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            return firstPort;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This class represents a packet of the Simulator. A packet is created by Simulator.newPacket and is not changed
+ * afterwards, so a broadcast shares one packet among all the copies in flight instead of cloning it per neighbor.
+ * The simulator counts the arrivals that still refer to a packet and reuses it once the last one has been handled.
+ */
+public class Packet {
+
+    private long id;
+    private int source;
+    private int destination;
+    private int size;
+    private int ttl;
+    private int payload;
+    private double createdAt;
+
+    /**
+     * The number of scheduled arrivals that carry this packet, or -1 while it is in the pool.
+     */
+    int references;
+
+    /**
+     * The next packet in the pool.
+     */
+    Packet next;
+
+    void set(long id, int source, int destination, int size, int ttl, int payload, double createdAt) {
+        this.id = id;
+        this.source = source;
+        this.destination = destination;
+        this.size = size;
+        this.ttl = ttl;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    void copyFrom(Packet other) {
+        set(other.id, other.source, other.destination, other.size, other.ttl, other.payload, other.createdAt);
+    }
+
+    /**
+     * Returns the id of the packet, unique within its Simulator.
+     *
+     * @return the id of the packet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the index of the node that created the packet.
+     *
+     * @return the index of the source node.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the index of the node the packet is for.
+     *
+     * @return the index of the destination node, or -1 for packets sent to every node.
+     */
+    public int getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the size of the packet, which sets how long its transmissions take.
+     *
+     * @return the size of the packet in bytes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of hops the packet should travel. The simulator does not enforce it;
+     * protocols check it before forwarding.
+     *
+     * @return the time to live of the packet in hops.
+     */
+    public int getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns a value the protocol that created the packet can use freely.
+     *
+     * @return the payload of the packet.
+     */
+    public int getPayload() {
+        return payload;
+    }
+
+    /**
+     * Returns the simulation time at which the packet was created.
+     *
+     * @return the creation time of the packet.
+     */
+    public double getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,359 @@
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * This class represents a discrete-event simulator that runs on several cores by splitting the plane into tiles.
+ * Links only join nodes within radio range, so most links stay inside a tile and only the nodes near the edges
+ * of a tile, its ghost region, have neighbors in other tiles. Every tile is a shard: a Simulator that owns the
+ * nodes of the tile and runs their events on its own thread, with its own queue and pools.
+ * Arrivals at nodes of other tiles are batched into per-tile outboxes and handed over between time windows.
+ *
+ * Time is kept in step conservatively, in windows as in the YAWNS protocol: a packet sent at time t reaches
+ * another tile no sooner than t + lookahead, where the lookahead is the transmission time of the smallest packet
+ * plus the propagation delay of the shortest link between two tiles. So every shard can run all its events before
+ * the earliest pending event plus the lookahead without waiting for the others; then the outboxes are exchanged
+ * and the next window starts. The shards refuse packets smaller than getMinPacketSize, which is what makes
+ * the lookahead safe; the larger it is, the fewer windows the simulation takes.
+ * Handlers may run on several threads at once, but only ever for nodes of the same tile on the same thread.
+ */
+public class ParallelSimulator {
+
+    private final CsrGraph graph;
+    private final Simulator[] shards;
+    private final int[] owner;
+    private final ProtocolHandler[] handlers;
+
+    private double bandwidth = 250_000;
+    private double propagationDelay = 1 / 3e8;
+    private int minPacketSize = 1;
+
+    /**
+     * The smallest weight of a link between two tiles.
+     */
+    private final double minGhostWeight;
+    private long windows;
+
+    /**
+     * Constructs a new ParallelSimulator over the current state of the graph, with one tile per available core.
+     *
+     * @param graph the graph.
+     */
+    public ParallelSimulator(NetGraph graph) {
+        this(graph.freeze(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new ParallelSimulator over the given snapshot. The nodes are split into a grid of tiles of
+     * about the same number of nodes: columns by x coordinate, then every column into rows by y coordinate.
+     *
+     * @param graph    the snapshot.
+     * @param numTiles the number of tiles.
+     * @throws IllegalArgumentException if numTiles is not positive.
+     */
+    public ParallelSimulator(CsrGraph graph, int numTiles) {
+        if (numTiles < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.graph = graph;
+        int numNodes = graph.getNumNodes();
+        this.owner = new int[numNodes];
+        this.handlers = new ProtocolHandler[numNodes];
+
+        // columns * rows = numTiles with the columns and rows as close to each other as possible
+        int columns = (int) Math.sqrt(numTiles);
+        while (numTiles % columns != 0) {
+            columns--;
+        }
+        int rows = numTiles / columns;
+
+        int[] byX = sortedBy(graph.getX(), null, 0, numNodes);
+        for (int c = 0; c < columns; c++) {
+            int from = (int) ((long) numNodes * c / columns);
+            int to = (int) ((long) numNodes * (c + 1) / columns);
+            int[] byY = sortedBy(graph.getY(), byX, from, to);
+            for (int k = 0; k < byY.length; k++) {
+                owner[byY[k]] = c * rows + (int) ((long) k * rows / byY.length);
+            }
+        }
+
+        double minGhostWeight = Double.POSITIVE_INFINITY;
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        for (int i = 0; i < numNodes; i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (owner[targets[k]] != owner[i]) {
+                    minGhostWeight = Math.min(minGhostWeight, weights[k]);
+                }
+            }
+        }
+        this.minGhostWeight = minGhostWeight;
+
+        double[] busyUntil = new double[numNodes];
+        this.shards = new Simulator[numTiles];
+        for (int t = 0; t < numTiles; t++) {
+            shards[t] = new Simulator(graph, handlers, busyUntil, owner, t, numTiles);
+            shards[t].setMinPacketSize(minPacketSize);
+        }
+    }
+
+    /**
+     * Returns the nodes order[from] ... order[to - 1], or from ... to - 1 if order is null, sorted by coordinate.
+     * Every node is sorted as a long holding the coordinate rounded to a float above its index,
+     * which is precise enough to cut tiles and sorts primitives instead of boxed indexes.
+     */
+    private static int[] sortedBy(double[] coordinate, int[] order, int from, int to) {
+        long[] keys = new long[to - from];
+        for (int k = from; k < to; k++) {
+            int node = order == null ? k : order[k];
+            int bits = Float.floatToIntBits((float) coordinate[node]);
+            // flip the magnitude of negative floats so that the bits compare like the values
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            keys[k - from] = (long) bits << 32 | node;
+        }
+        Arrays.sort(keys);
+        int[] nodes = new int[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            nodes[k] = (int) keys[k];
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the snapshot the simulation runs on.
+     *
+     * @return the snapshot.
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of tiles.
+     *
+     * @return the number of shards.
+     */
+    public int getNumTiles() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the tile that owns a node.
+     *
+     * @param node the index of the node.
+     * @return the tile of the node.
+     */
+    public int getTile(int node) {
+        return owner[node];
+    }
+
+    /**
+     * Returns the simulator of the tile that owns a node. Packets created at a node, and timers set on it,
+     * must go through the simulator of its tile.
+     *
+     * @param node the index of the node.
+     * @return the shard running the node.
+     */
+    public Simulator getShard(int node) {
+        return shards[owner[node]];
+    }
+
+    /**
+     * Sets the protocol of every node.
+     *
+     * @param handler the protocol.
+     */
+    public void setHandler(ProtocolHandler handler) {
+        Arrays.fill(handlers, handler);
+    }
+
+    /**
+     * Sets the protocol of one node.
+     *
+     * @param node    the index of the node.
+     * @param handler the protocol.
+     */
+    public void setHandler(int node, ProtocolHandler handler) {
+        handlers[node] = handler;
+    }
+
+    /**
+     * Sets the bandwidth of the radios.
+     *
+     * @param bandwidth the number of bytes a radio transmits per unit of time.
+     * @throws IllegalArgumentException if bandwidth is not positive.
+     */
+    public void setBandwidth(double bandwidth) {
+        for (Simulator shard : shards) {
+            shard.setBandwidth(bandwidth);
+        }
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Sets the propagation delay of the links.
+     *
+     * @param propagationDelay the time a transmission takes per unit of link weight.
+     * @throws IllegalArgumentException if propagationDelay is negative.
+     */
+    public void setPropagationDelay(double propagationDelay) {
+        for (Simulator shard : shards) {
+            shard.setPropagationDelay(propagationDelay);
+        }
+        this.propagationDelay = propagationDelay;
+    }
+
+    /**
+     * Sets the size of the transmit queue of every node.
+     *
+     * @param queueCapacity the number of bytes a node can hold waiting for its radio.
+     * @throws IllegalArgumentException if queueCapacity is negative.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        for (Simulator shard : shards) {
+            shard.setQueueCapacity(queueCapacity);
+        }
+    }
+
+    /**
+     * Sets the size below which no packet of the simulation goes, which bounds the lookahead.
+     *
+     * @param minPacketSize the size of the smallest packet in bytes.
+     * @throws IllegalArgumentException if minPacketSize is not positive.
+     */
+    public void setMinPacketSize(int minPacketSize) {
+        if (minPacketSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        for (Simulator shard : shards) {
+            shard.setMinPacketSize(minPacketSize);
+        }
+        this.minPacketSize = minPacketSize;
+    }
+
+    /**
+     * Returns the size below which no packet of the simulation goes.
+     *
+     * @return the size of the smallest packet in bytes.
+     */
+    public int getMinPacketSize() {
+        return minPacketSize;
+    }
+
+    /**
+     * Returns the time by which a packet crossing from one tile to another is always delayed.
+     *
+     * @return the lookahead of the time windows.
+     */
+    public double getLookahead() {
+        return minPacketSize / bandwidth + (minGhostWeight == Double.POSITIVE_INFINITY ? 0 : minGhostWeight * propagationDelay);
+    }
+
+    /**
+     * Runs the simulation until no event is left.
+     *
+     * @return the number of events handled.
+     */
+    public long run() {
+        return run(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Runs the simulation until no event is left or the next one is after the given time.
+     *
+     * @param endTime the time at which the simulation stops.
+     * @return the number of events handled.
+     */
+    public long run(double endTime) {
+        double lookahead = getLookahead();
+        long handled = 0;
+        while (true) {
+            // the outboxes are handed over first, since packets sent between runs, like the first broadcast
+            // of a flood, are in them too and must count for the start of the window
+            IntStream.range(0, shards.length).parallel().forEach(t -> {
+                for (Simulator from : shards) {
+                    shards[t].receive(from);
+                }
+            });
+            double start = Double.POSITIVE_INFINITY;
+            for (Simulator shard : shards) {
+                start = Math.min(start, shard.nextEventTime());
+            }
+            if (start == Double.POSITIVE_INFINITY || start > endTime) {
+                break;
+            }
+            // no arrival from another tile can come before start + lookahead, so every event before it is safe;
+            // a few ulps are left out for the rounding of the arrival times
+            double bound = start + lookahead;
+            double last = Math.min(endTime, bound - 3 * Math.ulp(bound));
+            handled += IntStream.range(0, shards.length).parallel().mapToLong(t -> shards[t].run(last)).sum();
+            windows++;
+        }
+        return handled;
+    }
+
+    /**
+     * Returns the number of time windows run so far.
+     *
+     * @return the number of windows.
+     */
+    public long getWindows() {
+        return windows;
+    }
+
+    /**
+     * Returns the number of events handled so far by all tiles.
+     *
+     * @return the number of events handled.
+     */
+    public long getEventsProcessed() {
+        return Arrays.stream(shards).mapToLong(Simulator::getEventsProcessed).sum();
+    }
+
+    /**
+     * Returns the number of transmissions so far by all tiles.
+     *
+     * @return the number of transmissions.
+     */
+    public long getTransmissions() {
+        return Arrays.stream(shards).mapToLong(Simulator::getTransmissions).sum();
+    }
+
+    /**
+     * Returns the number of packets dropped by all tiles because a transmit queue was full.
+     *
+     * @return the number of dropped packets.
+     */
+    public long getPacketsDropped() {
+        return Arrays.stream(shards).mapToLong(Simulator::getPacketsDropped).sum();
+    }
+
+    /**
+     * Returns the number of packets delivered so far in all tiles.
+     *
+     * @return the number of delivered packets.
+     */
+    public long getPacketsDelivered() {
+        return Arrays.stream(shards).mapToLong(Simulator::getPacketsDelivered).sum();
+    }
+
+    /**
+     * Returns the average time from the creation of a packet to its delivery over all tiles.
+     *
+     * @return the average latency, or 0 if no packet was delivered.
+     */
+    public double getAverageLatency() {
+        long delivered = getPacketsDelivered();
+        return delivered == 0 ? 0 : Arrays.stream(shards).mapToDouble(s -> s.getAverageLatency() * s.getPacketsDelivered()).sum() / delivered;
+    }
+
+    /**
+     * Returns the average number of hops of the packets delivered in all tiles.
+     *
+     * @return the average hop count, or 0 if no packet was delivered.
+     */
+    public double getAverageHops() {
+        long delivered = getPacketsDelivered();
+        return delivered == 0 ? 0 : Arrays.stream(shards).mapToDouble(s -> s.getAverageHops() * s.getPacketsDelivered()).sum() / delivered;
+    }
+}
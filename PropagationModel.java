@@ -0,0 +1,43 @@
+/**
+ * This interface represents a radio propagation model, which decides which nodes of a Network are linked
+ * and the weights of their links.
+ * The model is asked about a batch of nodes at a time: a receiver and every node within getRange of it, whose
+ * distances DistanceKernel has already worked out together. A model whose decisions for a pair of nodes do not
+ * depend on which of the two receives, like a range or a path loss, is symmetric; for the others two nodes are
+ * linked only if each one hears the other.
+ * Weights are distances in the models of the emulator. A* in Network finds shortest paths as long as no weight
+ * is smaller than the distance between the nodes of its link.
+ */
+public interface PropagationModel {
+
+    /**
+     * Returns the largest distance at which two nodes can be linked.
+     *
+     * @return the range of the model.
+     */
+    double getRange();
+
+    /**
+     * Tells whether a receiver always hears a transmitter when the transmitter hears the receiver.
+     * Batches of a symmetric model may hold only some of the nodes within range, for instance only nodes
+     * with a greater index than the receiver.
+     *
+     * @return true if the decisions of the model are the same in both directions.
+     */
+    default boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * Decides which nodes of a batch a receiver hears. The heard transmitters are moved, in order, to the front
+     * of transmitters, and the weights of their links are written to the front of weights.
+     *
+     * @param receiver     the id of the receiving node.
+     * @param transmitters the ids of the nodes of the batch, all within getRange of the receiver.
+     * @param distances    the distance from the receiver to every node of the batch.
+     * @param count        the number of nodes in the batch.
+     * @param weights      receives the weights of the links, at least count long; models may use it as scratch space.
+     * @return the number of transmitters the receiver hears.
+     */
+    int receive(int receiver, int[] transmitters, double[] distances, int count, double[] weights);
+}
@@ -0,0 +1,29 @@
+/**
+ * This interface represents the protocol run by a node of the Simulator. A handler may be shared by many nodes,
+ * so every call is given the index of the node it is for, and per-node state is best kept in arrays indexed by it.
+ * Handlers react to events by calling back into the simulator: send, broadcast, schedule and deliver.
+ */
+public interface ProtocolHandler {
+
+    /**
+     * Called when a packet arrives at a node. The packet may be forwarded with send or broadcast,
+     * but must not be kept after the call returns.
+     *
+     * @param simulator the simulator.
+     * @param node      the index of the node receiving the packet.
+     * @param from      the index of the node that transmitted it.
+     * @param packet    the packet.
+     * @param hops      the number of transmissions the packet went through to get here.
+     */
+    void onPacket(Simulator simulator, int node, int from, Packet packet, int hops);
+
+    /**
+     * Called when a timer set with Simulator.schedule expires.
+     *
+     * @param simulator the simulator.
+     * @param node      the index of the node the timer was set for.
+     * @param timerId   the id given to schedule.
+     */
+    default void onTimer(Simulator simulator, int node, int timerId) {
+    }
+}
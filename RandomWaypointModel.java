@@ -0,0 +1,81 @@
+import java.util.*;
+
+/**
+ * This class implements the random waypoint mobility model: every node picks a random destination in the
+ * square area and a random speed, moves there in a straight line, pauses, and then picks the next destination.
+ */
+public class RandomWaypointModel implements MobilityModel {
+
+    private final NetNode[] nodes;
+    private final double side;
+    private final double minSpeed;
+    private final double maxSpeed;
+    private final double pauseTime;
+    private final Random random;
+
+    private final double[] destinationX;
+    private final double[] destinationY;
+    private final double[] speed;
+    private final double[] pausedUntil;
+    private double time;
+
+    /**
+     * Constructs a new RandomWaypointModel for the nodes currently in the graph.
+     *
+     * @param graph     the graph whose nodes move.
+     * @param side      the side length of the square area in which the nodes move.
+     * @param minSpeed  the lowest speed of a node, in units per second.
+     * @param maxSpeed  the highest speed of a node, in units per second.
+     * @param pauseTime the time a node waits at each destination, in seconds.
+     * @param seed      the seed of the random destinations and speeds.
+     */
+    public RandomWaypointModel(NetGraph graph, double side, double minSpeed, double maxSpeed, double pauseTime, long seed) {
+        int numNodes = graph.getNumNodes();
+        this.nodes = new NetNode[numNodes];
+        this.side = side;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.pauseTime = pauseTime;
+        this.random = new Random(seed);
+        this.destinationX = new double[numNodes];
+        this.destinationY = new double[numNodes];
+        this.speed = new double[numNodes];
+        this.pausedUntil = new double[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            nodes[i] = graph.nodeFromIndex(i);
+            pickDestination(i);
+        }
+    }
+
+    @Override
+    public void advance(double time, MobilityEngine engine) {
+        double elapsed = time - this.time;
+        this.time = time;
+        for (int i = 0; i < nodes.length; i++) {
+            if (time < pausedUntil[i]) {
+                continue;
+            }
+            // a node that ends its pause during this tick only moves for the rest of the tick
+            double moving = Math.min(elapsed, time - pausedUntil[i]);
+            double x = nodes[i].getX_coordinate();
+            double y = nodes[i].getY_coordinate();
+            double dx = destinationX[i] - x;
+            double dy = destinationY[i] - y;
+            double remaining = Math.sqrt(dx * dx + dy * dy);
+            double step = speed[i] * moving;
+            if (step >= remaining) {
+                engine.moveNode(nodes[i], destinationX[i], destinationY[i]);
+                pausedUntil[i] = time + pauseTime;
+                pickDestination(i);
+            } else if (step > 0) {
+                engine.moveNode(nodes[i], x + dx * step / remaining, y + dy * step / remaining);
+            }
+        }
+    }
+
+    private void pickDestination(int i) {
+        destinationX[i] = side * random.nextDouble();
+        destinationY[i] = side * random.nextDouble();
+        speed[i] = minSpeed + (maxSpeed - minSpeed) * random.nextDouble();
+    }
+}
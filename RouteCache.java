@@ -0,0 +1,156 @@
+import java.util.*;
+
+/**
+ * This class caches the shortest paths computed by a Network between pairs of nodes.
+ * It holds at most a fixed number of paths and evicts the least recently used one when it is full.
+ * Every cached path belongs to one version of the NetGraph; as soon as the graph changes, the whole cache is
+ * invalidated, since a new or shorter link anywhere can create a shorter path.
+ * Hit, miss, eviction and invalidation counts are kept for monitoring. The cache is thread-safe: the lock is only
+ * held to look a path up and to store it, so misses are computed concurrently, and two threads missing the same
+ * pair at once may both compute it.
+ */
+public class RouteCache {
+
+    private final Network network;
+    private final NetGraph graph;
+    private final RoutingMode mode;
+    private final int capacity;
+
+    /**
+     * The cached paths by pair of node ids, in order of last use.
+     */
+    private final LinkedHashMap<Long, List<NetNode>> paths;
+
+    /**
+     * The graph version the cached paths were computed at.
+     */
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs a new empty RouteCache.
+     *
+     * @param network  the network whose paths are cached.
+     * @param capacity the maximum number of cached paths.
+     * @param mode     the search algorithm used on a miss.
+     * @throws IllegalArgumentException if capacity is not positive.
+     */
+    public RouteCache(Network network, int capacity, RoutingMode mode) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.network = network;
+        this.graph = network.getNetworkGraph();
+        this.mode = mode;
+        this.capacity = capacity;
+        this.version = graph.getVersion();
+        this.paths = new LinkedHashMap<Long, List<NetNode>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<NetNode>> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the shortest path between two nodes, from the cache if it was computed at the current version
+     * of the graph and from the network otherwise.
+     *
+     * @param node1 the starting node of the shortest path.
+     * @param node2 the destination node of the shortest path.
+     * @return an unmodifiable list of the nodes on the shortest path from node1 to node2, or an empty list if
+     * node2 cannot be reached from node1.
+     * @throws IllegalArgumentException if either node does not exist in the graph or is null.
+     */
+    public List<NetNode> getShortestPath(NetNode node1, NetNode node2) {
+        // reject nodes that are not in the graph before looking their ids up
+        graph.getNodeIndex(node1);
+        graph.getNodeIndex(node2);
+
+        Long key = ((long) node1.getId() << 32) | (node2.getId() & 0xFFFFFFFFL);
+        long computedAt;
+        synchronized (this) {
+            if (graph.getVersion() != version) {
+                invalidations += paths.size();
+                paths.clear();
+                version = graph.getVersion();
+            }
+            List<NetNode> path = paths.get(key);
+            if (path != null) {
+                hits++;
+                return path;
+            }
+            misses++;
+            computedAt = version;
+        }
+        List<NetNode> path = Collections.unmodifiableList(network.getShortestPath(node1, node2, mode));
+        synchronized (this) {
+            // a path computed while the graph changed belongs to no version, so it is returned but not kept
+            if (version == computedAt && graph.getVersion() == computedAt) {
+                paths.putIfAbsent(key, path);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Removes every path from the cache.
+     */
+    public synchronized void clear() {
+        invalidations += paths.size();
+        paths.clear();
+    }
+
+    /**
+     * Returns the number of paths in the cache.
+     *
+     * @return the number of cached paths.
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return the number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries that had to be computed.
+     *
+     * @return the number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of paths evicted to make room for newer ones.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of paths dropped because the graph changed or the cache was cleared.
+     *
+     * @return the number of invalidated paths.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+}
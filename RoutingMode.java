@@ -0,0 +1,21 @@
+/**
+ * The search algorithms available for point-to-point routing.
+ */
+public enum RoutingMode {
+
+    /**
+     * Plain Dijkstra from the source until the target is settled.
+     */
+    DIJKSTRA,
+
+    /**
+     * A* search guided by the straight-line distance to the target. It returns shortest paths only when
+     * no link is shorter than the distance between its two nodes, which holds for the links built by Network.
+     */
+    A_STAR,
+
+    /**
+     * Dijkstra run from the source and from the target at the same time until the two searches meet.
+     */
+    BIDIRECTIONAL
+}
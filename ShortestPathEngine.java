@@ -0,0 +1,222 @@
+/**
+ * This class runs shortest path searches over a CsrGraph using primitive arrays and an IndexedMinHeap.
+ * Every thread gets its own ShortestPathWorkspace, so repeated queries neither allocate nor share state.
+ */
+public class ShortestPathEngine {
+
+    private static final ThreadLocal<ShortestPathWorkspace> WORKSPACES =
+            ThreadLocal.withInitial(() -> new ShortestPathWorkspace(0));
+
+    /**
+     * The workspaces of the backward half of bidirectional searches.
+     */
+    private static final ThreadLocal<ShortestPathWorkspace> BACKWARD_WORKSPACES =
+            ThreadLocal.withInitial(() -> new ShortestPathWorkspace(0));
+
+    private ShortestPathEngine() {
+    }
+
+    /**
+     * Returns the workspace of the calling thread.
+     *
+     * @return the ShortestPathWorkspace of the current thread.
+     */
+    public static ShortestPathWorkspace workspace() {
+        return WORKSPACES.get();
+    }
+
+    /**
+     * Computes the shortest path from source to target with the given algorithm.
+     * The path can then be read with workspace.extractPath(target).
+     *
+     * @param graph     the graph to search.
+     * @param source    the index of the first node of the path.
+     * @param target    the index of the last node of the path.
+     * @param mode      the search algorithm.
+     * @param workspace the workspace holding the state of the search.
+     * @return the distance from source to target, or Double.POSITIVE_INFINITY if the target cannot be reached.
+     */
+    public static double shortestPath(CsrGraph graph, int source, int target, RoutingMode mode,
+                                      ShortestPathWorkspace workspace) {
+        switch (mode) {
+            case A_STAR:
+                return aStar(graph, source, target, workspace);
+            case BIDIRECTIONAL:
+                return bidirectional(graph, source, target, workspace);
+            default:
+                return dijkstra(graph, source, target, workspace);
+        }
+    }
+
+    /**
+     * Computes shortest paths from the source with Dijkstra's algorithm, stopping as soon as the target is settled.
+     * The distances, predecessors and path are left in the workspace.
+     *
+     * @param graph     the graph to search.
+     * @param source    the index of the first node of the path.
+     * @param target    the index of the last node of the path, or -1 to compute the whole shortest path tree.
+     * @param workspace the workspace holding the state of the search.
+     * @return the distance from source to target, or Double.POSITIVE_INFINITY if the target cannot be reached.
+     */
+    public static double dijkstra(CsrGraph graph, int source, int target, ShortestPathWorkspace workspace) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+
+        workspace.reset(graph.getNumNodes());
+        double[] distance = workspace.distance;
+        boolean[] settled = workspace.settled;
+        IndexedMinHeap heap = workspace.heap;
+
+        workspace.update(source, 0, -1);
+        heap.insertOrDecrease(source, 0);
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            settled[node] = true;
+            workspace.numSettled++;
+            if (node == target) {
+                break;
+            }
+
+            double nodeDistance = distance[node];
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                double newDistance = nodeDistance + weights[k];
+                if (!settled[neighbor] && newDistance < distance[neighbor]) {
+                    workspace.update(neighbor, newDistance, node);
+                    workspace.numRelaxations++;
+                    heap.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        workspace.numHeapOperations = heap.getOperations();
+        return target == -1 ? 0 : distance[target];
+    }
+
+    /**
+     * Computes the shortest path from source to target with A* search, using the straight-line distance to the
+     * target as the heuristic. The result is a shortest path when every link is at least as long as the distance
+     * between its nodes. A node whose distance still improves after it was settled is put back in the heap,
+     * so rounding differences between link weights and the heuristic cannot make the path longer.
+     *
+     * @param graph     the graph to search.
+     * @param source    the index of the first node of the path.
+     * @param target    the index of the last node of the path.
+     * @param workspace the workspace holding the state of the search.
+     * @return the distance from source to target, or Double.POSITIVE_INFINITY if the target cannot be reached.
+     */
+    public static double aStar(CsrGraph graph, int source, int target, ShortestPathWorkspace workspace) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        double[] x = graph.getX();
+        double[] y = graph.getY();
+        double targetX = x[target];
+        double targetY = y[target];
+
+        workspace.reset(graph.getNumNodes());
+        double[] distance = workspace.distance;
+        boolean[] settled = workspace.settled;
+        IndexedMinHeap heap = workspace.heap;
+
+        workspace.update(source, 0, -1);
+        heap.insertOrDecrease(source, 0);
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            settled[node] = true;
+            workspace.numSettled++;
+            if (node == target) {
+                break;
+            }
+
+            double nodeDistance = distance[node];
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                double newDistance = nodeDistance + weights[k];
+                if (newDistance < distance[neighbor]) {
+                    double dx = x[neighbor] - targetX;
+                    double dy = y[neighbor] - targetY;
+                    settled[neighbor] = false;
+                    workspace.update(neighbor, newDistance, node);
+                    workspace.numRelaxations++;
+                    heap.insertOrDecrease(neighbor, newDistance + Math.sqrt(dx * dx + dy * dy));
+                }
+            }
+        }
+        workspace.numHeapOperations = heap.getOperations();
+        return distance[target];
+    }
+
+    /**
+     * Computes the shortest path from source to target by running Dijkstra's algorithm forward from the source and
+     * backward from the target, always advancing the side whose heap has the smaller key, until the two keys add up
+     * to at least the best path found so far. The links are undirected, so both searches use the same graph.
+     * The backward half is spliced into the workspace afterwards, so extractPath(target) returns the whole path and
+     * getNumSettled(), getNumRelaxations() and getNumHeapOperations() count the work of both searches.
+     *
+     * @param graph     the graph to search.
+     * @param source    the index of the first node of the path.
+     * @param target    the index of the last node of the path.
+     * @param workspace the workspace holding the state of the search.
+     * @return the distance from source to target, or Double.POSITIVE_INFINITY if the target cannot be reached.
+     */
+    public static double bidirectional(CsrGraph graph, int source, int target, ShortestPathWorkspace workspace) {
+        ShortestPathWorkspace backward = BACKWARD_WORKSPACES.get();
+        workspace.reset(graph.getNumNodes());
+        backward.reset(graph.getNumNodes());
+
+        workspace.update(source, 0, -1);
+        workspace.heap.insertOrDecrease(source, 0);
+        backward.update(target, 0, -1);
+        backward.heap.insertOrDecrease(target, 0);
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+
+        // the best path found so far is the forward path to meetFrom, a link, and the backward path from meetTo
+        double best = source == target ? 0 : Double.POSITIVE_INFINITY;
+        int meetFrom = -1;
+        int meetTo = -1;
+
+        while (!workspace.heap.isEmpty() && !backward.heap.isEmpty()
+                && workspace.heap.minKey() + backward.heap.minKey() < best) {
+            boolean forwardTurn = workspace.heap.minKey() <= backward.heap.minKey();
+            ShortestPathWorkspace side = forwardTurn ? workspace : backward;
+            ShortestPathWorkspace other = forwardTurn ? backward : workspace;
+
+            int node = side.heap.poll();
+            side.settled[node] = true;
+            side.numSettled++;
+            double nodeDistance = side.distance[node];
+
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbor = targets[k];
+                double newDistance = nodeDistance + weights[k];
+                if (!side.settled[neighbor] && newDistance < side.distance[neighbor]) {
+                    side.update(neighbor, newDistance, node);
+                    side.numRelaxations++;
+                    side.heap.insertOrDecrease(neighbor, newDistance);
+                }
+                if (newDistance + other.distance[neighbor] < best) {
+                    best = newDistance + other.distance[neighbor];
+                    meetFrom = forwardTurn ? node : neighbor;
+                    meetTo = forwardTurn ? neighbor : node;
+                }
+            }
+        }
+
+        if (meetFrom != -1) {
+            // hang the backward path from meetTo to the target off meetFrom in the forward tree
+            for (int node = meetTo, previous = meetFrom; node != -1; previous = node, node = backward.previous[node]) {
+                workspace.update(node, best - backward.distance[node], previous);
+            }
+        }
+        workspace.numSettled += backward.numSettled;
+        workspace.numRelaxations += backward.numRelaxations;
+        workspace.numHeapOperations = workspace.heap.getOperations() + backward.heap.getOperations();
+        return best;
+    }
+}
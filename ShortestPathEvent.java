@@ -0,0 +1,33 @@
+import jdk.jfr.*;
+
+/**
+ * The JFR event of a shortest path search of Network.
+ */
+@Name("netgraph.ShortestPath")
+@Label("Shortest Path")
+@Category("NetGraph")
+@Description("A point-to-point shortest path search")
+public class ShortestPathEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Source")
+    int source;
+
+    @Label("Target")
+    int target;
+
+    @Label("Path Length")
+    @Description("The number of nodes on the path, 0 if the target cannot be reached")
+    int pathLength;
+
+    @Label("Settled Nodes")
+    int settledNodes;
+
+    @Label("Relaxations")
+    int relaxations;
+
+    @Label("Heap Operations")
+    long heapOperations;
+}
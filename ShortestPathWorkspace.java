@@ -0,0 +1,175 @@
+import java.util.*;
+
+/**
+ * This class holds the per-query state of a shortest path search over a CsrGraph: tentative distances,
+ * predecessors, settled flags and the heap. A workspace is meant to be reused for many queries by one thread.
+ * It remembers which nodes a query touched, so resetting it costs time proportional to those nodes
+ * rather than to the size of the graph, and after warming up a query does not allocate.
+ */
+public class ShortestPathWorkspace {
+
+    // The arrays are read and written directly by ShortestPathEngine, so they are package-private.
+    double[] distance;
+    int[] previous;
+    boolean[] settled;
+    IndexedMinHeap heap;
+
+    /**
+     * The nodes whose distance has been set since the last reset, and how many there are.
+     */
+    private int[] touched;
+    private int numTouched;
+
+    /**
+     * The number of nodes settled by the last query, the number of times it lowered the distance of a node,
+     * and the number of changes it made to the heaps.
+     */
+    int numSettled;
+    int numRelaxations;
+    long numHeapOperations;
+
+    /**
+     * The buffer filled by extractPath.
+     */
+    private int[] path;
+
+    /**
+     * Constructs a new ShortestPathWorkspace for graphs of up to the given number of nodes.
+     * The workspace grows when it is used on a larger graph.
+     *
+     * @param capacity the number of nodes.
+     */
+    public ShortestPathWorkspace(int capacity) {
+        this.distance = new double[capacity];
+        this.previous = new int[capacity];
+        this.settled = new boolean[capacity];
+        this.touched = new int[capacity];
+        this.path = new int[capacity];
+        this.heap = new IndexedMinHeap(capacity);
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+    }
+
+    /**
+     * Makes room for graphs of up to the given number of nodes and clears the state of the last query.
+     *
+     * @param capacity the number of nodes.
+     */
+    public void reset(int capacity) {
+        for (int i = 0; i < numTouched; i++) {
+            int node = touched[i];
+            distance[node] = Double.POSITIVE_INFINITY;
+            previous[node] = -1;
+            settled[node] = false;
+        }
+        numTouched = 0;
+        numSettled = 0;
+        numRelaxations = 0;
+        numHeapOperations = 0;
+        heap.clear();
+
+        if (capacity > distance.length) {
+            int oldCapacity = distance.length;
+            distance = Arrays.copyOf(distance, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            settled = Arrays.copyOf(settled, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+            path = Arrays.copyOf(path, capacity);
+            heap.ensureCapacity(capacity);
+            Arrays.fill(distance, oldCapacity, capacity, Double.POSITIVE_INFINITY);
+            Arrays.fill(previous, oldCapacity, capacity, -1);
+        }
+    }
+
+    /**
+     * Records a new tentative distance and predecessor for a node.
+     *
+     * @param node     the node.
+     * @param dist     the new distance of the node.
+     * @param previous the node it is reached from, or -1 for a source.
+     */
+    void update(int node, double dist, int previous) {
+        if (distance[node] == Double.POSITIVE_INFINITY) {
+            touched[numTouched++] = node;
+        }
+        this.distance[node] = dist;
+        this.previous[node] = previous;
+    }
+
+    /**
+     * Returns the distance of a node found by the last query.
+     *
+     * @param node the node.
+     * @return the distance of the node, or Double.POSITIVE_INFINITY if it was not reached.
+     */
+    public double getDistance(int node) {
+        return distance[node];
+    }
+
+    /**
+     * Returns the predecessor of a node on the shortest path found by the last query.
+     *
+     * @param node the node.
+     * @return the previous node on the path, or -1 if the node is a source or was not reached.
+     */
+    public int getPrevious(int node) {
+        return previous[node];
+    }
+
+    /**
+     * Returns the number of nodes settled by the last query.
+     *
+     * @return the number of settled nodes.
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Returns the number of times the last query lowered the tentative distance of a node.
+     *
+     * @return the number of relaxations.
+     */
+    public int getNumRelaxations() {
+        return numRelaxations;
+    }
+
+    /**
+     * Returns the number of insertions, decreases and removals the last query made in its heaps.
+     *
+     * @return the number of heap operations.
+     */
+    public long getNumHeapOperations() {
+        return numHeapOperations;
+    }
+
+    /**
+     * Writes the path from the source of the last query to the given node into the path buffer, source first.
+     *
+     * @param target the last node of the path.
+     * @return the number of nodes in the path, or 0 if the target was not reached.
+     */
+    public int extractPath(int target) {
+        if (distance[target] == Double.POSITIVE_INFINITY) {
+            return 0;
+        }
+        int length = 0;
+        for (int node = target; node != -1; node = previous[node]) {
+            length++;
+        }
+        int i = length;
+        for (int node = target; node != -1; node = previous[node]) {
+            path[--i] = node;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the path buffer filled by extractPath. It is reused by the next query.
+     *
+     * @return the path buffer.
+     */
+    public int[] getPath() {
+        return path;
+    }
+}
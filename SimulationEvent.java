@@ -0,0 +1,36 @@
+/**
+ * This class represents an event of the Simulator. Events are pooled and reused, so their fields are
+ * package-private and set by the Simulator; handlers never hold on to an event.
+ * An event also serves as its own link in the bucket lists of the CalendarQueue.
+ */
+public class SimulationEvent {
+
+    static final int ARRIVAL = 0;
+    static final int TIMER = 1;
+
+    double time;
+
+    /**
+     * The order in which the event was scheduled, used to run events with the same time first in, first out.
+     */
+    long sequence;
+
+    int type;
+    int node;
+    int from;
+    int timerId;
+    int hops;
+    Packet packet;
+
+    /**
+     * The next event in the same bucket of the CalendarQueue, or in the free list of the pool.
+     */
+    SimulationEvent next;
+
+    /**
+     * Returns whether this event runs before the other one.
+     */
+    boolean before(SimulationEvent other) {
+        return time < other.time || (time == other.time && sequence < other.sequence);
+    }
+}
@@ -0,0 +1,498 @@
+import java.util.*;
+
+/**
+ * This class represents a discrete-event simulator of packets travelling over a snapshot of a NetGraph.
+ * Every node runs a ProtocolHandler that reacts to packet arrivals and timers. A node has a single radio that
+ * transmits one packet at a time: a packet waits in the queue of its node until the radio is free, takes
+ * size / bandwidth to transmit and reaches the neighbor after a propagation delay proportional to the link weight.
+ * A broadcast is a single transmission heard by every neighbor, as on a wireless channel.
+ * Events wait in a CalendarQueue; events and packets are pooled, so a simulation that has warmed up
+ * does not allocate.
+ * A Simulator can also run one shard of a ParallelSimulator, in which case it owns only some of the nodes and
+ * arrivals at the other nodes are batched into outboxes instead of its own queue.
+ */
+public class Simulator {
+
+    private final CsrGraph graph;
+    private final ProtocolHandler[] handlers;
+    private final double[] busyUntil;
+    private final CalendarQueue queue = new CalendarQueue();
+
+    private double bandwidth = 250_000;
+    private double propagationDelay = 1 / 3e8;
+    private int queueCapacity = 64 * 1500;
+    private int minPacketSize;
+
+    private double time;
+    private long nextSequence;
+    private long nextPacketId;
+
+    /**
+     * The hops of the packet being handled, so that packets forwarded by the handler get one more.
+     */
+    private int currentHops;
+
+    private SimulationEvent freeEvents;
+    private Packet freePackets;
+
+    private long eventsProcessed;
+    private long transmissions;
+    private long packetsDropped;
+    private long packetsDelivered;
+    private double totalLatency;
+    private long totalHops;
+
+    /**
+     * The shard of every node, this shard and the arrivals for each other shard, when running in a ParallelSimulator.
+     */
+    private final int[] owner;
+    private final int shard;
+    private final int numShards;
+    private final ArrayList<SimulationEvent>[] outboxes;
+
+    /**
+     * The copy of the packet of the latest transmission sent to each other shard, so that a broadcast heard by
+     * several nodes of another shard sends it a single copy.
+     */
+    private final Packet[] ghostCopies;
+    private final long[] ghostTransmissions;
+
+    /**
+     * Constructs a new Simulator over the current state of the graph. Later changes to the graph
+     * are not seen by the simulation.
+     *
+     * @param graph the graph.
+     */
+    public Simulator(NetGraph graph) {
+        this(graph.freeze());
+    }
+
+    /**
+     * Constructs a new Simulator over the given snapshot. Nodes are identified by their index in the snapshot.
+     *
+     * @param graph the snapshot.
+     */
+    public Simulator(CsrGraph graph) {
+        this(graph, new ProtocolHandler[graph.getNumNodes()], new double[graph.getNumNodes()], null, 0, 1);
+    }
+
+    /**
+     * Constructs a new Simulator for a shard of a ParallelSimulator. The shards share the arrays of handlers
+     * and radio state, each writing only the entries of its own nodes.
+     *
+     * @param graph     the snapshot.
+     * @param handlers  the protocol of every node.
+     * @param busyUntil the time the radio of every node becomes free.
+     * @param owner     the shard of every node, or null when the simulator runs alone.
+     * @param shard     the shard of this simulator.
+     * @param numShards the number of shards.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Simulator(CsrGraph graph, ProtocolHandler[] handlers, double[] busyUntil, int[] owner, int shard, int numShards) {
+        this.graph = graph;
+        this.handlers = handlers;
+        this.busyUntil = busyUntil;
+        this.owner = owner;
+        this.shard = shard;
+        this.numShards = numShards;
+        this.nextPacketId = shard;
+        this.outboxes = new ArrayList[numShards];
+        for (int i = 0; i < numShards; i++) {
+            outboxes[i] = new ArrayList<>();
+        }
+        this.ghostCopies = new Packet[numShards];
+        this.ghostTransmissions = new long[numShards];
+    }
+
+    /**
+     * Returns the snapshot the simulation runs on.
+     *
+     * @return the snapshot.
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Sets the protocol of every node.
+     *
+     * @param handler the protocol.
+     */
+    public void setHandler(ProtocolHandler handler) {
+        Arrays.fill(handlers, handler);
+    }
+
+    /**
+     * Sets the protocol of one node. Packets arriving at a node without a protocol are discarded.
+     *
+     * @param node    the index of the node.
+     * @param handler the protocol.
+     */
+    public void setHandler(int node, ProtocolHandler handler) {
+        handlers[node] = handler;
+    }
+
+    /**
+     * Sets the bandwidth of the radios.
+     *
+     * @param bandwidth the number of bytes a radio transmits per unit of time.
+     * @throws IllegalArgumentException if bandwidth is not positive.
+     */
+    public void setBandwidth(double bandwidth) {
+        if (!(bandwidth > 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Sets the propagation delay of the links.
+     *
+     * @param propagationDelay the time a transmission takes per unit of link weight.
+     * @throws IllegalArgumentException if propagationDelay is negative.
+     */
+    public void setPropagationDelay(double propagationDelay) {
+        if (!(propagationDelay >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.propagationDelay = propagationDelay;
+    }
+
+    /**
+     * Sets the size of the transmit queue of every node. Packets that do not fit are dropped.
+     *
+     * @param queueCapacity the number of bytes a node can hold waiting for its radio.
+     * @throws IllegalArgumentException if queueCapacity is negative.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the size of the smallest packet the simulator accepts.
+     *
+     * @param minPacketSize the size in bytes.
+     */
+    void setMinPacketSize(int minPacketSize) {
+        this.minPacketSize = minPacketSize;
+    }
+
+    /**
+     * Returns the current simulation time.
+     *
+     * @return the time of the event being handled, or of the last one handled.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Creates a packet at the current time.
+     *
+     * @param source      the index of the node creating the packet.
+     * @param destination the index of the node the packet is for, or -1 for every node.
+     * @param size        the size of the packet in bytes.
+     * @param ttl         the maximum number of hops of the packet.
+     * @param payload     a value for the protocol.
+     * @return the new packet.
+     * @throws IllegalArgumentException if size is smaller than the smallest packet allowed.
+     */
+    public Packet newPacket(int source, int destination, int size, int ttl, int payload) {
+        if (size < minPacketSize) {
+            throw new IllegalArgumentException();
+        }
+        Packet packet = takePacket();
+        packet.set(nextPacketId, source, destination, size, ttl, payload, time);
+        // shards number their packets apart, so ids stay unique across a ParallelSimulator
+        nextPacketId += numShards;
+        return packet;
+    }
+
+    /**
+     * Transmits a packet from a node to one of its neighbors.
+     *
+     * @param node     the index of the transmitting node.
+     * @param neighbor the index of the receiving node.
+     * @param packet   the packet.
+     * @return false if the packet was dropped because the queue of the node is full.
+     * @throws IllegalArgumentException if the nodes are not linked.
+     */
+    public boolean send(int node, int neighbor, Packet packet) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int k = offsets[node];
+        while (k < offsets[node + 1] && targets[k] != neighbor) {
+            k++;
+        }
+        if (k == offsets[node + 1]) {
+            throw new IllegalArgumentException();
+        }
+        double end = transmit(node, packet);
+        if (end < 0) {
+            return false;
+        }
+        scheduleArrival(neighbor, node, packet, end + graph.getWeights()[k] * propagationDelay);
+        return true;
+    }
+
+    /**
+     * Transmits a packet from a node to all its neighbors at once.
+     *
+     * @param node   the index of the transmitting node.
+     * @param packet the packet.
+     * @return false if the packet was dropped because the queue of the node is full.
+     */
+    public boolean broadcast(int node, Packet packet) {
+        double end = transmit(node, packet);
+        if (end < 0) {
+            return false;
+        }
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        for (int k = graph.getOffsets()[node]; k < graph.getOffsets()[node + 1]; k++) {
+            scheduleArrival(targets[k], node, packet, end + weights[k] * propagationDelay);
+        }
+        return true;
+    }
+
+    /**
+     * Sets a timer on a node.
+     *
+     * @param node    the index of the node.
+     * @param delay   the time until the timer expires.
+     * @param timerId a value passed back to the onTimer method of the protocol.
+     * @throws IllegalArgumentException if delay is negative.
+     */
+    public void schedule(int node, double delay, int timerId) {
+        if (!(delay >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        SimulationEvent event = newEvent(SimulationEvent.TIMER, node, time + delay);
+        event.timerId = timerId;
+        queue.enqueue(event);
+    }
+
+    /**
+     * Records that a packet reached its destination, for the delivery statistics.
+     *
+     * @param node   the index of the node the packet was delivered to.
+     * @param packet the packet.
+     * @param hops   the number of hops the packet took.
+     */
+    public void deliver(int node, Packet packet, int hops) {
+        packetsDelivered++;
+        totalLatency += time - packet.getCreatedAt();
+        totalHops += hops;
+    }
+
+    /**
+     * Runs the simulation until no event is left.
+     *
+     * @return the number of events handled.
+     */
+    public long run() {
+        return run(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Runs the simulation until no event is left or the next one is after the given time.
+     *
+     * @param endTime the time at which the simulation stops.
+     * @return the number of events handled.
+     */
+    public long run(double endTime) {
+        long handled = 0;
+        SimulationEvent event;
+        while ((event = queue.dequeue()) != null) {
+            if (event.time > endTime) {
+                queue.enqueue(event);
+                break;
+            }
+            time = event.time;
+            ProtocolHandler handler = handlers[event.node];
+            if (event.type == SimulationEvent.ARRIVAL) {
+                Packet packet = event.packet;
+                if (handler != null) {
+                    currentHops = event.hops;
+                    handler.onPacket(this, event.node, event.from, packet, currentHops);
+                    currentHops = 0;
+                }
+                if (--packet.references == 0) {
+                    packet.references = -1;
+                    packet.next = freePackets;
+                    freePackets = packet;
+                }
+            } else if (handler != null) {
+                handler.onTimer(this, event.node, event.timerId);
+            }
+            event.packet = null;
+            event.next = freeEvents;
+            freeEvents = event;
+            handled++;
+        }
+        eventsProcessed += handled;
+        return handled;
+    }
+
+    /**
+     * Returns the number of events waiting in the queue.
+     *
+     * @return the number of pending events.
+     */
+    public int getPendingEvents() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of events handled so far.
+     *
+     * @return the number of events handled.
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    /**
+     * Returns the number of transmissions so far. A broadcast counts once.
+     *
+     * @return the number of transmissions.
+     */
+    public long getTransmissions() {
+        return transmissions;
+    }
+
+    /**
+     * Returns the number of packets dropped because a transmit queue was full.
+     *
+     * @return the number of dropped packets.
+     */
+    public long getPacketsDropped() {
+        return packetsDropped;
+    }
+
+    /**
+     * Returns the number of packets delivered so far.
+     *
+     * @return the number of calls to deliver.
+     */
+    public long getPacketsDelivered() {
+        return packetsDelivered;
+    }
+
+    /**
+     * Returns the average time from the creation of a packet to its delivery.
+     *
+     * @return the average latency, or 0 if no packet was delivered.
+     */
+    public double getAverageLatency() {
+        return packetsDelivered == 0 ? 0 : totalLatency / packetsDelivered;
+    }
+
+    /**
+     * Returns the average number of hops of the delivered packets.
+     *
+     * @return the average hop count, or 0 if no packet was delivered.
+     */
+    public double getAverageHops() {
+        return packetsDelivered == 0 ? 0 : (double) totalHops / packetsDelivered;
+    }
+
+    /**
+     * Returns the time of the next event in the queue.
+     *
+     * @return the time of the next event, or positive infinity if there is none.
+     */
+    double nextEventTime() {
+        SimulationEvent next = queue.peek();
+        return next == null ? Double.POSITIVE_INFINITY : next.time;
+    }
+
+    /**
+     * Moves the arrivals another shard batched for this one into the queue. Their sequence numbers are renumbered
+     * in the order of this shard, so events with equal times still run in a deterministic order.
+     *
+     * @param from the other shard.
+     */
+    void receive(Simulator from) {
+        ArrayList<SimulationEvent> inbox = from.outboxes[shard];
+        for (int i = 0; i < inbox.size(); i++) {
+            SimulationEvent event = inbox.get(i);
+            event.sequence = nextSequence++;
+            queue.enqueue(event);
+        }
+        inbox.clear();
+        from.ghostCopies[shard] = null;
+    }
+
+    /**
+     * Queues a transmission on the radio of a node.
+     *
+     * @return the time the transmission ends, or -1 if the queue is full and the packet was dropped.
+     */
+    private double transmit(int node, Packet packet) {
+        double start = Math.max(time, busyUntil[node]);
+        // the bytes still waiting for the radio, since it transmits them back to back
+        if ((start - time) * bandwidth + packet.getSize() > queueCapacity + 1e-9) {
+            packetsDropped++;
+            return -1;
+        }
+        busyUntil[node] = start + packet.getSize() / bandwidth;
+        transmissions++;
+        return busyUntil[node];
+    }
+
+    private void scheduleArrival(int node, int from, Packet packet, double arrival) {
+        SimulationEvent event = newEvent(SimulationEvent.ARRIVAL, node, arrival);
+        event.from = from;
+        event.hops = currentHops + 1;
+        if (owner == null || owner[node] == shard) {
+            event.packet = packet;
+            packet.references++;
+            queue.enqueue(event);
+            return;
+        }
+
+        // a ghost arrival: the other shard gets its own copy of the packet, since reference counts are not shared
+        int target = owner[node];
+        Packet copy = ghostCopies[target];
+        if (copy == null || ghostTransmissions[target] != transmissions) {
+            copy = takePacket();
+            copy.copyFrom(packet);
+            ghostCopies[target] = copy;
+            ghostTransmissions[target] = transmissions;
+        }
+        event.packet = copy;
+        copy.references++;
+        outboxes[target].add(event);
+    }
+
+    private Packet takePacket() {
+        Packet packet = freePackets;
+        if (packet != null) {
+            freePackets = packet.next;
+            packet.next = null;
+        } else {
+            packet = new Packet();
+        }
+        packet.references = 0;
+        return packet;
+    }
+
+    private SimulationEvent newEvent(int type, int node, double eventTime) {
+        SimulationEvent event = freeEvents;
+        if (event != null) {
+            freeEvents = event.next;
+            event.next = null;
+        } else {
+            event = new SimulationEvent();
+        }
+        event.type = type;
+        event.node = node;
+        event.time = eventTime;
+        event.sequence = nextSequence++;
+        return event;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * This class represents a signal to interference plus noise ratio model. Powers fall with the distance as in
+ * the log-distance path loss model without shadowing. A receiver hears a transmitter of its batch when the power
+ * received from it, divided by the noise plus the interference, is at least the threshold. The interference is
+ * the power received from the rest of the batch, every node of which transmits at the same time with probability
+ * activity; nodes beyond the range are too weak to count.
+ * So in dense areas long links are drowned out while the same links stay up in sparse ones. The ratio at the two
+ * ends of a link differs, so the model is not symmetric and a link needs both ends to hear each other.
+ * The weight of a link is the distance.
+ */
+public class SinrModel implements PropagationModel {
+
+    private final double exponent;
+    private final double activity;
+
+    /**
+     * The received power at distance 1 and the noise, in mW, and the threshold as a ratio.
+     */
+    private final double referencePower;
+    private final double noise;
+    private final double threshold;
+
+    /**
+     * Constructs a new SinrModel.
+     *
+     * @param transmitPower the transmit power in dBm.
+     * @param referenceLoss the loss at distance 1 in dB.
+     * @param exponent      the path loss exponent.
+     * @param noise         the noise floor in dBm.
+     * @param threshold     the lowest ratio heard in dB.
+     * @param activity      the probability that a node transmits at any time.
+     * @throws IllegalArgumentException if exponent is not positive, activity is not between 0 and 1,
+     *                                  or no link is possible.
+     */
+    public SinrModel(double transmitPower, double referenceLoss, double exponent, double noise, double threshold,
+                     double activity) {
+        if (!(exponent > 0) || !(activity >= 0 && activity <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.exponent = exponent;
+        this.activity = activity;
+        this.referencePower = Math.pow(10, (transmitPower - referenceLoss) / 10);
+        this.noise = Math.pow(10, noise / 10);
+        this.threshold = Math.pow(10, threshold / 10);
+        if (!(getRange() > 0) || getRange() == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Returns the distance at which the ratio without interference falls to the threshold.
+     *
+     * @return the range of the model.
+     */
+    @Override
+    public double getRange() {
+        return Math.max(1, Math.pow(referencePower / (noise * threshold), 1 / exponent));
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return false;
+    }
+
+    @Override
+    public int receive(int receiver, int[] transmitters, double[] distances, int count, double[] weights) {
+        //the power of every transmitter in one loop, then their sum, then the ratio of each
+        double total = 0;
+        for (int k = 0; k < count; k++) {
+            weights[k] = referencePower * Math.pow(Math.max(distances[k], 1), -exponent);
+        }
+        for (int k = 0; k < count; k++) {
+            total += weights[k];
+        }
+        int heard = 0;
+        for (int k = 0; k < count; k++) {
+            double power = weights[k];
+            if (power >= threshold * (noise + activity * (total - power))) {
+                transmitters[heard] = transmitters[k];
+                weights[heard] = distances[k];
+                heard++;
+            }
+        }
+        return heard;
+    }
+}
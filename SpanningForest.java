@@ -0,0 +1,104 @@
+/**
+ * This class represents a minimum spanning forest of a CsrGraph as a compact list of links.
+ * Link i joins the nodes with snapshot indexes getFrom()[i] and getTo()[i] and has weight getWeights()[i].
+ * A connected graph gives a spanning tree with one link less than it has nodes; a graph with several
+ * connected components gives one tree per component.
+ */
+public class SpanningForest {
+
+    private final int numNodes;
+    private final int[] from;
+    private final int[] to;
+    private final double[] weights;
+    private final int numLinks;
+
+    /**
+     * Constructs a new SpanningForest from its arrays, of which only the first numLinks entries are used.
+     *
+     * @param numNodes the number of nodes of the graph.
+     * @param from     the first node of every link.
+     * @param to       the second node of every link.
+     * @param weights  the weight of every link.
+     * @param numLinks the number of links in the forest.
+     */
+    SpanningForest(int numNodes, int[] from, int[] to, double[] weights, int numLinks) {
+        this.numNodes = numNodes;
+        this.from = from;
+        this.to = to;
+        this.weights = weights;
+        this.numLinks = numLinks;
+    }
+
+    /**
+     * Returns the number of links in the forest.
+     *
+     * @return the number of links.
+     */
+    public int getNumLinks() {
+        return numLinks;
+    }
+
+    /**
+     * Returns the number of trees in the forest, which is the number of connected components of the graph.
+     *
+     * @return the number of trees.
+     */
+    public int getNumTrees() {
+        return numNodes - numLinks;
+    }
+
+    /**
+     * Returns the sum of the weights of the links in the forest.
+     *
+     * @return the total weight.
+     */
+    public double getTotalWeight() {
+        double total = 0;
+        for (int i = 0; i < numLinks; i++) {
+            total += weights[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the first node of every link. Only the first getNumLinks() entries are used; the array must not be modified.
+     *
+     * @return the snapshot indexes of the first nodes.
+     */
+    public int[] getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the second node of every link. Only the first getNumLinks() entries are used; the array must not be modified.
+     *
+     * @return the snapshot indexes of the second nodes.
+     */
+    public int[] getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the weight of every link. Only the first getNumLinks() entries are used; the array must not be modified.
+     *
+     * @return the weights of the links.
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns the forest as a numNodes x numNodes matrix with 1 for every link in the forest and 0 elsewhere.
+     * The matrix takes numNodes * numNodes ints, so it is only meant for small graphs.
+     *
+     * @return the adjacency matrix of the forest.
+     */
+    public int[][] toAdjacencyMatrix() {
+        int[][] matrix = new int[numNodes][numNodes];
+        for (int i = 0; i < numLinks; i++) {
+            matrix[from[i]][to[i]] = 1;
+            matrix[to[i]][from[i]] = 1;
+        }
+        return matrix;
+    }
+}
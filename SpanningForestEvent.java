@@ -0,0 +1,19 @@
+import jdk.jfr.*;
+
+/**
+ * The JFR event of a minimum spanning forest computation of Network.
+ */
+@Name("netgraph.SpanningForest")
+@Label("Minimum Spanning Forest")
+@Category("NetGraph")
+public class SpanningForestEvent extends Event {
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Links")
+    int links;
+}
@@ -0,0 +1,148 @@
+import java.util.*;
+
+/**
+ * This class represents a uniform grid (cell list) over a set of points in the plane.
+ * Every cell is a square of side cellSize, so any two points at a distance of at most cellSize
+ * from each other are always in the same cell or in two cells that touch.
+ * The grid is built once with a counting sort and is not changed afterwards.
+ */
+public class SpatialGrid {
+
+    /**
+     * The maximum number of cells per point. When the points are very sparse the cells are made larger,
+     * so that the grid never costs much more memory than the points themselves.
+     */
+    private static final int MAX_CELLS_PER_POINT = 4;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * cellStart[c] is the position in cellPoints of the first point of cell c; the points of cell c
+     * are stored in cellPoints[cellStart[c]] ... cellPoints[cellStart[c + 1] - 1] in ascending order.
+     */
+    private final int[] cellStart;
+    private final int[] cellPoints;
+    private final int[] pointCell;
+
+    /**
+     * Constructs a new SpatialGrid over the given points.
+     *
+     * @param x        the x coordinates of the points.
+     * @param y        the y coordinates of the points.
+     * @param cellSize the minimum side of a cell, usually the radio range.
+     * @throws IllegalArgumentException if the arrays have different lengths or cellSize is not positive.
+     */
+    public SpatialGrid(double[] x, double[] y, double cellSize) {
+        if (x.length != y.length || !(cellSize > 0)) {
+            throw new IllegalArgumentException();
+        }
+        int numPoints = x.length;
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numPoints; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        if (numPoints == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // grow the cells until the grid has a bounded number of cells per point
+        long maxCells = Math.max(1L, (long) MAX_CELLS_PER_POINT * numPoints);
+        while ((long) (Math.floor((maxX - minX) / cellSize) + 1) * (long) (Math.floor((maxY - minY) / cellSize) + 1) > maxCells) {
+            cellSize *= 2;
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = (int) Math.floor((maxX - minX) / cellSize) + 1;
+        this.rows = (int) Math.floor((maxY - minY) / cellSize) + 1;
+
+        // counting sort of the points by cell
+        this.pointCell = new int[numPoints];
+        this.cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < numPoints; i++) {
+            int cell = cellOf(x[i], y[i]);
+            pointCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellPoints = new int[numPoints];
+        int[] next = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < numPoints; i++) {
+            cellPoints[next[pointCell[i]]++] = i;
+        }
+    }
+
+    /**
+     * Returns the side of a cell in the grid, which is at least the cell size given to the constructor.
+     *
+     * @return the side of a cell.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns an upper bound on the number of candidates of any point, which is a safe size
+     * for the buffer passed to getCandidates.
+     *
+     * @return the largest number of points in any block of three by three cells.
+     */
+    public int maxCandidates() {
+        int max = 0;
+        for (int cell = 0; cell < columns * rows; cell++) {
+            max = Math.max(max, cellStart[cell + 1] - cellStart[cell]);
+        }
+        return 9 * max;
+    }
+
+    /**
+     * Copies into out the indexes greater than minIndex of every point that lies in the cell of the given point
+     * or in one of the eight cells around it. These are all the points that can be within cellSize of the given
+     * point, plus some that are further away, so the caller still has to check the distance.
+     *
+     * @param point    the index of the point whose candidates are returned.
+     * @param minIndex only candidates with an index greater than minIndex are returned.
+     * @param out      the buffer receiving the candidates, at least maxCandidates() long.
+     * @return the number of candidates copied into out.
+     */
+    public int getCandidates(int point, int minIndex, int[] out) {
+        int count = 0;
+        int cell = pointCell[point];
+        int column = cell % columns;
+        int row = cell / columns;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                int neighborCell = r * columns + c;
+                for (int k = cellStart[neighborCell]; k < cellStart[neighborCell + 1]; k++) {
+                    if (cellPoints[k] > minIndex && cellPoints[k] != point) {
+                        out[count++] = cellPoints[k];
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the cell containing the given coordinates.
+     */
+    private int cellOf(double x, double y) {
+        int column = Math.min(columns - 1, (int) ((x - minX) / cellSize));
+        int row = Math.min(rows - 1, (int) ((y - minY) / cellSize));
+        return row * columns + column;
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * This class builds seeded random networks, placing the nodes in parallel.
+ * The nodes are placed in blocks of fixed size. Every block draws from its own SplittableRandom stream,
+ * split from a stream started from the seed in block order, so the positions only depend on the seed and never
+ * on the number of threads or the order in which the blocks run. The links are then decided in parallel too,
+ * and the same seed and settings always give the same network.
+ */
+public class TopologyGenerator {
+
+    /**
+     * The number of nodes placed by one task, each with its own random stream.
+     */
+    private static final int NODES_PER_TASK = 16384;
+
+    private final long seed;
+    private Deployment deployment = Deployment.UNIFORM;
+    private PropagationModel model = new UnitDiskModel(Network.RADIO_RANGE);
+    private int numClusters = 16;
+    private double clusterSpread = 0.05;
+    private double jitter = 0.5;
+    private double corridorWidth = 0.1;
+    private boolean parallel = true;
+
+    /**
+     * Constructs a new TopologyGenerator placing nodes uniformly and linking them within the radio range.
+     *
+     * @param seed the seed of every random choice of the generator.
+     */
+    public TopologyGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets how the nodes are spread over the area.
+     *
+     * @param deployment the layout of the nodes.
+     * @throws IllegalArgumentException if deployment is null.
+     */
+    public void setDeployment(Deployment deployment) {
+        if (deployment == null) {
+            throw new IllegalArgumentException();
+        }
+        this.deployment = deployment;
+    }
+
+    /**
+     * Sets the model deciding which nodes are linked.
+     *
+     * @param model the propagation model.
+     * @throws IllegalArgumentException if model is null.
+     */
+    public void setPropagationModel(PropagationModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException();
+        }
+        this.model = model;
+    }
+
+    /**
+     * Sets the clusters of the CLUSTERED deployment.
+     *
+     * @param numClusters the number of cluster centers.
+     * @param spread      the standard deviation of the distance of a node from its center, as a fraction of the side.
+     * @throws IllegalArgumentException if numClusters or spread is not positive.
+     */
+    public void setClusters(int numClusters, double spread) {
+        if (numClusters < 1 || !(spread > 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.numClusters = numClusters;
+        this.clusterSpread = spread;
+    }
+
+    /**
+     * Sets how far nodes of the JITTERED_GRID deployment may move from their grid point.
+     *
+     * @param jitter the largest move along each axis, as a fraction of the grid spacing, from 0 to 1.
+     * @throws IllegalArgumentException if jitter is not between 0 and 1.
+     */
+    public void setJitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.jitter = jitter;
+    }
+
+    /**
+     * Sets the width of the band of the CORRIDOR deployment.
+     *
+     * @param width the width of the corridor, as a fraction of the side, from 0 to 1.
+     * @throws IllegalArgumentException if width is not between 0 and 1.
+     */
+    public void setCorridorWidth(double width) {
+        if (!(width >= 0 && width <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.corridorWidth = width;
+    }
+
+    /**
+     * Sets whether nodes are placed and linked on the common fork-join pool. The network is the same either way.
+     *
+     * @param parallel true to build in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Builds a network of the given size. Node i gets id i and the name "node " + i.
+     *
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side       the side length of the square area in which the nodes will be placed.
+     * @return the network.
+     * @throws IllegalArgumentException if numofNodes is negative or side is not positive.
+     */
+    public Network generateNetwork(int numofNodes, double side) {
+        return new Network(generateCompactGraph(numofNodes, side).toNetGraph(), model);
+    }
+
+    /**
+     * Builds the graph of a network of the given size straight into a CompactGraph, the same graph
+     * generateNetwork builds.
+     *
+     * @param numofNodes the number of nodes to create in the network.
+     * @param side       the side length of the square area in which the nodes will be placed.
+     * @return the graph of the network.
+     * @throws IllegalArgumentException if numofNodes is negative or side is not positive.
+     */
+    public CompactGraph generateCompactGraph(int numofNodes, double side) {
+        if (numofNodes < 0 || !(side > 0)) {
+            throw new IllegalArgumentException();
+        }
+        double[] x = new double[numofNodes];
+        double[] y = new double[numofNodes];
+        place(side, x, y);
+        return Network.link(x, y, model, parallel);
+    }
+
+    /**
+     * Places the nodes, block by block.
+     */
+    private void place(double side, double[] x, double[] y) {
+        int numofNodes = x.length;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        //the cluster centers come first from the stream of the seed, then one stream per block
+        double[] centerX = new double[numClusters];
+        double[] centerY = new double[numClusters];
+        for (int c = 0; c < numClusters; c++) {
+            centerX[c] = side * random.nextDouble();
+            centerY[c] = side * random.nextDouble();
+        }
+        int numTasks = (numofNodes + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        SplittableRandom[] streams = new SplittableRandom[numTasks];
+        for (int task = 0; task < numTasks; task++) {
+            streams[task] = random.split();
+        }
+
+        int columns = (int) Math.ceil(Math.sqrt(numofNodes));
+        int rows = columns == 0 ? 0 : (numofNodes + columns - 1) / columns;
+        IntStream tasks = IntStream.range(0, numTasks);
+        (parallel ? tasks.parallel() : tasks).forEach(task -> {
+            SplittableRandom stream = streams[task];
+            for (int i = task * NODES_PER_TASK; i < Math.min(numofNodes, (task + 1) * NODES_PER_TASK); i++) {
+                switch (deployment) {
+                    case UNIFORM:
+                        x[i] = side * stream.nextDouble();
+                        y[i] = side * stream.nextDouble();
+                        break;
+                    case CLUSTERED:
+                        int c = stream.nextInt(numClusters);
+                        x[i] = reflect(centerX[c] + side * clusterSpread * gaussian(stream), side);
+                        y[i] = reflect(centerY[c] + side * clusterSpread * gaussian(stream), side);
+                        break;
+                    case JITTERED_GRID:
+                        double spacingX = side / columns;
+                        double spacingY = side / rows;
+                        x[i] = (i % columns + 0.5 + jitter * (stream.nextDouble() - 0.5)) * spacingX;
+                        y[i] = (i / columns + 0.5 + jitter * (stream.nextDouble() - 0.5)) * spacingY;
+                        break;
+                    case CORRIDOR:
+                        x[i] = side * stream.nextDouble();
+                        y[i] = side * (0.5 + corridorWidth * (stream.nextDouble() - 0.5));
+                        break;
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a normally distributed number by the Box-Muller transform. SplittableRandom has no nextGaussian.
+     */
+    private static double gaussian(SplittableRandom stream) {
+        double u1 = 1 - stream.nextDouble();
+        double u2 = stream.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    /**
+     * Mirrors a coordinate that fell outside the area back into it.
+     */
+    private static double reflect(double coordinate, double side) {
+        if (coordinate < 0) {
+            coordinate = -coordinate;
+        }
+        if (coordinate > side) {
+            coordinate = 2 * side - coordinate;
+        }
+        return Math.max(0, Math.min(side, coordinate));
+    }
+}
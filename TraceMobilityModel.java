@@ -0,0 +1,95 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class replays a mobility trace. Every line of the trace is "time id x y": at the given time the node
+ * with the given id moves to (x, y). Lines must be in ascending order of time; blank lines and lines starting
+ * with # are skipped.
+ */
+public class TraceMobilityModel implements MobilityModel {
+
+    private final NetGraph graph;
+    private final double[] times;
+    private final int[] ids;
+    private final double[] x;
+    private final double[] y;
+    private final int numRecords;
+    private int next;
+
+    private TraceMobilityModel(NetGraph graph, double[] times, int[] ids, double[] x, double[] y, int numRecords) {
+        this.graph = graph;
+        this.times = times;
+        this.ids = ids;
+        this.x = x;
+        this.y = y;
+        this.numRecords = numRecords;
+    }
+
+    /**
+     * Reads a trace.
+     *
+     * @param reader the source of the trace.
+     * @param graph  the graph whose nodes the trace moves.
+     * @return the model replaying the trace.
+     * @throws IOException if the trace cannot be read.
+     * @throws IllegalArgumentException if a line is malformed or the lines are not in order of time.
+     */
+    public static TraceMobilityModel read(Reader reader, NetGraph graph) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        double[] times = new double[1024];
+        int[] ids = new int[1024];
+        double[] x = new double[1024];
+        double[] y = new double[1024];
+        int numRecords = 0;
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 4) {
+                throw new IllegalArgumentException(line);
+            }
+            if (numRecords == times.length) {
+                times = Arrays.copyOf(times, 2 * numRecords);
+                ids = Arrays.copyOf(ids, 2 * numRecords);
+                x = Arrays.copyOf(x, 2 * numRecords);
+                y = Arrays.copyOf(y, 2 * numRecords);
+            }
+            try {
+                times[numRecords] = Double.parseDouble(fields[0]);
+                ids[numRecords] = Integer.parseInt(fields[1]);
+                x[numRecords] = Double.parseDouble(fields[2]);
+                y[numRecords] = Double.parseDouble(fields[3]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(line, e);
+            }
+            if (numRecords > 0 && times[numRecords] < times[numRecords - 1]) {
+                throw new IllegalArgumentException(line);
+            }
+            numRecords++;
+        }
+        return new TraceMobilityModel(graph, times, ids, x, y, numRecords);
+    }
+
+    @Override
+    public void advance(double time, MobilityEngine engine) {
+        for (; next < numRecords && times[next] <= time; next++) {
+            NetNode node = graph.getNetNode(ids[next]);
+            if (node != null) {
+                engine.moveNode(node, x[next], y[next]);
+            }
+        }
+    }
+
+    /**
+     * Returns whether every move of the trace has been replayed.
+     *
+     * @return true if the trace is finished.
+     */
+    public boolean isFinished() {
+        return next == numRecords;
+    }
+}
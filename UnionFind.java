@@ -0,0 +1,112 @@
+import java.util.*;
+
+/**
+ * This class represents a union-find (disjoint set) structure over the elements 0 ... size - 1,
+ * with union by size and path halving, so every operation takes almost constant amortized time.
+ */
+public class UnionFind {
+
+    private int[] parent;
+    private int[] size;
+    private int numElements;
+    private int numSets;
+
+    /**
+     * Constructs a new UnionFind in which every element is in a set of its own.
+     *
+     * @param numElements the number of elements.
+     */
+    public UnionFind(int numElements) {
+        this.parent = new int[numElements];
+        this.size = new int[numElements];
+        for (int i = 0; i < numElements; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        this.numElements = numElements;
+        this.numSets = numElements;
+    }
+
+    /**
+     * Adds a new element in a set of its own.
+     *
+     * @return the new element, which is the previous number of elements.
+     */
+    public int add() {
+        if (numElements == parent.length) {
+            int capacity = Math.max(16, 2 * numElements);
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+        }
+        parent[numElements] = numElements;
+        size[numElements] = 1;
+        numSets++;
+        return numElements++;
+    }
+
+    /**
+     * Returns the representative of the set containing the given element.
+     *
+     * @param element the element.
+     * @return the root of the set of the element.
+     */
+    public int find(int element) {
+        while (parent[element] != element) {
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets containing the two given elements.
+     *
+     * @param element1 the first element.
+     * @param element2 the second element.
+     * @return true if the elements were in different sets, false if they were already in the same set.
+     */
+    public boolean union(int element1, int element2) {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2) {
+            return false;
+        }
+        if (size[root1] < size[root2]) {
+            int swap = root1;
+            root1 = root2;
+            root2 = swap;
+        }
+        parent[root2] = root1;
+        size[root1] += size[root2];
+        numSets--;
+        return true;
+    }
+
+    /**
+     * Returns the number of elements in the set containing the given element.
+     *
+     * @param element the element.
+     * @return the size of the set of the element.
+     */
+    public int setSize(int element) {
+        return size[find(element)];
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     *
+     * @return the number of sets.
+     */
+    public int getNumSets() {
+        return numSets;
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements.
+     */
+    public int getNumElements() {
+        return numElements;
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * This class represents the unit disk model: two nodes are linked when the distance between them is at most
+ * the range, whatever lies around them, and the weight of the link is the distance.
+ */
+public class UnitDiskModel implements PropagationModel {
+
+    private final double range;
+
+    /**
+     * Constructs a new UnitDiskModel.
+     *
+     * @param range the largest distance at which two nodes are linked.
+     * @throws IllegalArgumentException if range is not positive.
+     */
+    public UnitDiskModel(double range) {
+        if (!(range > 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.range = range;
+    }
+
+    @Override
+    public double getRange() {
+        return range;
+    }
+
+    @Override
+    public int receive(int receiver, int[] transmitters, double[] distances, int count, double[] weights) {
+        int heard = DistanceKernel.withinRange(transmitters, distances, count, range);
+        System.arraycopy(distances, 0, weights, 0, heard);
+        return heard;
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.*;
+
+/**
+ * The implementation of bench.NetworkWorkload over Network and NetGraph. Enum names are resolved on first use
+ * and cached, so the measured calls do not parse them.
+ */
+public class NetworkWorkloads implements bench.NetworkWorkload {
+
+    private Network network;
+    private NetGraph graph;
+    private NetNode[] first;
+    private NetNode[] second;
+    private int[] firstIndex;
+    private int nextId;
+    private GraphBatch addBatch;
+    private GraphBatch removeBatch;
+    private NetNode[] neighbors;
+    private double[] weights;
+
+    private String modeName;
+    private RoutingMode mode;
+
+    private Simulator simulator;
+    private FloodingProtocol flooding;
+    private ParallelSimulator parallelSimulator;
+    private FloodingProtocol parallelFlooding;
+    private BreadthFirstSearch search;
+
+    /**
+     * Returns the side of the square area that gives the requested average degree for the given number of nodes.
+     */
+    static double side(int numofNodes, double averageDegree) {
+        return Math.sqrt(numofNodes * Math.PI * Network.RADIO_RANGE * Network.RADIO_RANGE / averageDegree);
+    }
+
+    @Override
+    public void setUp(int numofNodes, double averageDegree, int numQueries) {
+        network = buildNetwork(numofNodes, averageDegree);
+        graph = network.getNetworkGraph();
+        Random random = new Random(SEED);
+        first = new NetNode[numQueries];
+        second = new NetNode[numQueries];
+        firstIndex = new int[numQueries];
+        for (int i = 0; i < numQueries; i++) {
+            firstIndex[i] = random.nextInt(numofNodes);
+            first[i] = graph.nodeFromIndex(firstIndex[i]);
+            // addLink does nothing on linked pairs, so the removeLink of addAndRemoveLink would wear the network away
+            do {
+                second[i] = graph.nodeFromIndex(random.nextInt(numofNodes));
+            } while (isLinked(first[i], second[i]));
+        }
+        nextId = numofNodes;
+        addBatch = null;
+    }
+
+    private boolean isLinked(NetNode node1, NetNode node2) {
+        for (Adjacent adjacent : graph.getAdjacents(node1)) {
+            if (adjacent.getNeighbor() == node2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean enabled) {
+        Metrics.setEnabled(enabled);
+    }
+
+    @Override
+    public Network buildNetwork(int numofNodes, double averageDegree) {
+        return new Network(numofNodes, side(numofNodes, averageDegree), SEED);
+    }
+
+    @Override
+    public CompactGraph buildCompactNetwork(int numofNodes, double averageDegree) {
+        return Network.compactGraph(numofNodes, side(numofNodes, averageDegree), SEED);
+    }
+
+    @Override
+    public CompactGraph buildCompactNetwork(int numofNodes, double averageDegree, String model) {
+        return Network.compactGraph(numofNodes, side(numofNodes, averageDegree), SEED, propagationModel(model));
+    }
+
+    @Override
+    public CompactGraph generateTopology(int numofNodes, double averageDegree, String deployment, boolean parallel) {
+        TopologyGenerator generator = new TopologyGenerator(SEED);
+        generator.setDeployment(Deployment.valueOf(deployment));
+        generator.setParallel(parallel);
+        return generator.generateCompactGraph(numofNodes, side(numofNodes, averageDegree));
+    }
+
+    /**
+     * Returns a model of the given name reaching as far as the radio range, from 20 dBm transmitters
+     * losing 40 dB at distance 1 and 30 dB more every tenfold distance.
+     */
+    private static PropagationModel propagationModel(String model) {
+        double loss = 40 + 30 * Math.log10(Network.RADIO_RANGE);
+        switch (model) {
+            case "unitDisk":
+                return new UnitDiskModel(Network.RADIO_RANGE);
+            case "logDistance":
+                // 4 dB of shadowing stretch the range by 3 deviations, so the sensitivity is raised to match
+                return new LogDistanceModel(20, 40, 3, 20 - loss + 12, 4, SEED);
+            case "sinr":
+                return new SinrModel(20, 40, 3, 20 - loss - 10, 10, 0.01);
+            default:
+                throw new IllegalArgumentException(model);
+        }
+    }
+
+    @Override
+    public void addAndRemoveLink(int query) {
+        graph.addLink(first[query], second[query], 1);
+        graph.removeLink(first[query], second[query]);
+    }
+
+    @Override
+    public int addAndRemoveLinks() {
+        if (addBatch == null) {
+            addBatch = new GraphBatch(first.length);
+            removeBatch = new GraphBatch(first.length);
+            for (int i = 0; i < first.length; i++) {
+                addBatch.addLink(first[i].getId(), second[i].getId(), 1);
+                removeBatch.removeLink(first[i].getId(), second[i].getId());
+            }
+        }
+        return graph.apply(addBatch) + graph.apply(removeBatch);
+    }
+
+    @Override
+    public void deleteAndInsertNode(int query) {
+        // replace a node found by position rather than through the pairs, which the deletion would leave stale
+        NetNode node = graph.nodeFromIndex(firstIndex[query] % graph.getNumNodes());
+        LinkedList<Adjacent> adjacents = graph.getAdjacents(node);
+        int degree = adjacents.size();
+        if (neighbors == null || neighbors.length < degree) {
+            neighbors = new NetNode[Math.max(16, degree * 2)];
+            weights = new double[neighbors.length];
+        }
+        int k = 0;
+        for (Adjacent adjacent : adjacents) {
+            neighbors[k] = adjacent.getNeighbor();
+            weights[k++] = adjacent.getWeight();
+        }
+        graph.deleteNetNode(node);
+        int id = nextId++;
+        graph.insertNetNode(id, node.getName(), node.getX_coordinate(), node.getY_coordinate());
+
+        // the new node takes over the links of the old one, or every node would end up isolated after enough calls
+        NetNode inserted = graph.getNetNode(id);
+        for (int i = 0; i < degree; i++) {
+            graph.addLink(inserted, neighbors[i] == node ? inserted : neighbors[i], weights[i]);
+            neighbors[i] = null;
+        }
+    }
+
+    @Override
+    public ArrayList<NetNode> getShortestPath(int query, String mode) {
+        if (!mode.equals(modeName)) {
+            this.modeName = mode;
+            this.mode = RoutingMode.valueOf(mode);
+        }
+        return network.getShortestPath(first[query], second[query], this.mode);
+    }
+
+    @Override
+    public int getNumSettled() {
+        return ShortestPathEngine.workspace().getNumSettled();
+    }
+
+    @Override
+    public SpanningForest minSpanningForest(String algorithm) {
+        return network.minSpanningForest(MstAlgorithm.valueOf(algorithm));
+    }
+
+    @Override
+    public int[][] minSpanningTree() {
+        return network.minSpanningTree();
+    }
+
+    @Override
+    public int getNumLinks() {
+        return graph.getNumLinks();
+    }
+
+    @Override
+    public int getGraphMaxDegree() {
+        return graph.getGraphMaxDegree();
+    }
+
+    @Override
+    public double estimateClusteringCoefficient(int samples) {
+        return graph.estimateClusteringCoefficient(samples, SEED);
+    }
+
+    @Override
+    public String printGraph() {
+        return graph.printGraph();
+    }
+
+    @Override
+    public long simulateFlood(int query) {
+        if (simulator == null) {
+            simulator = new Simulator(graph);
+            flooding = new FloodingProtocol(simulator);
+        }
+        flooding.flood(simulator, firstIndex[query], 512, Integer.MAX_VALUE);
+        return simulator.run();
+    }
+
+    @Override
+    public long simulateParallelFlood(int query, int numTiles) {
+        if (parallelSimulator == null || parallelSimulator.getNumTiles() != numTiles) {
+            parallelSimulator = new ParallelSimulator(graph.freeze(), numTiles);
+            parallelSimulator.setMinPacketSize(512);
+            parallelFlooding = new FloodingProtocol(parallelSimulator);
+        }
+        int source = firstIndex[query];
+        parallelFlooding.flood(parallelSimulator.getShard(source), source, 512, Integer.MAX_VALUE);
+        return parallelSimulator.run();
+    }
+
+    @Override
+    public int breadthFirstSearch(int query, boolean parallel) {
+        if (search == null) {
+            search = new BreadthFirstSearch(graph.freeze());
+        }
+        search.setParallel(parallel);
+        return search.run(firstIndex[query]);
+    }
+
+    @Override
+    public NextHopTable computeNextHopTables(int numSources) {
+        int numNodes = graph.getNumNodes();
+        int[] sources = new int[Math.min(numSources, numNodes)];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = (int) ((long) i * numNodes / sources.length);
+        }
+        return NextHopTable.compute(graph.freeze(), sources);
+    }
+
+    @Override
+    public double[] estimateBetweenness(int numSamples, boolean weighted) {
+        BetweennessCentrality centrality = new BetweennessCentrality(graph.freeze());
+        centrality.setWeighted(weighted);
+        return centrality.estimate(numSamples, SEED);
+    }
+}
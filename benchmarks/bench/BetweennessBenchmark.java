@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the parallel estimation of betweenness centrality from a fixed number of random sources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class BetweennessBenchmark {
+
+    private static final int NUM_SAMPLES = 256;
+
+    @Param({"1000", "10000", "100000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    @Param({"false", "true"})
+    public boolean weighted;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, 1);
+    }
+
+    @Benchmark
+    public Object estimateBetweenness() {
+        return workload.estimateBetweenness(NUM_SAMPLES, weighted);
+    }
+}
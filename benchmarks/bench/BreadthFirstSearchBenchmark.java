@@ -0,0 +1,41 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures hop-count searches over the whole component of random nodes, sequential and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class BreadthFirstSearchBenchmark {
+
+    private static final int NUM_QUERIES = 1 << 10;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_QUERIES);
+    }
+
+    @Benchmark
+    public int breadthFirstSearch() {
+        return workload.breadthFirstSearch(next++ & (NUM_QUERIES - 1), parallel);
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures changing a NetGraph: adding and removing links, one by one and in batches, and replacing nodes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class ChurnBenchmark {
+
+    private static final int NUM_PAIRS = 1 << 16;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_PAIRS);
+    }
+
+    @Benchmark
+    public void addAndRemoveLink() {
+        workload.addAndRemoveLink(next++ & (NUM_PAIRS - 1));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PAIRS)
+    public int addAndRemoveLinks() {
+        return workload.addAndRemoveLinks();
+    }
+
+    @Benchmark
+    public void deleteAndInsertNode() {
+        workload.deleteAndInsertNode(next++ & (NUM_PAIRS - 1));
+    }
+}
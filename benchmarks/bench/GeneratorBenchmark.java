@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building seeded topologies of every deployment, sequentially and in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8"})
+    public double averageDegree;
+
+    @Param({"UNIFORM", "CLUSTERED", "JITTERED_GRID", "CORRIDOR"})
+    public String deployment;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+    }
+
+    @Benchmark
+    public Object generate() {
+        return workload.generateTopology(numofNodes, averageDegree, deployment, parallel);
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the whole-graph queries of NetGraph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class GraphQueryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, 1);
+    }
+
+    @Benchmark
+    public int getNumLinks() {
+        return workload.getNumLinks();
+    }
+
+    @Benchmark
+    public int getGraphMaxDegree() {
+        return workload.getGraphMaxDegree();
+    }
+
+    @Benchmark
+    public double estimateClusteringCoefficient() {
+        return workload.estimateClusteringCoefficient(10000);
+    }
+
+    @Benchmark
+    public Object printGraph() {
+        return workload.printGraph();
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of the metrics on instrumented operations, with metrics off and on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    private static final int NUM_QUERIES = 1 << 12;
+
+    @Param({"10000"})
+    public int numofNodes;
+
+    @Param({"8"})
+    public double averageDegree;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_QUERIES);
+        workload.setMetricsEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workload.setMetricsEnabled(false);
+    }
+
+    @Benchmark
+    public void addAndRemoveLink() {
+        workload.addAndRemoveLink(next++ & (NUM_QUERIES - 1));
+    }
+
+    @Benchmark
+    public Object getShortestPath() {
+        return workload.getShortestPath(next++ & (NUM_QUERIES - 1), "A_STAR");
+    }
+}
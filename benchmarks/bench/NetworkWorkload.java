@@ -0,0 +1,213 @@
+package bench;
+
+/**
+ * The operations measured by the benchmarks. JMH cannot generate benchmarks for classes in the default package,
+ * and classes in a package cannot refer to the default package, so the benchmarks call the emulator through this
+ * interface. It is implemented by NetworkWorkloads, in the default package, and loaded by name.
+ * Every call site sees a single implementation, so the JIT inlines the calls.
+ */
+public interface NetworkWorkload {
+
+    /**
+     * The seed of every benchmark network and query, so all runs measure the same inputs.
+     */
+    long SEED = 42;
+
+    /**
+     * Creates the workload implementation.
+     *
+     * @return a new NetworkWorkload.
+     */
+    static NetworkWorkload create() {
+        try {
+            return (NetworkWorkload) Class.forName("NetworkWorkloads").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds the seeded network the other operations work on, and numQueries random pairs of its nodes.
+     *
+     * @param numofNodes    the number of nodes.
+     * @param averageDegree the expected number of neighbors of a node.
+     * @param numQueries    the number of random node pairs.
+     */
+    void setUp(int numofNodes, double averageDegree, int numQueries);
+
+    /**
+     * Switches the metrics of the emulator on or off.
+     *
+     * @param enabled true to record metrics.
+     */
+    void setMetricsEnabled(boolean enabled);
+
+    /**
+     * Builds a new seeded network of the given size and density.
+     *
+     * @param numofNodes    the number of nodes.
+     * @param averageDegree the expected number of neighbors of a node.
+     * @return the network.
+     */
+    Object buildNetwork(int numofNodes, double averageDegree);
+
+    /**
+     * Builds the graph of the same seeded network straight into primitive arrays.
+     *
+     * @param numofNodes    the number of nodes.
+     * @param averageDegree the expected number of neighbors of a node.
+     * @return the compact graph.
+     */
+    Object buildCompactNetwork(int numofNodes, double averageDegree);
+
+    /**
+     * Builds the graph of the same seeded network straight into primitive arrays, with links decided by
+     * a propagation model whose range is the radio range.
+     *
+     * @param numofNodes    the number of nodes.
+     * @param averageDegree the expected number of nodes within range of a node.
+     * @param model         unitDisk, logDistance (with shadowing) or sinr.
+     * @return the compact graph.
+     */
+    Object buildCompactNetwork(int numofNodes, double averageDegree, String model);
+
+    /**
+     * Builds the graph of a seeded network with the topology generator, over the area that gives the requested
+     * average degree to uniformly placed nodes.
+     *
+     * @param numofNodes    the number of nodes.
+     * @param averageDegree the expected number of neighbors of a uniformly placed node.
+     * @param deployment    the name of the Deployment.
+     * @param parallel      whether the nodes are placed and linked in parallel.
+     * @return the compact graph.
+     */
+    Object generateTopology(int numofNodes, double averageDegree, String deployment, boolean parallel);
+
+    /**
+     * Adds and then removes a link between the nodes of the given pair.
+     *
+     * @param query the index of the pair.
+     */
+    void addAndRemoveLink(int query);
+
+    /**
+     * Adds links between all pairs of nodes in one batch, then removes them in another.
+     *
+     * @return the number of links changed.
+     */
+    int addAndRemoveLinks();
+
+    /**
+     * Deletes the first node of the given pair and inserts a new node at its position with the same links,
+     * so the network keeps its topology over any number of calls.
+     *
+     * @param query the index of the pair.
+     */
+    void deleteAndInsertNode(int query);
+
+    /**
+     * Computes the shortest path between the nodes of the given pair.
+     *
+     * @param query the index of the pair.
+     * @param mode  the name of the RoutingMode.
+     * @return the path.
+     */
+    Object getShortestPath(int query, String mode);
+
+    /**
+     * Returns the number of nodes settled by the last shortest path query of the calling thread, counting both
+     * searches of a bidirectional query.
+     *
+     * @return the number of settled nodes.
+     */
+    int getNumSettled();
+
+    /**
+     * Computes the minimum spanning forest of the network.
+     *
+     * @param algorithm the name of the MstAlgorithm.
+     * @return the forest.
+     */
+    Object minSpanningForest(String algorithm);
+
+    /**
+     * Computes the minimum spanning tree matrix of the network.
+     *
+     * @return the matrix.
+     */
+    Object minSpanningTree();
+
+    /**
+     * Returns the number of links of the network.
+     *
+     * @return the number of links.
+     */
+    int getNumLinks();
+
+    /**
+     * Returns the maximum degree of the network.
+     *
+     * @return the maximum degree.
+     */
+    int getGraphMaxDegree();
+
+    /**
+     * Estimates the clustering coefficient of the network.
+     *
+     * @param samples the number of samples.
+     * @return the estimated coefficient.
+     */
+    double estimateClusteringCoefficient(int samples);
+
+    /**
+     * Returns the adjacency list text of the network.
+     *
+     * @return the text.
+     */
+    Object printGraph();
+
+    /**
+     * Floods a packet from the first node of the given pair over the whole network with the discrete-event
+     * simulator and runs the simulation until it ends.
+     *
+     * @param query the index of the pair.
+     * @return the number of events handled.
+     */
+    long simulateFlood(int query);
+
+    /**
+     * Floods a packet from the first node of the given pair over the whole network with the parallel simulator
+     * and runs the simulation until it ends.
+     *
+     * @param query    the index of the pair.
+     * @param numTiles the number of tiles of the simulator.
+     * @return the number of events handled.
+     */
+    long simulateParallelFlood(int query, int numTiles);
+
+    /**
+     * Counts the hops from the first node of the given pair to every node of its component.
+     *
+     * @param query    the index of the pair.
+     * @param parallel whether the levels are expanded in parallel.
+     * @return the number of nodes reached.
+     */
+    int breadthFirstSearch(int query, boolean parallel);
+
+    /**
+     * Computes the next-hop tables of evenly spread sources in parallel.
+     *
+     * @param numSources the number of sources.
+     * @return the tables.
+     */
+    Object computeNextHopTables(int numSources);
+
+    /**
+     * Estimates the betweenness centrality of the network from random sources in parallel.
+     *
+     * @param numSamples the number of sources.
+     * @param weighted   true for shortest paths by weight, false by hops.
+     * @return the scores.
+     */
+    Object estimateBetweenness(int numSamples, boolean weighted);
+}
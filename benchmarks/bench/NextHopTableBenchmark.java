@@ -0,0 +1,37 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the parallel computation of next-hop tables for a fixed number of sources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class NextHopTableBenchmark {
+
+    private static final int NUM_SOURCES = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, 1);
+    }
+
+    @Benchmark
+    public Object computeNextHopTables() {
+        return workload.computeNextHopTables(NUM_SOURCES);
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how the tiled parallel simulator scales with the number of tiles, flooding packets over the whole
+ * network. As in SimulationBenchmark, JMH reports the simulation events per second through the events counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class ParallelSimulationBenchmark {
+
+    private static final int NUM_QUERIES = 1 << 10;
+
+    @Param({"100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    @Param({"1", "2", "4", "8"})
+    public int tiles;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_QUERIES);
+    }
+
+    @Benchmark
+    public long flood(SimulationBenchmark.Events counter) {
+        long events = workload.simulateParallelFlood(next++ & (NUM_QUERIES - 1), tiles);
+        counter.events += events;
+        return events;
+    }
+}
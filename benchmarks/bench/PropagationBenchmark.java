@@ -0,0 +1,38 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building the links of a network under the different propagation models, all reaching as far as
+ * the radio range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class PropagationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    @Param({"unitDisk", "logDistance", "sinr"})
+    public String model;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+    }
+
+    @Benchmark
+    public Object build() {
+        return workload.buildCompactNetwork(numofNodes, averageDegree, model);
+    }
+}
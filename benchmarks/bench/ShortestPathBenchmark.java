@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+/**
+ * Measures point-to-point shortest path queries between random pairs of nodes. Besides the time per query, JMH
+ * reports the nodes every mode settles per query through the settled counter, so the work saved by A_STAR and
+ * BIDIRECTIONAL over DIJKSTRA shows next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class ShortestPathBenchmark {
+
+    private static final int NUM_QUERIES = 1 << 10;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    @Param({"DIJKSTRA", "A_STAR", "BIDIRECTIONAL"})
+    public String mode;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    /**
+     * The nodes settled by the queries of an iteration, reported by JMH as an average per query. JMH adds up
+     * EVENTS counters over all measurement iterations of all forks, so every iteration reports its share.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Settled {
+        private long nodes;
+        private long queries;
+        private int numIterations;
+
+        @Setup(Level.Iteration)
+        public void clear(BenchmarkParams params) {
+            nodes = 0;
+            queries = 0;
+            numIterations = Math.max(1, params.getForks()) * params.getMeasurement().getCount();
+        }
+
+        public double settled() {
+            return queries == 0 ? 0 : (double) nodes / queries / numIterations;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_QUERIES);
+    }
+
+    @Benchmark
+    public Object getShortestPath(Settled counter) {
+        Object path = workload.getShortestPath(next++ & (NUM_QUERIES - 1), mode);
+        counter.nodes += workload.getNumSettled();
+        counter.queries++;
+        return path;
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the discrete-event simulator flooding packets over the whole network. Besides the floods per second,
+ * JMH reports the simulation events per second through the events counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+    private static final int NUM_QUERIES = 1 << 10;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    private NetworkWorkload workload;
+    private int next;
+
+    /**
+     * The events handled, reported by JMH as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Events {
+        public long events;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+        workload.setUp(numofNodes, averageDegree, NUM_QUERIES);
+    }
+
+    @Benchmark
+    public long flood(Events counter) {
+        long events = workload.simulateFlood(next++ & (NUM_QUERIES - 1));
+        counter.events += events;
+        return events;
+    }
+}
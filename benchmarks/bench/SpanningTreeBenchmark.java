@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures minimum spanning forests, and the matrix form of minSpanningTree on the sizes where it fits in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SpanningTreeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Forest {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int numofNodes;
+
+        @Param({"8", "32"})
+        public double averageDegree;
+
+        @Param({"PRIM", "KRUSKAL", "BORUVKA"})
+        public String algorithm;
+
+        NetworkWorkload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            workload = NetworkWorkload.create();
+            workload.setUp(numofNodes, averageDegree, 1);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Matrix {
+
+        @Param({"1000", "5000"})
+        public int numofNodes;
+
+        @Param({"8", "32"})
+        public double averageDegree;
+
+        NetworkWorkload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            workload = NetworkWorkload.create();
+            workload.setUp(numofNodes, averageDegree, 1);
+        }
+    }
+
+    @Benchmark
+    public Object minSpanningForest(Forest state) {
+        return state.workload.minSpanningForest(state.algorithm);
+    }
+
+    @Benchmark
+    public Object minSpanningTree(Matrix state) {
+        return state.workload.minSpanningTree();
+    }
+}
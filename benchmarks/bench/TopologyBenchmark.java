@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building a Network: placing the nodes and discovering the links, into NetNode objects or into the
+ * primitive arrays of a CompactGraph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TopologyBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numofNodes;
+
+    @Param({"8", "32"})
+    public double averageDegree;
+
+    private NetworkWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = NetworkWorkload.create();
+    }
+
+    @Benchmark
+    public Object build() {
+        return workload.buildNetwork(numofNodes, averageDegree);
+    }
+
+    @Benchmark
+    public Object buildCompact() {
+        return workload.buildCompactNetwork(numofNodes, averageDegree);
+    }
+}
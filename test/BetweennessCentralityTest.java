@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks BetweennessCentrality against the definition, counting the shortest paths between every pair of nodes
+ * of small random graphs by brute force.
+ */
+class BetweennessCentralityTest {
+
+    @Test
+    void scoresMatchBruteForce() {
+        Random random = new Random(9);
+        for (int trial = 0; trial < 200; trial++) {
+            CsrGraph graph = randomGraph(random, 2 + random.nextInt(25));
+            for (boolean weighted : new boolean[]{true, false}) {
+                double[] expected = bruteForce(graph, weighted);
+                BetweennessCentrality centrality = new BetweennessCentrality(graph);
+                centrality.setWeighted(weighted);
+                assertScores(expected, centrality.compute(), "trial " + trial);
+                centrality.setParallel(false);
+                assertScores(expected, centrality.compute(), "trial " + trial);
+                assertScores(expected, centrality.estimate(graph.getNumNodes(), trial), "trial " + trial);
+            }
+        }
+    }
+
+    @Test
+    void pathGraphScores() {
+        //on a path of five nodes, node i lies between i * (4 - i) pairs
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i, "n" + i, i, 0)));
+        }
+        NetGraph graph = new NetGraph(nodes);
+        for (int i = 0; i < 4; i++) {
+            graph.addLink(graph.nodeFromIndex(i), graph.nodeFromIndex(i + 1), 1);
+        }
+        assertArrayEquals(new double[]{0, 3, 4, 3, 0}, new BetweennessCentrality(graph.freeze()).compute(), 1e-12);
+    }
+
+    @Test
+    void estimatesStayWithinTheErrorBound() {
+        CsrGraph graph = randomGraph(new Random(3), 400);
+        double[] exact = new BetweennessCentrality(graph).compute();
+        double bound = BetweennessCentrality.getErrorBound(400, 40, 0.05);
+        double[] estimate = new BetweennessCentrality(graph).estimate(40, 1);
+        for (int i = 0; i < exact.length; i++) {
+            assertEquals(exact[i], estimate[i], bound);
+        }
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        BetweennessCentrality centrality = new BetweennessCentrality(randomGraph(new Random(1), 5));
+        assertThrows(IllegalArgumentException.class, () -> centrality.estimate(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> BetweennessCentrality.getErrorBound(10, 0, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> BetweennessCentrality.getErrorBound(10, 5, 1));
+        assertEquals(0, BetweennessCentrality.getErrorBound(10, 10, 0.05));
+    }
+
+    /**
+     * Returns a graph with random links of weights 1 to 3, so that many pairs have several shortest paths.
+     */
+    private static CsrGraph randomGraph(Random random, int numNodes) {
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i * 3 + 1, "n" + i, 0, 0)));
+        }
+        NetGraph graph = new NetGraph(nodes);
+        int numLinks = random.nextInt(3 * numNodes);
+        for (int k = 0; k < numLinks; k++) {
+            int a = random.nextInt(numNodes);
+            int b = random.nextInt(numNodes);
+            if (a != b) {
+                graph.addLink(graph.nodeFromIndex(a), graph.nodeFromIndex(b), 1 + random.nextInt(3));
+            }
+        }
+        return graph.freeze();
+    }
+
+    /**
+     * Finds all distances with Floyd-Warshall, counts the shortest paths from every source in order of distance,
+     * and adds up, for every pair s, t and every other node v on a shortest path, the share of the paths through v.
+     */
+    private static double[] bruteForce(CsrGraph graph, boolean weighted) {
+        int n = graph.getNumNodes();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        double[][] distance = new double[n][n];
+        double[][] paths = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(distance[i], Double.POSITIVE_INFINITY);
+            distance[i][i] = 0;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                distance[i][targets[k]] = Math.min(distance[i][targets[k]], weighted ? weights[k] : 1);
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    distance[i][j] = Math.min(distance[i][j], distance[i][k] + distance[k][j]);
+                }
+            }
+        }
+        for (int s = 0; s < n; s++) {
+            double[] from = distance[s];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(t -> from[t]));
+            paths[s][s] = 1;
+            for (int t : order) {
+                if (t == s || from[t] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int k = offsets[t]; k < offsets[t + 1]; k++) {
+                    if (from[targets[k]] + (weighted ? weights[k] : 1) == from[t]) {
+                        paths[s][t] += paths[s][targets[k]];
+                    }
+                }
+            }
+        }
+        double[] scores = new double[n];
+        for (int s = 0; s < n; s++) {
+            for (int t = s + 1; t < n; t++) {
+                for (int v = 0; v < n; v++) {
+                    if (v != s && v != t && distance[s][t] < Double.POSITIVE_INFINITY
+                            && distance[s][v] + distance[v][t] == distance[s][t]) {
+                        scores[v] += paths[s][v] * paths[v][t] / paths[s][t];
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void assertScores(double[] expected, double[] actual, String message) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-9 * (1 + expected[i]), message + ", node " + i);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks the hop counts of BreadthFirstSearch, top-down, bottom-up and in parallel, against a plain
+ * breadth-first search with a queue.
+ */
+class BreadthFirstSearchTest {
+
+    @Test
+    void smallGraphsMatchPlainSearch() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 100; trial++) {
+            int numNodes = 1 + random.nextInt(300);
+            //sparse graphs fall apart in components, dense ones turn bottom-up after a hop or two
+            double averageDegree = 1 + random.nextInt(40);
+            CsrGraph graph = new Network(numNodes, side(numNodes, averageDegree), trial).getNetworkGraph().freeze();
+            int[] sources = random.ints(1 + random.nextInt(3), 0, numNodes).distinct().toArray();
+            int maxHops = random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(6);
+            for (boolean parallel : new boolean[]{false, true}) {
+                check(graph, sources, maxHops, parallel);
+            }
+        }
+    }
+
+    @Test
+    void largeLevelsMatchPlainSearch() {
+        //on a geometric network the levels grow slowly; bitsets of more than 65536 nodes are split among tasks
+        int numNodes = 200000;
+        CsrGraph graph = new Network(numNodes, side(numNodes, 24), 5).getNetworkGraph().freeze();
+        for (boolean parallel : new boolean[]{false, true}) {
+            check(graph, new int[]{0}, Integer.MAX_VALUE, parallel);
+            check(graph, new int[]{1, numNodes / 2, numNodes - 1}, 20, parallel);
+        }
+        //on random links the levels grow tenfold, so a frontier of some 10000 nodes is still expanded top-down
+        graph = randomGraph(numNodes, 10, 5);
+        for (boolean parallel : new boolean[]{false, true}) {
+            check(graph, new int[]{0}, Integer.MAX_VALUE, parallel);
+            check(graph, new int[]{7}, 4, parallel);
+        }
+    }
+
+    @Test
+    void searchesCanBeRepeated() {
+        CsrGraph graph = new Network(2000, side(2000, 10), 2).getNetworkGraph().freeze();
+        BreadthFirstSearch search = new BreadthFirstSearch(graph);
+        for (int source = 0; source < 2000; source += 97) {
+            int reached = search.run(source);
+            assertArrayEquals(plainHops(graph, new int[]{source}, Integer.MAX_VALUE), search.getHops());
+            assertEquals(reached, search.getNumReached());
+        }
+        assertThrows(IllegalArgumentException.class, () -> search.run(new int[]{0}, -1));
+    }
+
+    /**
+     * Searches with BreadthFirstSearch and compares the hops, level sizes, coverage and eccentricity with those
+     * of the plain search.
+     */
+    private static void check(CsrGraph graph, int[] sources, int maxHops, boolean parallel) {
+        int[] expected = plainHops(graph, sources, maxHops);
+        BreadthFirstSearch search = new BreadthFirstSearch(graph);
+        search.setParallel(parallel);
+        int reached = search.run(sources, maxHops);
+        assertArrayEquals(expected, search.getHops(), "parallel " + parallel);
+
+        int[] levelSizes = new int[graph.getNumNodes() + 1];
+        int eccentricity = 0;
+        int count = 0;
+        for (int hop : expected) {
+            if (hop >= 0) {
+                levelSizes[hop]++;
+                eccentricity = Math.max(eccentricity, hop);
+                count++;
+            }
+        }
+        assertEquals(count, reached);
+        assertEquals(count, search.getNumReached());
+        assertEquals(eccentricity, search.getEccentricity());
+        assertEquals(eccentricity, expected[search.getFarthest()]);
+        for (int hop = 0, coverage = 0; hop <= eccentricity + 1; hop++) {
+            coverage += levelSizes[hop];
+            assertEquals(levelSizes[hop], search.getLevelSize(hop));
+            assertEquals(coverage, search.getCoverage(hop));
+        }
+    }
+
+    /**
+     * Returns the hops from the nearest source of every node within maxHops, -1 for the others.
+     */
+    private static int[] plainHops(CsrGraph graph, int[] sources, int maxHops) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] hops = new int[graph.getNumNodes()];
+        Arrays.fill(hops, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int source : sources) {
+            hops[source] = 0;
+            queue.add(source);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (hops[node] == maxHops) {
+                continue;
+            }
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                if (hops[targets[k]] == -1) {
+                    hops[targets[k]] = hops[node] + 1;
+                    queue.add(targets[k]);
+                }
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * Returns a graph whose links join nodes picked at random, averageDegree links per node.
+     */
+    private static CsrGraph randomGraph(int numNodes, int averageDegree, long seed) {
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i, "n" + i, 0, 0)));
+        }
+        NetGraph graph = new NetGraph(nodes);
+        Random random = new Random(seed);
+        GraphBatch batch = new GraphBatch(numNodes * averageDegree / 2);
+        for (int k = 0; k < numNodes * averageDegree / 2; k++) {
+            batch.addLink(random.nextInt(numNodes), random.nextInt(numNodes), 1);
+        }
+        graph.apply(batch);
+        return graph.freeze();
+    }
+
+    private static double side(int numNodes, double averageDegree) {
+        return Math.sqrt(numNodes * Math.PI * Network.RADIO_RANGE * Network.RADIO_RANGE / averageDegree);
+    }
+}
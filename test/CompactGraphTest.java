@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks CompactGraph against a NetGraph that goes through the same random changes.
+ */
+class CompactGraphTest {
+
+    @Test
+    void randomChangesMatchNetGraph() {
+        Random random = new Random(18);
+        for (int trial = 0; trial < 40; trial++) {
+            NetGraph expected = new NetGraph(new ArrayList<>());
+            //half of the trials start with ids equal to indexes, so the graph maps ids only once they differ
+            CompactGraph compact = trial % 2 == 0 ? new CompactGraph() : new CompactGraph(4, 4);
+            int nextId = trial % 4 < 2 ? 0 : 1000;
+            //a third of the trials only add links as long as the distances, until a move makes them differ
+            boolean distancesOnly = trial % 3 == 0;
+            for (int step = 0; step < 600; step++) {
+                int numNodes = expected.getNumNodes();
+                int change = random.nextInt(10);
+                if (numNodes < 2 || change == 0) {
+                    int id = nextId++;
+                    String name = random.nextInt(4) == 0 ? "n" + id : "node " + id;
+                    double x = random.nextInt(100);
+                    double y = random.nextInt(100);
+                    expected.insertNetNode(id, name, x, y);
+                    compact.insertNetNode(id, name, x, y);
+                } else if (change < 6) {
+                    int id1 = expected.nodeFromIndex(random.nextInt(numNodes)).getId();
+                    int id2 = random.nextInt(20) == 0 ? id1 : expected.nodeFromIndex(random.nextInt(numNodes)).getId();
+                    NetNode node1 = expected.getNetNode(id1);
+                    NetNode node2 = expected.getNetNode(id2);
+                    //most weights are the distances, which the compact graph need not store
+                    double weight = !distancesOnly && random.nextInt(3) == 0 ? 1 + random.nextInt(9) : Math.hypot(
+                            node1.getX_coordinate() - node2.getX_coordinate(), node1.getY_coordinate() - node2.getY_coordinate());
+                    expected.addLink(node1, node2, weight);
+                    compact.addLink(compact.getNetNode(id1), compact.getNetNode(id2), weight);
+                } else if (change < 8) {
+                    int id1 = expected.nodeFromIndex(random.nextInt(numNodes)).getId();
+                    List<Adjacent> adjacents = expected.getAdjacents(expected.getNetNode(id1));
+                    int id2 = adjacents.isEmpty() || random.nextInt(5) == 0
+                            ? expected.nodeFromIndex(random.nextInt(numNodes)).getId()
+                            : adjacents.get(random.nextInt(adjacents.size())).getNeighbor().getId();
+                    expected.removeLink(expected.getNetNode(id1), expected.getNetNode(id2));
+                    compact.removeLink(compact.getNetNode(id1), compact.getNetNode(id2));
+                } else if (change == 8 && random.nextInt(distancesOnly ? 40 : 4) == 0) {
+                    int id = expected.nodeFromIndex(random.nextInt(numNodes)).getId();
+                    double x = random.nextInt(100);
+                    double y = random.nextInt(100);
+                    expected.moveNetNode(expected.getNetNode(id), x, y);
+                    compact.moveNetNode(compact.getNetNode(id), x, y);
+                } else if (change == 9) {
+                    int id = expected.nodeFromIndex(random.nextInt(numNodes)).getId();
+                    expected.deleteNetNode(expected.getNetNode(id));
+                    compact.deleteNetNode(compact.getNetNode(id));
+                }
+                if (step % 50 == 49) {
+                    assertSameGraph(expected, compact);
+                }
+            }
+            assertSameGraph(expected, compact);
+            assertSameGraph(expected, CompactGraph.of(expected));
+            assertSameSnapshot(expected.freeze(), compact.toNetGraph().freeze());
+        }
+    }
+
+    @Test
+    void invalidChangesAreRejected() {
+        CompactGraph graph = new CompactGraph();
+        graph.insertNetNode(0, "a", 0, 0);
+        graph.insertNetNode(1, "b", 3, 4);
+        assertThrows(IllegalArgumentException.class, () -> graph.insertNetNode(1, "c", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> graph.addLink(graph.getNetNode(0), null, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.addLink(graph.getNetNode(0), new NetNode(7, "x", 0, 0), 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.deleteNetNode(new NetNode(7, "x", 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> graph.getId(2));
+        assertNull(graph.getNetNode(7));
+        assertNull(graph.nodeFromIndex(2));
+    }
+
+    /**
+     * Compares the nodes, neighbor lists, counts and snapshot of the two graphs, index by index.
+     */
+    private static void assertSameGraph(NetGraph expected, CompactGraph compact) {
+        assertEquals(expected.getNumNodes(), compact.getNumNodes());
+        assertEquals(expected.getNumLinks(), compact.getNumLinks());
+        assertEquals(expected.getGraphMaxDegree(), compact.getGraphMaxDegree());
+        for (int i = 0; i < expected.getNumNodes(); i++) {
+            NetNode node = expected.nodeFromIndex(i);
+            assertEquals(node.getId(), compact.getId(i));
+            assertEquals(i, compact.indexOf(node.getId()));
+            assertEquals(node.getName(), compact.getName(i));
+            assertEquals(node.getX_coordinate(), compact.getX(i));
+            assertEquals(node.getY_coordinate(), compact.getY(i));
+            assertEquals(neighbors(expected.getAdjacents(node)), neighbors(compact.getAdjacents(compact.getNetNode(node.getId()))));
+            assertEquals(expected.degree(node), compact.degree(i));
+        }
+        assertEquals(-1, compact.indexOf(-5));
+        assertSameSnapshot(expected.freeze(), compact.freeze());
+    }
+
+    private static void assertSameSnapshot(CsrGraph expected, CsrGraph snapshot) {
+        assertEquals(expected.getNumNodes(), snapshot.getNumNodes());
+        assertArrayEquals(expected.getOffsets(), snapshot.getOffsets());
+        assertArrayEquals(expected.getTargets(), snapshot.getTargets());
+        assertArrayEquals(expected.getWeights(), snapshot.getWeights());
+        assertArrayEquals(expected.getX(), snapshot.getX());
+        assertArrayEquals(expected.getY(), snapshot.getY());
+        for (int i = 0; i < expected.getNumNodes(); i++) {
+            assertEquals(expected.getId(i), snapshot.getId(i));
+            assertEquals(expected.getNode(i).getName(), snapshot.getNode(i).getName());
+        }
+    }
+
+    /**
+     * Returns the "id/weight" entries of an adjacency list, in list order.
+     */
+    private static List<String> neighbors(List<Adjacent> adjacents) {
+        List<String> entries = new ArrayList<>();
+        for (Adjacent adjacent : adjacents) {
+            entries.add(adjacent.getNeighbor().getId() + "/" + adjacent.getWeight());
+        }
+        return entries;
+    }
+}
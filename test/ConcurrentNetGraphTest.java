@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Stresses ConcurrentNetGraph: writer threads add and remove links in batches while reader threads run route
+ * queries and check every snapshot they see. No link may be lost and no reader may see an inconsistent snapshot.
+ */
+class ConcurrentNetGraphTest {
+
+    private static final int NUM_NODES = 2000;
+    private static final int NUM_WRITERS = 2;
+    private static final int NUM_READERS = 2;
+    private static final long RUN_MILLIS = 1000;
+
+    @Test
+    void concurrentBatchesKeepEverySnapshotConsistent() throws Exception {
+        Network network = new Network(NUM_NODES, Math.sqrt(NUM_NODES) * 8, 1);
+        ConcurrentNetGraph shared = new ConcurrentNetGraph(network.getNetworkGraph());
+        int initialLinks = shared.snapshot().getNumLinks();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong queries = new AtomicLong();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        long[] added = new long[NUM_WRITERS];
+
+        ExecutorService pool = Executors.newFixedThreadPool(NUM_WRITERS + NUM_READERS);
+        for (int w = 0; w < NUM_WRITERS; w++) {
+            int writer = w;
+            pool.submit(() -> {
+                // every writer owns the nodes congruent to its number, so the links it adds never collide
+                Random random = new Random(writer);
+                try {
+                    while (running.get()) {
+                        shared.update(graph -> {
+                            for (int i = 0; i < 50; i++) {
+                                NetNode node1 = graph.nodeFromIndex(pick(random, writer));
+                                NetNode node2 = graph.nodeFromIndex(pick(random, writer));
+                                if (node1 != node2 && !isLinked(graph, node1, node2)) {
+                                    graph.addLink(node1, node2, 1000);
+                                    graph.removeLink(node1, node2);
+                                    graph.addLink(node1, node2, 1000);
+                                    added[writer]++;
+                                }
+                            }
+                        });
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+        }
+        for (int r = 0; r < NUM_READERS; r++) {
+            int reader = r;
+            pool.submit(() -> {
+                Random random = new Random(1000 + reader);
+                try {
+                    while (running.get()) {
+                        CsrGraph snapshot = shared.snapshot();
+                        checkSymmetric(snapshot, random.nextInt(NUM_NODES));
+                        NetNode node1 = snapshot.getNode(random.nextInt(NUM_NODES));
+                        NetNode node2 = snapshot.getNode(random.nextInt(NUM_NODES));
+                        shared.getShortestPath(node1, node2, RoutingMode.A_STAR);
+                        queries.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+        }
+
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        Throwable failure = failures.peek();
+        assertNull(failure, () -> "a thread failed: " + failure);
+        assertTrue(queries.get() > 0);
+        long expectedLinks = initialLinks + Arrays.stream(added).sum();
+        assertEquals(expectedLinks, shared.snapshot().getNumLinks());
+        assertEquals(expectedLinks, network.getNetworkGraph().getNumLinks());
+    }
+
+    private static int pick(Random random, int writer) {
+        return random.nextInt(NUM_NODES / NUM_WRITERS) * NUM_WRITERS + writer;
+    }
+
+    private static boolean isLinked(NetGraph graph, NetNode node1, NetNode node2) {
+        for (Adjacent adjacent : graph.getAdjacents(node1)) {
+            if (adjacent.getNeighbor() == node2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that every neighbor of the node has the node as a neighbor in the same snapshot.
+     */
+    private static void checkSymmetric(CsrGraph snapshot, int node) {
+        int[] offsets = snapshot.getOffsets();
+        int[] targets = snapshot.getTargets();
+        for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+            int neighbor = targets[k];
+            boolean found = false;
+            for (int j = offsets[neighbor]; j < offsets[neighbor + 1] && !found; j++) {
+                found = targets[j] == node;
+            }
+            if (!found) {
+                throw new IllegalStateException("link " + node + " - " + neighbor + " is missing its reverse");
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks NetGraph.apply against making the same changes one by one with addLink and removeLink.
+ */
+class GraphBatchTest {
+
+    @Test
+    void batchesMatchSequentialChanges() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 300; trial++) {
+            //some larger graphs take apply through several passes of its radix sort
+            int numNodes = trial % 20 == 0 ? 3000 : 2 + random.nextInt(30);
+            double side = 75 * Math.sqrt(numNodes);
+            NetGraph sequential = new Network(numNodes, side, trial).getNetworkGraph();
+            NetGraph batched = new Network(numNodes, side, trial).getNetworkGraph();
+            Map<Long, Double> before = links(batched);
+            Recorder recorder = new Recorder();
+            batched.addListener(recorder);
+
+            GraphBatch batch = new GraphBatch(0);
+            int numChanges = random.nextInt(200);
+            for (int k = 0; k < numChanges; k++) {
+                //a quarter of the changes touch the first node, so that its list is matched by index lookup too
+                NetNode node1 = sequential.nodeFromIndex(random.nextInt(4) == 0 ? 0 : random.nextInt(numNodes));
+                NetNode node2 = sequential.nodeFromIndex(random.nextInt(numNodes));
+                if (random.nextBoolean()) {
+                    double weight = random.nextInt(5);
+                    sequential.addLink(node1, node2, weight);
+                    batch.addLink(node1.getId(), node2.getId(), weight);
+                } else {
+                    sequential.removeLink(node1, node2);
+                    batch.removeLink(node1.getId(), node2.getId());
+                }
+            }
+            long version = batched.getVersion();
+            int changed = batched.apply(batch);
+            Map<Long, Double> after = links(batched);
+
+            assertEquals(adjacencies(sequential), adjacencies(batched), "trial " + trial);
+            assertEquals(sequential.getNumLinks(), batched.getNumLinks());
+            assertEquals(sequential.getGraphMaxDegree(), batched.getGraphMaxDegree());
+            assertArrayEquals(sequential.getDegreeHistogram(), batched.getDegreeHistogram());
+            assertEquals(changed, recorder.events.size());
+            assertEquals(changed > 0, batched.getVersion() != version);
+
+            // every notification matches the change of its link, and every changed link is notified
+            Set<Long> notified = new HashSet<>();
+            for (Object[] event : recorder.events) {
+                long key = key((NetNode) event[1], (NetNode) event[2]);
+                assertTrue(notified.add(key), "a link is notified twice");
+                switch ((String) event[0]) {
+                    case "added":
+                        assertFalse(before.containsKey(key));
+                        assertEquals(after.get(key), event[3]);
+                        break;
+                    case "removed":
+                        assertTrue(before.containsKey(key));
+                        assertFalse(after.containsKey(key));
+                        break;
+                    default:
+                        assertTrue(before.containsKey(key));
+                        assertNotEquals(before.get(key), event[3]);
+                        assertEquals(after.get(key), event[3]);
+                }
+            }
+            for (Long key : after.keySet()) {
+                assertTrue(after.get(key).equals(before.get(key)) || notified.contains(key));
+            }
+            for (Long key : before.keySet()) {
+                assertTrue(after.containsKey(key) || notified.contains(key));
+            }
+        }
+    }
+
+    @Test
+    void repeatedChangesOfAPairAreMerged() {
+        NetGraph graph = graph(3);
+        NetNode a = graph.nodeFromIndex(0);
+        NetNode b = graph.nodeFromIndex(1);
+        graph.addLink(a, b, 1);
+
+        GraphBatch batch = new GraphBatch();
+        batch.addLink(0, 1, 5);
+        batch.addLink(1, 0, 6);
+        assertEquals(0, graph.apply(batch));
+        assertEquals(1, graph.getAdjacents(a).getFirst().getWeight());
+
+        batch.clear();
+        batch.removeLink(1, 0);
+        batch.addLink(0, 1, 7);
+        batch.addLink(0, 1, 8);
+        assertEquals(1, graph.apply(batch));
+        assertEquals(1, graph.getNumLinks());
+        assertEquals(7, graph.getAdjacents(a).getFirst().getWeight());
+        assertEquals(7, graph.getAdjacents(b).getFirst().getWeight());
+
+        //a link removed and added again with its weight has not changed
+        long version = graph.getVersion();
+        batch.clear();
+        batch.removeLink(0, 1);
+        batch.addLink(1, 0, 7);
+        assertEquals(0, graph.apply(batch));
+        assertEquals(version, graph.getVersion());
+        assertEquals(1, graph.getNumLinks());
+    }
+
+    @Test
+    void linkOfANodeToItselfTakesTwoEntries() {
+        NetGraph graph = graph(2);
+        GraphBatch batch = new GraphBatch();
+        batch.addLink(0, 0, 2);
+        batch.addLink(0, 0, 3);
+        assertEquals(1, graph.apply(batch));
+        assertEquals(2, graph.degree(graph.nodeFromIndex(0)));
+        assertEquals(1, graph.getNumLinks());
+
+        batch.clear();
+        batch.removeLink(0, 0);
+        assertEquals(1, graph.apply(batch));
+        assertEquals(0, graph.degree(graph.nodeFromIndex(0)));
+    }
+
+    @Test
+    void unknownNodeChangesNothing() {
+        NetGraph graph = graph(2);
+        GraphBatch batch = new GraphBatch();
+        batch.addLink(0, 1, 1);
+        batch.addLink(0, 99, 1);
+        long version = graph.getVersion();
+        assertThrows(IllegalArgumentException.class, () -> graph.apply(batch));
+        assertEquals(0, graph.getNumLinks());
+        assertEquals(version, graph.getVersion());
+    }
+
+    @Test
+    void singleChangesWithoutEffectAreNotNotified() {
+        NetGraph graph = graph(2);
+        NetNode a = graph.nodeFromIndex(0);
+        NetNode b = graph.nodeFromIndex(1);
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+
+        long version = graph.getVersion();
+        graph.removeLink(a, b);
+        assertEquals(version, graph.getVersion());
+        graph.addLink(a, b, 1);
+        graph.addLink(b, a, 2);
+        assertEquals(1, graph.getNumLinks());
+        assertEquals(1, graph.getAdjacents(b).getFirst().getWeight());
+        assertEquals(1, recorder.events.size());
+    }
+
+    private static NetGraph graph(int numNodes) {
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i, "n" + i, i, 0)));
+        }
+        return new NetGraph(nodes);
+    }
+
+    /**
+     * Returns the sorted entries of the adjacency list of every node, by id.
+     */
+    private static Map<Integer, List<String>> adjacencies(NetGraph graph) {
+        Map<Integer, List<String>> adjacencies = new HashMap<>();
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            List<String> entries = new ArrayList<>();
+            for (Adjacent adjacent : head.getAdjacencyList()) {
+                entries.add(adjacent.getNeighbor().getId() + "/" + adjacent.getWeight());
+            }
+            Collections.sort(entries);
+            adjacencies.put(head.getNetNode().getId(), entries);
+        }
+        return adjacencies;
+    }
+
+    /**
+     * Returns the weight of every link by the ids of its nodes.
+     */
+    private static Map<Long, Double> links(NetGraph graph) {
+        Map<Long, Double> links = new HashMap<>();
+        for (AdjacencyListHead head : graph.getNodesList()) {
+            for (Adjacent adjacent : head.getAdjacencyList()) {
+                links.put(key(head.getNetNode(), adjacent.getNeighbor()), adjacent.getWeight());
+            }
+        }
+        return links;
+    }
+
+    private static long key(NetNode node1, NetNode node2) {
+        int low = Math.min(node1.getId(), node2.getId());
+        int high = Math.max(node1.getId(), node2.getId());
+        return (long) low << 32 | high;
+    }
+
+    private static class Recorder implements NetGraphListener {
+
+        final List<Object[]> events = new ArrayList<>();
+
+        @Override
+        public void linkAdded(NetNode node1, NetNode node2, double weight) {
+            events.add(new Object[]{"added", node1, node2, weight});
+        }
+
+        @Override
+        public void linkRemoved(NetNode node1, NetNode node2) {
+            events.add(new Object[]{"removed", node1, node2});
+        }
+
+        @Override
+        public void linkUpdated(NetNode node1, NetNode node2, double weight) {
+            events.add(new Object[]{"updated", node1, node2, weight});
+        }
+    }
+}
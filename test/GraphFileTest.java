@@ -0,0 +1,139 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+/**
+ * Checks that GraphFile loads back what it saved, and that it rejects damaged files with an IOException.
+ */
+class GraphFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadReturnsTheSavedGraph() throws IOException {
+        NetGraph graph = sampleGraph();
+        Path path = directory.resolve("graph.netg");
+        GraphFile.save(graph, path);
+
+        NetGraph loaded = GraphFile.load(path);
+        assertEquals(graph.getNumNodes(), loaded.getNumNodes());
+        assertEquals(graph.getNumLinks(), loaded.getNumLinks());
+        for (int i = 0; i < graph.getNumNodes(); i++) {
+            NetNode node = graph.nodeFromIndex(i);
+            NetNode copy = loaded.nodeFromIndex(i);
+            assertEquals(node.getId(), copy.getId());
+            assertEquals(node.getName(), copy.getName());
+            assertEquals(node.getX_coordinate(), copy.getX_coordinate());
+            assertEquals(node.getY_coordinate(), copy.getY_coordinate());
+            assertEquals(neighbors(graph, node), neighbors(loaded, copy));
+        }
+    }
+
+    @Test
+    void loadSnapshotReturnsTheSavedArrays() throws IOException {
+        NetGraph graph = sampleGraph();
+        Path path = directory.resolve("graph.netg");
+        GraphFile.save(graph, path);
+
+        CsrGraph expected = graph.freeze();
+        CsrGraph snapshot = GraphFile.loadSnapshot(path);
+        assertEquals(expected.getNumNodes(), snapshot.getNumNodes());
+        assertArrayEquals(expected.getOffsets(), snapshot.getOffsets());
+        assertArrayEquals(expected.getTargets(), snapshot.getTargets());
+        assertArrayEquals(expected.getWeights(), snapshot.getWeights());
+        assertArrayEquals(expected.getX(), snapshot.getX());
+        assertArrayEquals(expected.getY(), snapshot.getY());
+        for (int i = 0; i < expected.getNumNodes(); i++) {
+            assertEquals(expected.getId(i), snapshot.getId(i));
+            assertEquals(expected.getNode(i).getName(), snapshot.getNode(i).getName());
+        }
+    }
+
+    @Test
+    void emptyGraphRoundTrips() throws IOException {
+        Path path = directory.resolve("empty.netg");
+        GraphFile.save(new NetGraph(new ArrayList<>()), path);
+        assertEquals(0, GraphFile.load(path).getNumNodes());
+        assertEquals(0, GraphFile.loadSnapshot(path).getNumNodes());
+    }
+
+    @Test
+    void damagedFilesAreRejected() throws IOException {
+        NetGraph graph = sampleGraph();
+        Path path = directory.resolve("graph.netg");
+        GraphFile.save(graph, path);
+        byte[] bytes = Files.readAllBytes(path);
+        int numNodes = graph.getNumNodes();
+        int numEntries = graph.freeze().getOffsets()[numNodes];
+        int idsStart = 24;
+        int offsetsStart = idsStart + 20 * numNodes;
+        int targetsStart = offsetsStart + 4 * (numNodes + 1);
+        int nameOffsetsStart = targetsStart + 12 * numEntries;
+
+        assertRejected(Arrays.copyOf(bytes, 10));
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected(Arrays.copyOf(bytes, bytes.length + 1));
+        assertRejected(patchInt(bytes, 0, 0x12345678));
+        assertRejected(patchInt(bytes, 4, 2));
+        assertRejected(patchInt(bytes, 8, -1));
+        //two nodes with the same id
+        assertRejected(patchInt(bytes, idsStart + 4, graph.nodeFromIndex(0).getId()));
+        //the neighbor list of the second node ending before it starts
+        assertRejected(patchInt(bytes, offsetsStart + 4, numEntries));
+        assertRejected(patchInt(bytes, offsetsStart, 1));
+        assertRejected(patchInt(bytes, targetsStart, numNodes));
+        assertRejected(patchInt(bytes, targetsStart, -1));
+        //names that do not start at 0, that run backwards or past the end of the table
+        assertRejected(patchLong(bytes, nameOffsetsStart, 1));
+        assertRejected(patchLong(bytes, nameOffsetsStart + 8, -5));
+        assertRejected(patchLong(bytes, nameOffsetsStart + 8L * numNodes, 1L << 40));
+    }
+
+    /**
+     * Returns a small network with a link of a node to itself and names that are not ASCII.
+     */
+    private static NetGraph sampleGraph() {
+        NetGraph graph = new Network(200, 120, 7).getNetworkGraph();
+        graph.insertNetNode(1000, "nœud é", 3.5, -2.25);
+        graph.insertNetNode(1001, "", 0, 0);
+        graph.addLink(graph.getNetNode(1000), graph.getNetNode(1000), 4);
+        graph.addLink(graph.getNetNode(1000), graph.nodeFromIndex(0), 2.5);
+        return graph;
+    }
+
+    /**
+     * Returns the sorted "id/weight" entries of the adjacency list of a node.
+     */
+    private static List<String> neighbors(NetGraph graph, NetNode node) {
+        List<String> entries = new ArrayList<>();
+        for (Adjacent adjacent : graph.getAdjacents(node)) {
+            entries.add(adjacent.getNeighbor().getId() + "/" + adjacent.getWeight());
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    private void assertRejected(byte[] bytes) throws IOException {
+        Path path = Files.write(directory.resolve("damaged.netg"), bytes);
+        assertThrows(IOException.class, () -> GraphFile.loadSnapshot(path));
+        assertThrows(IOException.class, () -> GraphFile.load(path));
+    }
+
+    private static byte[] patchInt(byte[] bytes, int position, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+        return copy;
+    }
+
+    private static byte[] patchLong(byte[] bytes, long position, long value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putLong((int) position, value);
+        return copy;
+    }
+}
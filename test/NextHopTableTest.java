@@ -0,0 +1,126 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+/**
+ * Checks the next hops of NextHopTable against the first hops of the shortest paths of ShortestPathEngine,
+ * for tables kept on the heap and mapped from a file, at every port width.
+ */
+class NextHopTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void onePortByte() throws IOException {
+        CsrGraph graph = new Network(300, 120, 3).getNetworkGraph().freeze();
+        checkTables(graph, allNodes(graph), 1);
+    }
+
+    @Test
+    void twoPortBytes() throws IOException {
+        CsrGraph graph = star(400);
+        checkTables(graph, new int[]{0, 1, 17, 200, 399, 401}, 2);
+    }
+
+    @Test
+    void fourPortBytes() throws IOException {
+        CsrGraph graph = star(70000);
+        checkTables(graph, new int[]{0, 5, 69999}, 4);
+    }
+
+    @Test
+    void damagedFilesAreRejected() throws IOException {
+        CsrGraph graph = new Network(50, 60, 1).getNetworkGraph().freeze();
+        Path path = directory.resolve("tables.nhop");
+        NextHopTable.write(graph, new int[]{0, 1, 2}, path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        assertRejected(graph, Arrays.copyOf(bytes, 12));
+        assertRejected(graph, Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected(graph, patchInt(bytes, 0, 0x12345678));
+        assertRejected(graph, patchInt(bytes, 4, 2));
+        assertRejected(graph, patchInt(bytes, 20, 2));
+        //a source twice, and a source that is not a node
+        assertRejected(graph, patchInt(bytes, 28, 0));
+        assertRejected(graph, patchInt(bytes, 28, 50));
+        //tables of another graph
+        Path other = Files.write(directory.resolve("other.nhop"), bytes);
+        assertThrows(IOException.class, () -> NextHopTable.open(new Network(51, 60, 1).getNetworkGraph().freeze(), other));
+
+        assertThrows(IllegalArgumentException.class, () -> NextHopTable.compute(graph, new int[]{3, 3}));
+        assertThrows(IllegalArgumentException.class, () -> NextHopTable.compute(graph, new int[]{-1}));
+        assertThrows(IllegalArgumentException.class, () -> NextHopTable.compute(graph, new int[]{1}).getNextHop(2, 0));
+    }
+
+    /**
+     * Computes the tables of the sources on the heap and through a file, and compares every entry with the
+     * second node of the shortest path from the source.
+     */
+    private void checkTables(CsrGraph graph, int[] sources, int portBytes) throws IOException {
+        NextHopTable heap = NextHopTable.compute(graph, sources);
+        Path path = directory.resolve("tables.nhop");
+        NextHopTable.write(graph, sources, path);
+        NextHopTable mapped = NextHopTable.open(graph, path);
+        assertEquals(portBytes, heap.getPortBytes());
+        assertEquals(portBytes, mapped.getPortBytes());
+        assertEquals(sources.length, mapped.getNumSources());
+
+        ShortestPathWorkspace workspace = new ShortestPathWorkspace(graph.getNumNodes());
+        for (int row = 0; row < sources.length; row++) {
+            int source = sources[row];
+            assertEquals(source, mapped.getSource(row));
+            assertEquals(row, mapped.getRow(source));
+            ShortestPathEngine.dijkstra(graph, source, -1, workspace);
+            for (int destination = 0; destination < graph.getNumNodes(); destination++) {
+                int length = workspace.extractPath(destination);
+                int expected = length < 2 ? -1 : workspace.getPath()[1];
+                assertEquals(expected, heap.getNextHop(source, destination), "from " + source + " to " + destination);
+                assertEquals(expected, mapped.getNextHop(source, destination), "from " + source + " to " + destination);
+            }
+        }
+    }
+
+    /**
+     * Returns a hub linked to numLeaves leaves, with links of weight 1 to 3, and a ring of lighter links among the
+     * leaves, so that many leaves are reached through another leaf. The last node is not linked at all.
+     */
+    private static CsrGraph star(int numLeaves) {
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i <= numLeaves + 1; i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i, "n" + i, i, 0)));
+        }
+        NetGraph graph = new NetGraph(nodes);
+        GraphBatch batch = new GraphBatch(2 * numLeaves);
+        for (int leaf = 1; leaf <= numLeaves; leaf++) {
+            batch.addLink(0, leaf, 1 + leaf % 3);
+            batch.addLink(leaf, leaf % numLeaves + 1, 0.75);
+        }
+        graph.apply(batch);
+        return graph.freeze();
+    }
+
+    private static int[] allNodes(CsrGraph graph) {
+        int[] nodes = new int[graph.getNumNodes()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = i;
+        }
+        return nodes;
+    }
+
+    private void assertRejected(CsrGraph graph, byte[] bytes) throws IOException {
+        Path path = Files.write(directory.resolve("damaged.nhop"), bytes);
+        assertThrows(IOException.class, () -> NextHopTable.open(graph, path));
+    }
+
+    private static byte[] patchInt(byte[] bytes, int position, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+        return copy;
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks that the time windows of ParallelSimulator change nothing: the same floods on the same snapshot reach
+ * every node at the same time, with the same transmissions and deliveries, as on a single Simulator.
+ */
+class ParallelSimulatorTest {
+
+    private static final int NUM_NODES = 3000;
+    private static final int NUM_FLOODS = 48;
+
+    @Test
+    void floodsMatchTheSequentialSimulator() {
+        for (int numTiles : new int[]{1, 4, 6}) {
+            CsrGraph graph = new Network(NUM_NODES, Math.sqrt(NUM_NODES) * 8, 5).getNetworkGraph().freeze();
+            int[] sources = new Random(numTiles).ints(NUM_FLOODS, 0, NUM_NODES).toArray();
+
+            Simulator simulator = new Simulator(graph);
+            FloodingProtocol flooding = new FloodingProtocol(simulator);
+            Recorder expected = new Recorder(flooding, NUM_NODES);
+            simulator.setHandler(expected);
+            simulator.setQueueCapacity(1536);
+            for (int source : sources) {
+                flooding.flood(simulator, source, 512, 12);
+            }
+            long expectedEvents = simulator.run();
+
+            ParallelSimulator parallel = new ParallelSimulator(graph, numTiles);
+            FloodingProtocol parallelFlooding = new FloodingProtocol(parallel);
+            Recorder actual = new Recorder(parallelFlooding, NUM_NODES);
+            parallel.setHandler(actual);
+            parallel.setQueueCapacity(1536);
+            for (int source : sources) {
+                parallelFlooding.flood(parallel.getShard(source), source, 512, 12);
+            }
+            long actualEvents = parallel.run();
+
+            assertEquals(expectedEvents, actualEvents);
+            assertEquals(simulator.getTransmissions(), parallel.getTransmissions());
+            assertEquals(simulator.getPacketsDropped(), parallel.getPacketsDropped());
+            assertEquals(simulator.getPacketsDelivered(), parallel.getPacketsDelivered());
+            assertEquals(simulator.getAverageHops(), parallel.getAverageHops(), 1e-9);
+            assertEquals(simulator.getAverageLatency(), parallel.getAverageLatency(), 1e-9);
+            assertArrayEquals(expected.heard, actual.heard);
+            assertArrayEquals(expected.firstHeard, actual.firstHeard, 1e-12);
+            assertTrue(numTiles == 1 || parallel.getWindows() > 1);
+        }
+    }
+
+    /**
+     * Runs flooding and records, for every node, how many packets it heard and when it heard the first one.
+     * Every node is only handled by the shard that owns it, so the arrays need no synchronization.
+     */
+    private static class Recorder implements ProtocolHandler {
+
+        private final FloodingProtocol flooding;
+        private final int[] heard;
+        private final double[] firstHeard;
+
+        Recorder(FloodingProtocol flooding, int numNodes) {
+            this.flooding = flooding;
+            this.heard = new int[numNodes];
+            this.firstHeard = new double[numNodes];
+            Arrays.fill(firstHeard, Double.POSITIVE_INFINITY);
+        }
+
+        @Override
+        public void onPacket(Simulator simulator, int node, int from, Packet packet, int hops) {
+            if (heard[node]++ == 0) {
+                firstHeard[node] = simulator.getTime();
+            }
+            flooding.onPacket(simulator, node, from, packet, hops);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Checks the distances and paths of A* and bidirectional search against those of Dijkstra's algorithm.
+ */
+class ShortestPathEngineTest {
+
+    @Test
+    void distanceWeightsMatchDijkstra() {
+        Random random = new Random(4);
+        //a single workspace for every graph, so it is reset to larger and smaller graphs between queries
+        ShortestPathWorkspace workspace = new ShortestPathWorkspace(0);
+        for (int trial = 0; trial < 30; trial++) {
+            int numNodes = 2 + random.nextInt(2000);
+            //sparse graphs fall apart in components, so many pairs cannot be reached
+            double averageDegree = 1 + random.nextInt(20);
+            CsrGraph graph = new Network(numNodes, side(numNodes, averageDegree), trial).getNetworkGraph().freeze();
+            checkPairs(graph, random, workspace);
+        }
+    }
+
+    @Test
+    void longerWeightsMatchDijkstra() {
+        //links up to three times longer than the distances keep the heuristic of A* a lower bound, but not a tight one
+        Random random = new Random(5);
+        ShortestPathWorkspace workspace = new ShortestPathWorkspace(0);
+        for (int trial = 0; trial < 20; trial++) {
+            int numNodes = 2 + random.nextInt(2000);
+            CsrGraph graph = stretch(new Network(numNodes, side(numNodes, 8), trial).getNetworkGraph().freeze(), random);
+            checkPairs(graph, random, workspace);
+        }
+    }
+
+    /**
+     * Routes random pairs, a node to itself among them, in every mode and compares the distances and paths
+     * with those of Dijkstra's algorithm.
+     */
+    private static void checkPairs(CsrGraph graph, Random random, ShortestPathWorkspace workspace) {
+        int numNodes = graph.getNumNodes();
+        for (int query = 0; query < 30; query++) {
+            int source = random.nextInt(numNodes);
+            int target = query == 0 ? source : random.nextInt(numNodes);
+            double expected = ShortestPathEngine.dijkstra(graph, source, target, workspace);
+            checkPath(graph, source, target, expected, workspace);
+            for (RoutingMode mode : RoutingMode.values()) {
+                double distance = ShortestPathEngine.shortestPath(graph, source, target, mode, workspace);
+                String pair = mode + " from " + source + " to " + target;
+                if (expected == Double.POSITIVE_INFINITY) {
+                    assertEquals(expected, distance, pair);
+                } else {
+                    assertEquals(expected, distance, 1e-9 * expected, pair);
+                }
+                assertEquals(distance, workspace.getDistance(target), pair);
+                checkPath(graph, source, target, distance, workspace);
+            }
+        }
+    }
+
+    /**
+     * Checks that the path left in the workspace runs from source to target over links of the graph whose
+     * weights add up to the distance, and that there is no path when the distance is infinite.
+     */
+    private static void checkPath(CsrGraph graph, int source, int target, double distance,
+                                  ShortestPathWorkspace workspace) {
+        int length = workspace.extractPath(target);
+        if (distance == Double.POSITIVE_INFINITY) {
+            assertEquals(0, length);
+            return;
+        }
+        int[] path = workspace.getPath();
+        assertTrue(length > 0);
+        assertEquals(source, path[0]);
+        assertEquals(target, path[length - 1]);
+        double sum = 0;
+        for (int i = 1; i < length; i++) {
+            sum += weight(graph, path[i - 1], path[i]);
+        }
+        assertEquals(distance, sum, 1e-9 * Math.max(1, distance));
+    }
+
+    /**
+     * Returns the weight of the link between two nodes, failing if they are not linked.
+     */
+    private static double weight(CsrGraph graph, int node, int neighbor) {
+        int[] offsets = graph.getOffsets();
+        for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+            if (graph.getTargets()[k] == neighbor) {
+                return graph.getWeights()[k];
+            }
+        }
+        return fail(node + " is not linked to " + neighbor);
+    }
+
+    /**
+     * Returns a copy of the graph whose links are from one to three times as long as the distances between their nodes.
+     */
+    private static CsrGraph stretch(CsrGraph graph, Random random) {
+        ArrayList<AdjacencyListHead> nodes = new ArrayList<>();
+        for (int i = 0; i < graph.getNumNodes(); i++) {
+            nodes.add(new AdjacencyListHead(new NetNode(i, "node " + i, graph.getX()[i], graph.getY()[i])));
+        }
+        NetGraph stretched = new NetGraph(nodes);
+        int[] offsets = graph.getOffsets();
+        GraphBatch batch = new GraphBatch(offsets[graph.getNumNodes()] / 2);
+        for (int i = 0; i < graph.getNumNodes(); i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (graph.getTargets()[k] > i) {
+                    batch.addLink(i, graph.getTargets()[k], graph.getWeights()[k] * (1 + 2 * random.nextDouble()));
+                }
+            }
+        }
+        stretched.apply(batch);
+        return stretched.freeze();
+    }
+
+    private static double side(int numNodes, double averageDegree) {
+        return Math.sqrt(numNodes * Math.PI * Network.RADIO_RANGE * Network.RADIO_RANGE / averageDegree);
+    }
+}